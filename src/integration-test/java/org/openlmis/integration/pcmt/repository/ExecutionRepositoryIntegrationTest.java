@@ -21,15 +21,21 @@ import java.time.Clock;
 import java.time.Instant;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
+import java.util.EnumSet;
+import java.util.List;
 import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 import org.junit.Test;
 import org.openlmis.integration.pcmt.domain.Execution;
 import org.openlmis.integration.pcmt.domain.ExecutionResponse;
+import org.openlmis.integration.pcmt.domain.ExecutionSummary;
 import org.openlmis.integration.pcmt.domain.Integration;
 import org.openlmis.integration.pcmt.testbuilder.IntegrationDataBuilder;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.repository.CrudRepository;
 
 public class ExecutionRepositoryIntegrationTest
@@ -76,4 +82,109 @@ public class ExecutionRepositoryIntegrationTest
         .getSingleResult())
         .isNotNull();
   }
+
+  @Test
+  public void shouldDeleteExecutionsStartedBeforeTheGivenDate() {
+    // given
+    ZonedDateTime startDate = ZonedDateTime.now(CLOCK);
+    Clock oldClock = Clock.fixed(startDate.minusMonths(7).toInstant(), CLOCK.getZone());
+
+    Execution old = Execution.forAutomaticExecution(INTEGRATION, oldClock);
+    old.markAsDone(new ExecutionResponse(ZonedDateTime.now(oldClock), 200, "ok"), oldClock);
+    repository.saveAndFlush(old);
+
+    final Execution recent = repository.saveAndFlush(generateInstance());
+
+    // when
+    List<Object[]> result = repository.deleteStartedBefore(startDate.minusMonths(6), 10);
+
+    // then
+    assertThat(((Number) result.get(0)[0]).longValue()).isEqualTo(1);
+    assertThat(((Number) result.get(0)[1]).longValue()).isEqualTo(1);
+    assertThat(((Number) result.get(0)[2]).longValue()).isPositive();
+
+    entityManager.clear();
+    assertThat(repository.exists(old.getId())).isFalse();
+    assertThat(repository.exists(recent.getId())).isTrue();
+  }
+
+  @Test
+  public void shouldFindExecutionsAfterTheGivenOneNewestFirst() {
+    // given
+    ZonedDateTime startDate = ZonedDateTime.now(CLOCK);
+    Execution oldest = saveStartedAt(startDate.minusDays(2));
+    Execution older = saveStartedAt(startDate.minusDays(1));
+    Execution newer = saveStartedAt(startDate);
+    Execution newest = saveStartedAt(startDate);
+
+    if (newer.getId().toString().compareTo(newest.getId().toString()) > 0) {
+      Execution swap = newer;
+      newer = newest;
+      newest = swap;
+    }
+
+    // when
+    List<ExecutionSummary> firstPage = repository.findLatestSummaries(new PageRequest(0, 3));
+    List<ExecutionSummary> nextPage = repository
+        .findSummariesBefore(newer.getStartDate(), newer.getId(), new PageRequest(0, 3));
+
+    // then
+    assertThat(firstPage)
+        .extracting(ExecutionSummary::getId)
+        .containsExactly(newest.getId(), newer.getId(), older.getId());
+    assertThat(nextPage)
+        .extracting(ExecutionSummary::getId)
+        .containsExactly(older.getId(), oldest.getId());
+  }
+
+  private Execution saveStartedAt(ZonedDateTime startDate) {
+    return repository.saveAndFlush(Execution.forAutomaticExecution(INTEGRATION,
+        Clock.fixed(startDate.toInstant(), CLOCK.getZone())));
+  }
+
+  @Test
+  public void shouldFindSummariesWithResponseStatusAndStoredBodySize() {
+    // given
+    Execution execution = generateInstance();
+    execution.markAsDone(new ExecutionResponse(ZonedDateTime.now(CLOCK), 201, "created"), CLOCK);
+    repository.saveAndFlush(execution);
+
+    // when
+    List<ExecutionSummary> summaries = repository
+        .findAllSummaries(new PageRequest(0, 10))
+        .getContent();
+
+    // then
+    assertThat(summaries).hasSize(1);
+    assertThat(summaries.get(0).getId()).isEqualTo(execution.getId());
+    assertThat(summaries.get(0).getStatusCode()).isEqualTo(201);
+    assertThat(summaries.get(0).getStoredBodyBytes()).isEqualTo("created".length());
+  }
+
+  @Test
+  public void shouldStreamSummariesOfGivenPeriodAndStatusOldestFirst() {
+    // given
+    ZonedDateTime startDate = ZonedDateTime.now(CLOCK);
+    saveStartedAt(startDate.minusDays(3));
+    final Execution older = saveStartedAt(startDate.minusDays(2));
+    final Execution newer = saveStartedAt(startDate.minusDays(1));
+    saveStartedAt(startDate);
+
+    Execution failed = Execution.forAutomaticExecution(INTEGRATION,
+        Clock.fixed(startDate.minusDays(1).toInstant(), CLOCK.getZone()));
+    failed.markAsDone(new ExecutionResponse(startDate, 500, "error"), CLOCK);
+    repository.saveAndFlush(failed);
+
+    // when
+    List<ExecutionSummary> summaries;
+    try (Stream<ExecutionSummary> stream = repository.streamSummaries(
+        startDate.minusDays(2), startDate, EnumSet.of(older.getStatus()))) {
+      summaries = stream.collect(Collectors.toList());
+    }
+
+    // then
+    assertThat(summaries)
+        .extracting(ExecutionSummary::getId)
+        .containsExactly(older.getId(), newer.getId());
+  }
 }
@@ -0,0 +1,93 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.integration.pcmt.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.UUID;
+import org.junit.Test;
+import org.openlmis.integration.pcmt.domain.ExecutionResponse;
+import org.openlmis.integration.pcmt.domain.Integration;
+import org.openlmis.integration.pcmt.domain.IntegrationRun;
+import org.openlmis.integration.pcmt.testbuilder.IntegrationDataBuilder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.repository.CrudRepository;
+
+public class IntegrationRunRepositoryIntegrationTest
+    extends BaseCrudRepositoryIntegrationTest<IntegrationRun> {
+
+  private static final Integration INTEGRATION = new IntegrationDataBuilder().build();
+  private static final Clock CLOCK = Clock.fixed(Instant.now(), ZoneId.systemDefault());
+
+  @Autowired
+  private IntegrationRunRepository repository;
+
+  @Autowired
+  private IntegrationRunItemRepository itemRepository;
+
+  @Override
+  CrudRepository<IntegrationRun, UUID> getRepository() {
+    return repository;
+  }
+
+  @Override
+  IntegrationRun generateInstance() {
+    return IntegrationRun.forAutomaticExecution(INTEGRATION, false, CLOCK);
+  }
+
+  @Test
+  public void shouldFindRunsOfGivenIntegration() {
+    // given
+    IntegrationRun run = repository.save(generateInstance());
+    repository.save(IntegrationRun.forAutomaticExecution(
+        new IntegrationDataBuilder().build(), false, CLOCK));
+
+    // when
+    Page<IntegrationRun> page = repository
+        .findByIntegrationId(INTEGRATION.getId(), new PageRequest(0, 10));
+
+    // then
+    assertThat(page.getContent()).containsExactly(run);
+  }
+
+  @Test
+  public void shouldFindItemsOfGivenRunAndStatus() {
+    // given
+    IntegrationRun run = repository.save(generateInstance());
+    ZonedDateTime now = ZonedDateTime.now(CLOCK);
+    itemRepository.save(run.addItem(UUID.randomUUID(), "C100",
+        new ExecutionResponse(now, 200, "ok"), 10));
+    itemRepository.save(run.addItem(UUID.randomUUID(), "C200",
+        new ExecutionResponse(now, 400, "invalid"), 10));
+
+    // when
+    long allItems = itemRepository
+        .findByRunId(run.getId(), new PageRequest(0, 10))
+        .getTotalElements();
+    Page<?> failedItems = itemRepository
+        .findByRunIdAndStatusCode(run.getId(), 400, new PageRequest(0, 10));
+
+    // then
+    assertThat(allItems).isEqualTo(2);
+    assertThat(failedItems.getTotalElements()).isEqualTo(1);
+  }
+}
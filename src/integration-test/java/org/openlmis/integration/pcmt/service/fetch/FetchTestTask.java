@@ -31,8 +31,8 @@ final class FetchTestTask extends OrderableIntegrationFetchTask {
   private boolean executed;
 
   public FetchTestTask(ZonedDateTime executionTime) {
-    super(null, null, null,
-        Clock.fixed(Instant.now(), ZoneOffset.UTC));
+    super(null, null, null, null, null, null, null, null,
+        Clock.fixed(Instant.now(), ZoneOffset.UTC), 1);
     this.executionTime = executionTime;
   }
 
@@ -0,0 +1,192 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.integration.pcmt.service.send;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.BDDMockito.given;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.method;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.net.URI;
+import java.time.Clock;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.openlmis.integration.pcmt.domain.Integration;
+import org.openlmis.integration.pcmt.domain.IntegrationRun;
+import org.openlmis.integration.pcmt.domain.IntegrationRunItem;
+import org.openlmis.integration.pcmt.repository.ExecutionRepository;
+import org.openlmis.integration.pcmt.repository.IntegrationRunItemRepository;
+import org.openlmis.integration.pcmt.repository.IntegrationRunRepository;
+import org.openlmis.integration.pcmt.service.IntegrationPipeline;
+import org.openlmis.integration.pcmt.service.OrderableFingerprintService;
+import org.openlmis.integration.pcmt.service.auth.AuthService;
+import org.openlmis.integration.pcmt.service.referencedata.orderable.DispensableDto;
+import org.openlmis.integration.pcmt.service.referencedata.orderable.OrderableDto;
+import org.openlmis.integration.pcmt.service.referencedata.orderable.OrderableReferenceDataService;
+import org.openlmis.integration.pcmt.testbuilder.IntegrationRunDataBuilder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.client.ExpectedCount;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestOperations;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * Checks how products are recorded with the default configuration, in which the run is the only
+ * execution and products are recorded as its items.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class OrderableIntegrationRunItemIntTest {
+
+  private static final String OLMIS_URL = "http://localhost";
+
+  private static final String OLMIS_ORDERABLE_URL = OLMIS_URL + "/api/orderables/";
+
+  private static final Integration MANUAL_INT = new Integration("", "Manual integration");
+
+  private static final Clock START = Clock.fixed(ZonedDateTime.now().toInstant(),
+      ZoneOffset.UTC);
+
+  private static final UUID ORDERABLE_ID = UUID.randomUUID();
+
+  private static final String PRODUCT_CODE = "PPE100";
+
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  @Autowired
+  private ExecutionRepository executionRepository;
+
+  @Autowired
+  private ExecutionRecorder executionRecorder;
+
+  @Autowired
+  private IntegrationRunRepository integrationRunRepository;
+
+  @Autowired
+  private IntegrationRunItemRepository integrationRunItemRepository;
+
+  @Autowired
+  private RestOperations restTemplate;
+
+  @MockBean
+  private AuthService authService;
+
+  @MockBean
+  private OrderableFingerprintService orderableFingerprintService;
+
+  @MockBean
+  private OrderableReferenceDataService orderableReferenceDataService;
+
+  private MockRestServiceServer mockServer;
+
+  @Before
+  public void setUp() {
+    mockServer = MockRestServiceServer.createServer((RestTemplate) restTemplate);
+    given(authService.obtainAccessToken()).willReturn(UUID.randomUUID().toString());
+  }
+
+  @Test
+  public void shouldRecordProductOnlyAsItemOfRun() throws JsonProcessingException {
+    OrderableDto dto = createOrderable();
+    URI getUri = URI.create(OLMIS_ORDERABLE_URL + ORDERABLE_ID);
+    mockServer.expect(ExpectedCount.once(), requestTo(getUri))
+        .andExpect(method(HttpMethod.GET))
+        .andRespond(withStatus(HttpStatus.NOT_FOUND)
+            .contentType(MediaType.APPLICATION_JSON)
+            .body("{\"messageKey\" : \"referenceData.error.orderable.notFound\"}"));
+    mockServer.expect(ExpectedCount.once(), requestTo(URI.create(OLMIS_ORDERABLE_URL)))
+        .andExpect(method(HttpMethod.PUT))
+        .andRespond(withStatus(HttpStatus.OK)
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(objectMapper.writeValueAsString(dto)));
+    executionRepository.deleteAll();
+    IntegrationRun run = integrationRunRepository
+        .save(new IntegrationRunDataBuilder().buildAsNewAutomatic());
+    OrderableIntegrationSendTask task = createTask(run, getPipeline(dto));
+
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    executor.submit(task);
+    await().until(() -> !getItems(run).isEmpty());
+
+    mockServer.verify();
+    List<IntegrationRunItem> items = getItems(run);
+    assertThat(items).hasSize(1);
+    assertThat(items.get(0).getProductCode()).isEqualTo(PRODUCT_CODE);
+    assertThat(items.get(0).getStatusCode()).isEqualTo(HttpStatus.OK.value());
+    assertThat(executionRepository.count()).isZero();
+
+    executor.shutdownNow();
+  }
+
+  private List<IntegrationRunItem> getItems(IntegrationRun run) {
+    return integrationRunItemRepository
+        .findByRunId(run.getId(), new PageRequest(0, 10))
+        .getContent();
+  }
+
+  private OrderableIntegrationSendTask createTask(IntegrationRun run,
+      IntegrationPipeline<OrderableDto> pipeline) {
+    return new OrderableIntegrationSendTask(
+        pipeline, MANUAL_INT, run, UUID.randomUUID(), OLMIS_URL, true,
+        executionRecorder, START, objectMapper, authService, restTemplate,
+        orderableFingerprintService, 1, orderableReferenceDataService, 1,
+        0);
+  }
+
+  private IntegrationPipeline<OrderableDto> getPipeline(OrderableDto dto) {
+    IntegrationPipeline<OrderableDto> pipeline = new IntegrationPipeline<>(1);
+    try {
+      pipeline.put(dto);
+    } catch (InterruptedException exp) {
+      throw new IllegalStateException(exp);
+    }
+    pipeline.endOfStream();
+    return pipeline;
+  }
+
+  private OrderableDto createOrderable() {
+    OrderableDto dto = new OrderableDto();
+    dto.setId(ORDERABLE_ID);
+    dto.setDispensable(new DispensableDto("Piece", null, null, null));
+    dto.setFullProductName("Respirator, Mask, N95/FFP2 Size Medium");
+    dto.setProductCode(PRODUCT_CODE);
+    dto.setNetContent(100000L);
+    dto.setPackRoundingThreshold(4L);
+    dto.setRoundToZero(false);
+
+    return dto;
+  }
+
+}
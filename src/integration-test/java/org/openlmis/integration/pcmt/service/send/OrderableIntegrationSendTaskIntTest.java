@@ -33,11 +33,9 @@ import java.time.ZonedDateTime;
 import java.util.HashSet;
 import java.util.Set;
 import java.util.UUID;
-import java.util.concurrent.BlockingQueue;
 
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.LinkedBlockingDeque;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
@@ -45,12 +43,18 @@ import org.junit.runner.RunWith;
 import org.mockito.junit.MockitoJUnit;
 import org.mockito.junit.MockitoRule;
 import org.openlmis.integration.pcmt.domain.Execution;
+import org.openlmis.integration.pcmt.domain.ExecutionStatus;
 import org.openlmis.integration.pcmt.domain.Integration;
 import org.openlmis.integration.pcmt.repository.ExecutionRepository;
+import org.openlmis.integration.pcmt.repository.IntegrationRunRepository;
+import org.openlmis.integration.pcmt.service.IntegrationPipeline;
+import org.openlmis.integration.pcmt.service.OrderableFingerprintService;
 import org.openlmis.integration.pcmt.service.auth.AuthService;
 import org.openlmis.integration.pcmt.service.referencedata.orderable.DispensableDto;
 import org.openlmis.integration.pcmt.service.referencedata.orderable.OrderableDto;
+import org.openlmis.integration.pcmt.service.referencedata.orderable.OrderableReferenceDataService;
 import org.openlmis.integration.pcmt.service.referencedata.orderable.ProgramOrderableDto;
+import org.openlmis.integration.pcmt.testbuilder.IntegrationRunDataBuilder;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
@@ -64,7 +68,10 @@ import org.springframework.web.client.RestOperations;
 import org.springframework.web.client.RestTemplate;
 
 @RunWith(SpringRunner.class)
-@SpringBootTest
+// these tests check the request and the response recorded for every product
+@SpringBootTest(properties = {
+    "pcmt.executionRecorder.executionPerProduct=true",
+    "pcmt.executionRecorder.bodyRetention=ALWAYS"})
 @SuppressWarnings("PMD.TooManyMethods")
 public class OrderableIntegrationSendTaskIntTest {
 
@@ -108,12 +115,24 @@ public class OrderableIntegrationSendTaskIntTest {
   @Autowired
   private ExecutionRepository executionRepository;
 
+  @Autowired
+  private ExecutionRecorder executionRecorder;
+
+  @Autowired
+  private IntegrationRunRepository integrationRunRepository;
+
   @Autowired
   private RestOperations restTemplate;
 
   @MockBean
   private AuthService authService;
 
+  @MockBean
+  private OrderableFingerprintService orderableFingerprintService;
+
+  @MockBean
+  private OrderableReferenceDataService orderableReferenceDataService;
+
   private MockRestServiceServer mockServer;
 
   @Before
@@ -139,7 +158,7 @@ public class OrderableIntegrationSendTaskIntTest {
     executor.submit(task);
     await().until(this::isExecuted);
 
-    verify(authService, times(2)).obtainAccessToken();
+    verify(authService, times(1)).obtainAccessToken();
     mockServer.verify();
     Execution execution = executionRepository.findAll().get(0);
     assertThat(execution.getRequestBody()).isNotNull();
@@ -169,7 +188,7 @@ public class OrderableIntegrationSendTaskIntTest {
     executor.submit(task);
     await().until(this::isExecuted);
 
-    verify(authService, times(2)).obtainAccessToken();
+    verify(authService, times(1)).obtainAccessToken();
     mockServer.verify();
     Execution execution = executionRepository.findAll().get(0);
     assertThat(execution.getRequestBody()).isNotNull();
@@ -181,6 +200,30 @@ public class OrderableIntegrationSendTaskIntTest {
     executor.shutdownNow();
   }
 
+  @Test
+  public void shouldSkipUpdateOfOrderableWithoutChanges() throws JsonProcessingException {
+    URI uri = URI.create(OLMIS_ORDERABLE_URL + DEFAULT_ORDERABLE_UUID);
+    mockGet200FromOlmisRequest(uri, createExistingOrderableWithProgram());
+    OrderableIntegrationSendTask task = createTask(
+        getMsgQueue(createExistingOrderableWithProgram()));
+    executionRepository.deleteAll();
+    assertThat(executionRepository.count()).isEqualTo(0L);
+
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    executor.submit(task);
+    await().until(this::isExecuted);
+
+    mockServer.verify();
+    Execution execution = executionRepository.findAll().get(0);
+    assertThat(execution.getResponse().getStatusCode())
+        .isEqualTo(HttpStatus.NOT_MODIFIED.value());
+    assertThat(execution.getStatus()).isEqualTo(ExecutionStatus.SUCCESS);
+    assertThat(execution.getSkippedEntities()).isEqualTo(1);
+    assertThat(execution.getWrittenEntities()).isZero();
+
+    executor.shutdownNow();
+  }
+
   @Test
   public void shouldPersistFailure() {
     URI getUri = URI.create(OLMIS_ORDERABLE_URL + DEFAULT_ORDERABLE_UUID);
@@ -198,7 +241,7 @@ public class OrderableIntegrationSendTaskIntTest {
     executor.submit(task);
     await().until(this::isExecuted);
 
-    verify(authService, times(2)).obtainAccessToken();
+    verify(authService, times(1)).obtainAccessToken();
     mockServer.verify();
     Execution execution = executionRepository.findAll().get(0);
     assertThat(execution.getRequestBody()).isNotNull();
@@ -256,15 +299,24 @@ public class OrderableIntegrationSendTaskIntTest {
             .body(objectMapper.writeValueAsString(dto)));
   }
 
-  private OrderableIntegrationSendTask createTask(BlockingQueue<OrderableDto> queue) {
+  private OrderableIntegrationSendTask createTask(IntegrationPipeline<OrderableDto> queue) {
     return new OrderableIntegrationSendTask(
-        queue, MANUAL_INT, ADMIN_UUID, OLMIS_URL, true,
-        executionRepository, START, objectMapper, authService, restTemplate);
+        queue, MANUAL_INT,
+        integrationRunRepository.save(new IntegrationRunDataBuilder().buildAsNewAutomatic()),
+        ADMIN_UUID, OLMIS_URL, true,
+        executionRecorder, START, objectMapper, authService, restTemplate,
+        orderableFingerprintService, 1, orderableReferenceDataService, 1,
+        0);
   }
 
-  private BlockingQueue<OrderableDto> getMsgQueue(OrderableDto dto) {
-    BlockingQueue<OrderableDto> q = new LinkedBlockingDeque<>();
-    q.add(dto);
+  private IntegrationPipeline<OrderableDto> getMsgQueue(OrderableDto dto) {
+    IntegrationPipeline<OrderableDto> q = new IntegrationPipeline<>(1);
+    try {
+      q.put(dto);
+    } catch (InterruptedException exp) {
+      throw new IllegalStateException(exp);
+    }
+    q.endOfStream();
     return q;
   }
 
@@ -33,9 +33,10 @@ final class SendTestTask extends OrderableIntegrationSendTask {
   private boolean executed;
 
   public SendTestTask(boolean manualExecution, ZonedDateTime executionTime) {
-    super(null, null, null,
+    super(null, null, null, null,
         null, manualExecution, null,
-        Clock.fixed(Instant.now(), ZoneOffset.UTC), null, null, null);
+        Clock.fixed(Instant.now(), ZoneOffset.UTC), null, null, null, null, 1,
+        null, 1, 0);
     this.executionTime = executionTime;
   }
 
@@ -39,6 +39,8 @@ import org.mockito.stubbing.Answer;
 import org.openlmis.integration.pcmt.domain.BaseEntity;
 import org.openlmis.integration.pcmt.repository.ExecutionRepository;
 import org.openlmis.integration.pcmt.repository.IntegrationRepository;
+import org.openlmis.integration.pcmt.repository.IntegrationRunItemRepository;
+import org.openlmis.integration.pcmt.repository.IntegrationRunRepository;
 import org.openlmis.integration.pcmt.scheduler.DynamicTaskScheduler;
 import org.openlmis.integration.pcmt.service.IntegrationExecutionService;
 import org.openlmis.integration.pcmt.util.Pagination;
@@ -121,6 +123,12 @@ public abstract class BaseWebIntegrationTest {
   @MockBean
   IntegrationRepository integrationRepository;
 
+  @MockBean
+  IntegrationRunRepository integrationRunRepository;
+
+  @MockBean
+  IntegrationRunItemRepository integrationRunItemRepository;
+
   @MockBean
   IntegrationExecutionService integrationExecutionService;
 
@@ -15,22 +15,32 @@
 
 package org.openlmis.integration.pcmt.web;
 
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.startsWith;
 import static org.junit.Assert.assertThat;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.BDDMockito.willDoNothing;
 import static org.mockito.BDDMockito.willThrow;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyCollectionOf;
+import static org.mockito.Matchers.eq;
 
 import guru.nidi.ramltester.junit.RamlMatchers;
+import java.time.ZonedDateTime;
 import java.util.Arrays;
+import java.util.EnumSet;
 import java.util.UUID;
+import java.util.stream.Stream;
 import org.apache.http.HttpHeaders;
 import org.apache.http.HttpStatus;
 import org.junit.Before;
 import org.junit.Test;
 import org.openlmis.integration.pcmt.domain.Execution;
+import org.openlmis.integration.pcmt.domain.ExecutionStatus;
+import org.openlmis.integration.pcmt.domain.ExecutionSummary;
 import org.openlmis.integration.pcmt.domain.Integration;
 import org.openlmis.integration.pcmt.i18n.MessageKeys;
 import org.openlmis.integration.pcmt.service.referencedata.UserDto;
@@ -46,11 +56,20 @@ public class ExecutionControllerIntegrationTest extends BaseWebIntegrationTest {
   private static final String RESOURCE_URL = ExecutionController.RESOURCE_PATH;
   private static final String ID_URL = RESOURCE_URL + ExecutionController.ID_URL;
   private static final String REQUEST_URL = RESOURCE_URL + ExecutionController.REQUEST_URL;
+  private static final String HISTORY_URL = RESOURCE_URL + ExecutionController.HISTORY_URL;
+  private static final String EXPORT_URL = RESOURCE_URL + ExecutionController.EXPORT_URL;
+  private static final String RETENTION_URL = RESOURCE_URL + ExecutionController.RETENTION_URL;
+  private static final String AFTER_START_DATE = "afterStartDate";
+  private static final String AFTER_ID = "afterId";
 
   private Execution execution = new ExecutionDataBuilder().buildAsAutomatic();
 
   private Execution execution1 = new ExecutionDataBuilder().buildAsManual();
 
+  private ExecutionSummary summary = new ExecutionDataBuilder().buildAsSummary();
+
+  private ExecutionSummary summary1 = new ExecutionDataBuilder().buildAsSummary();
+
   private ExecutionDto executionDto = ExecutionDto.newInstance(execution);
 
   private ManualIntegrationDto manualIntegrationDto = generateRequestBody();
@@ -63,8 +82,8 @@ public class ExecutionControllerIntegrationTest extends BaseWebIntegrationTest {
    */
   @Before
   public void setUp() {
-    given(executionRepository.findAll(any(Pageable.class)))
-        .willReturn(new PageImpl<>(Arrays.asList(execution, execution1)));
+    given(executionRepository.findAllSummaries(any(Pageable.class)))
+        .willReturn(new PageImpl<>(Arrays.asList(summary, summary1)));
 
     given(integrationRepository.findOne(manualIntegrationDto.getIntegrationId()))
         .willReturn(integration);
@@ -88,8 +107,10 @@ public class ExecutionControllerIntegrationTest extends BaseWebIntegrationTest {
         .then()
         .statusCode(HttpStatus.SC_OK)
         .body("content", hasSize(2))
-        .body("content[0].id", is(executionDto.getId().toString()))
-        .body("content[0].description", is(executionDto.getDescription()));
+        .body("content[0].id", is(summary.getId().toString()))
+        .body("content[0].description", is(summary.getDescription()))
+        .body("content[0].response.body", is(nullValue()))
+        .body("content[0].response.storedBodyBytes", is(summary.getStoredBodyBytes()));
 
     assertThat(RAML_ASSERT_MESSAGE, restAssured.getLastReport(), RamlMatchers.hasNoViolations());
   }
@@ -121,6 +142,179 @@ public class ExecutionControllerIntegrationTest extends BaseWebIntegrationTest {
     assertThat(RAML_ASSERT_MESSAGE, restAssured.getLastReport(), RamlMatchers.hasNoViolations());
   }
 
+  // GET /integrationExecutions/history
+
+  @Test
+  public void shouldReturnFirstKeysetPageOfExecutions() {
+    given(executionRepository.findLatestSummaries(any(Pageable.class)))
+        .willReturn(Arrays.asList(summary, summary1));
+
+    restAssured
+        .given()
+        .header(HttpHeaders.AUTHORIZATION, getTokenHeader())
+        .queryParam("size", 1)
+        .when()
+        .get(HISTORY_URL)
+        .then()
+        .statusCode(HttpStatus.SC_OK)
+        .body("content", hasSize(1))
+        .body("content[0].id", is(summary.getId().toString()))
+        .body("last", is(false))
+        .body("nextId", is(summary.getId().toString()));
+
+    assertThat(RAML_ASSERT_MESSAGE, restAssured.getLastReport(), RamlMatchers.hasNoViolations());
+  }
+
+  @Test
+  public void shouldReturnNextKeysetPageOfExecutions() {
+    given(executionRepository.findSummariesBefore(eq(summary.getStartDate()),
+        eq(summary.getId()), any(Pageable.class)))
+        .willReturn(Arrays.asList(summary1));
+
+    restAssured
+        .given()
+        .header(HttpHeaders.AUTHORIZATION, getTokenHeader())
+        .queryParam(AFTER_START_DATE, summary.getStartDate().toOffsetDateTime().toString())
+        .queryParam(AFTER_ID, summary.getId().toString())
+        .when()
+        .get(HISTORY_URL)
+        .then()
+        .statusCode(HttpStatus.SC_OK)
+        .body("content", hasSize(1))
+        .body("content[0].id", is(summary1.getId().toString()))
+        .body("last", is(true));
+
+    assertThat(RAML_ASSERT_MESSAGE, restAssured.getLastReport(), RamlMatchers.hasNoViolations());
+  }
+
+  @Test
+  public void shouldReturnBadRequestIfKeysetPositionIsIncomplete() {
+    restAssured
+        .given()
+        .header(HttpHeaders.AUTHORIZATION, getTokenHeader())
+        .queryParam(AFTER_ID, execution.getId().toString())
+        .when()
+        .get(HISTORY_URL)
+        .then()
+        .statusCode(HttpStatus.SC_BAD_REQUEST)
+        .body(MESSAGE_KEY, is(MessageKeys.ERROR_EXECUTION_KEYSET_INCOMPLETE));
+
+    assertThat(RAML_ASSERT_MESSAGE, restAssured.getLastReport(), RamlMatchers.hasNoViolations());
+  }
+
+  @Test
+  public void shouldReturnForbiddenWhenUserHasNotRightForGetExecutionHistory() {
+    disablePermission();
+
+    restAssured
+        .given()
+        .header(HttpHeaders.AUTHORIZATION, getTokenHeader())
+        .when()
+        .get(HISTORY_URL)
+        .then()
+        .statusCode(HttpStatus.SC_FORBIDDEN)
+        .body(MESSAGE_KEY, is(MessageKeys.ERROR_PERMISSION_MISSING));
+
+    assertThat(RAML_ASSERT_MESSAGE, restAssured.getLastReport(), RamlMatchers.hasNoViolations());
+  }
+
+  // GET /integrationExecutions/retention
+
+  @Test
+  public void shouldReturnExecutionRetention() {
+    restAssured
+        .given()
+        .header(HttpHeaders.AUTHORIZATION, getTokenHeader())
+        .when()
+        .get(RETENTION_URL)
+        .then()
+        .statusCode(HttpStatus.SC_OK)
+        .body("retentionMonths", is(0))
+        .body("purgedRows", is(0))
+        .body("reclaimedBytes", is(0));
+
+    assertThat(RAML_ASSERT_MESSAGE, restAssured.getLastReport(), RamlMatchers.hasNoViolations());
+  }
+
+  @Test
+  public void shouldReturnForbiddenWhenUserHasNotRightForGetExecutionRetention() {
+    disablePermission();
+
+    restAssured
+        .given()
+        .header(HttpHeaders.AUTHORIZATION, getTokenHeader())
+        .when()
+        .get(RETENTION_URL)
+        .then()
+        .statusCode(HttpStatus.SC_FORBIDDEN)
+        .body(MESSAGE_KEY, is(MessageKeys.ERROR_PERMISSION_MISSING));
+
+    assertThat(RAML_ASSERT_MESSAGE, restAssured.getLastReport(), RamlMatchers.hasNoViolations());
+  }
+
+  // GET /integrationExecutions/export
+
+  @Test
+  public void shouldExportExecutionsAsCsv() {
+    given(executionRepository.streamSummaries(any(ZonedDateTime.class),
+        any(ZonedDateTime.class), anyCollectionOf(ExecutionStatus.class)))
+        .willReturn(Stream.of(summary, summary1));
+
+    String csv = restAssured
+        .given()
+        .header(HttpHeaders.AUTHORIZATION, getTokenHeader())
+        .when()
+        .get(EXPORT_URL)
+        .then()
+        .statusCode(HttpStatus.SC_OK)
+        .contentType(startsWith(ExecutionExportFormat.CSV.getContentType()))
+        .extract()
+        .asString();
+
+    assertThat(csv, containsString(summary.getId().toString()));
+    assertThat(csv, containsString(summary1.getId().toString()));
+    assertThat(RAML_ASSERT_MESSAGE, restAssured.getLastReport(), RamlMatchers.hasNoViolations());
+  }
+
+  @Test
+  public void shouldExportExecutionsWithGivenStatusAsNdjson() {
+    given(executionRepository.streamSummaries(any(ZonedDateTime.class),
+        any(ZonedDateTime.class), eq(EnumSet.of(ExecutionStatus.ERROR))))
+        .willReturn(Stream.of(summary));
+
+    String ndjson = restAssured
+        .given()
+        .header(HttpHeaders.AUTHORIZATION, getTokenHeader())
+        .queryParam("format", ExecutionExportFormat.NDJSON)
+        .queryParam("status", ExecutionStatus.ERROR)
+        .when()
+        .get(EXPORT_URL)
+        .then()
+        .statusCode(HttpStatus.SC_OK)
+        .contentType(startsWith(ExecutionExportFormat.NDJSON.getContentType()))
+        .extract()
+        .asString();
+
+    assertThat(ndjson, containsString(summary.getId().toString()));
+    assertThat(RAML_ASSERT_MESSAGE, restAssured.getLastReport(), RamlMatchers.hasNoViolations());
+  }
+
+  @Test
+  public void shouldReturnForbiddenWhenUserHasNotRightForExportExecutions() {
+    disablePermission();
+
+    restAssured
+        .given()
+        .header(HttpHeaders.AUTHORIZATION, getTokenHeader())
+        .when()
+        .get(EXPORT_URL)
+        .then()
+        .statusCode(HttpStatus.SC_FORBIDDEN)
+        .body(MESSAGE_KEY, is(MessageKeys.ERROR_PERMISSION_MISSING));
+
+    assertThat(RAML_ASSERT_MESSAGE, restAssured.getLastReport(), RamlMatchers.hasNoViolations());
+  }
+
   // POST /integrationExecutions
 
   @Test
@@ -242,6 +436,24 @@ public class ExecutionControllerIntegrationTest extends BaseWebIntegrationTest {
     assertThat(RAML_ASSERT_MESSAGE, restAssured.getLastReport(), RamlMatchers.hasNoViolations());
   }
 
+  @Test
+  public void shouldReturnNotFoundWhenExecutionRequestHasNotBeenRetained() {
+    execution.discardBodies();
+    given(executionRepository.findOne(executionDto.getId())).willReturn(execution);
+
+    restAssured
+        .given()
+        .header(HttpHeaders.AUTHORIZATION, getTokenHeader())
+        .pathParam(ID, executionDto.getId().toString())
+        .when()
+        .get(REQUEST_URL)
+        .then()
+        .statusCode(HttpStatus.SC_NOT_FOUND)
+        .body(MESSAGE_KEY, is(MessageKeys.ERROR_EXECUTION_REQUEST_NOT_RETAINED));
+
+    assertThat(RAML_ASSERT_MESSAGE, restAssured.getLastReport(), RamlMatchers.hasNoViolations());
+  }
+
   @Test
   public void shouldReturnUnauthorizedForGetExecutionRequestIfUserIsNotAuthorized() {
     given(executionRepository.findOne(executionDto.getId())).willReturn(execution);
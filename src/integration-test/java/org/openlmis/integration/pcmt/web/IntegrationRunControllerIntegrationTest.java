@@ -0,0 +1,300 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.integration.pcmt.web;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willDoNothing;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.verify;
+
+import guru.nidi.ramltester.junit.RamlMatchers;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpStatus;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.openlmis.integration.pcmt.domain.ExecutionResponse;
+import org.openlmis.integration.pcmt.domain.IntegrationRun;
+import org.openlmis.integration.pcmt.domain.IntegrationRunItem;
+import org.openlmis.integration.pcmt.i18n.MessageKeys;
+import org.openlmis.integration.pcmt.testbuilder.IntegrationRunDataBuilder;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Sort.Direction;
+
+@SuppressWarnings("PMD.TooManyMethods")
+public class IntegrationRunControllerIntegrationTest extends BaseWebIntegrationTest {
+
+  private static final String RESOURCE_URL = IntegrationRunController.RESOURCE_PATH;
+  private static final String ID_URL = RESOURCE_URL + IntegrationRunController.ID_URL;
+  private static final String ITEMS_URL = RESOURCE_URL + IntegrationRunController.ITEMS_URL;
+
+  private IntegrationRun run = new IntegrationRunDataBuilder().buildAsAutomatic();
+
+  private IntegrationRun run1 = new IntegrationRunDataBuilder().buildAsManual();
+
+  private IntegrationRunItem item = run.addItem(null, "C100",
+      new ExecutionResponse(ZonedDateTime.now(), 400, "invalid"), 10);
+
+  /**
+   * Set up sample data.
+   */
+  @Before
+  public void setUp() {
+    given(integrationRunRepository.findAll(any(Pageable.class)))
+        .willReturn(new PageImpl<>(Arrays.asList(run, run1)));
+    given(integrationRunRepository.findOne(run.getId())).willReturn(run);
+    given(integrationRunItemRepository.findByRunId(eq(run.getId()), any(Pageable.class)))
+        .willReturn(new PageImpl<>(Collections.singletonList(item)));
+    given(integrationRunItemRepository
+        .findByRunIdAndStatusCode(eq(run.getId()), eq(400), any(Pageable.class)))
+        .willReturn(new PageImpl<>(Collections.singletonList(item)));
+
+    willDoNothing().given(permissionService).canManagePcmt();
+  }
+
+  // GET /integrationRuns
+
+  @Test
+  public void shouldReturnPageOfRuns() {
+    restAssured
+        .given()
+        .header(HttpHeaders.AUTHORIZATION, getTokenHeader())
+        .queryParam(PAGE, pageable.getPageNumber())
+        .queryParam(SIZE, pageable.getPageSize())
+        .when()
+        .get(RESOURCE_URL)
+        .then()
+        .statusCode(HttpStatus.SC_OK)
+        .body("content", hasSize(2))
+        .body("content[0].id", is(run.getId().toString()))
+        .body("content[0].failedEntities", is(1));
+
+    assertThat(RAML_ASSERT_MESSAGE, restAssured.getLastReport(), RamlMatchers.hasNoViolations());
+  }
+
+  @Test
+  public void shouldReturnNewestRunsFirstByDefault() {
+    restAssured
+        .given()
+        .header(HttpHeaders.AUTHORIZATION, getTokenHeader())
+        .when()
+        .get(RESOURCE_URL)
+        .then()
+        .statusCode(HttpStatus.SC_OK);
+
+    ArgumentCaptor<Pageable> captor = ArgumentCaptor.forClass(Pageable.class);
+    verify(integrationRunRepository).findAll(captor.capture());
+    assertThat(captor.getValue().getPageSize(), is(ExecutionController.DEFAULT_PAGE_SIZE));
+    assertThat(captor.getValue().getSort(), is(new Sort(Direction.DESC, "startDate", "id")));
+  }
+
+  @Test
+  public void shouldLimitPageSizeOfRuns() {
+    restAssured
+        .given()
+        .header(HttpHeaders.AUTHORIZATION, getTokenHeader())
+        .queryParam(SIZE, ExecutionController.MAX_PAGE_SIZE + 1)
+        .when()
+        .get(RESOURCE_URL)
+        .then()
+        .statusCode(HttpStatus.SC_OK);
+
+    ArgumentCaptor<Pageable> captor = ArgumentCaptor.forClass(Pageable.class);
+    verify(integrationRunRepository).findAll(captor.capture());
+    assertThat(captor.getValue().getPageSize(), is(ExecutionController.MAX_PAGE_SIZE));
+  }
+
+  @Test
+  public void shouldReturnPageOfRunsOfGivenIntegration() {
+    given(integrationRunRepository
+        .findByIntegrationId(eq(run.getIntegrationId()), any(Pageable.class)))
+        .willReturn(new PageImpl<>(Collections.singletonList(run)));
+
+    restAssured
+        .given()
+        .header(HttpHeaders.AUTHORIZATION, getTokenHeader())
+        .queryParam("integrationId", run.getIntegrationId())
+        .when()
+        .get(RESOURCE_URL)
+        .then()
+        .statusCode(HttpStatus.SC_OK)
+        .body("content", hasSize(1))
+        .body("content[0].id", is(run.getId().toString()));
+
+    assertThat(RAML_ASSERT_MESSAGE, restAssured.getLastReport(), RamlMatchers.hasNoViolations());
+  }
+
+  @Test
+  public void shouldReturnUnauthorizedForAllRunsEndpointIfUserIsNotAuthorized() {
+    restAssured.given()
+        .when()
+        .get(RESOURCE_URL)
+        .then()
+        .statusCode(HttpStatus.SC_UNAUTHORIZED);
+
+    assertThat(RAML_ASSERT_MESSAGE, restAssured.getLastReport(), RamlMatchers.hasNoViolations());
+  }
+
+  @Test
+  public void shouldReturnForbiddenWhenUserHasNotRightForGetAllRuns() {
+    disablePermission();
+
+    restAssured
+        .given()
+        .header(HttpHeaders.AUTHORIZATION, getTokenHeader())
+        .when()
+        .get(RESOURCE_URL)
+        .then()
+        .statusCode(HttpStatus.SC_FORBIDDEN)
+        .body(MESSAGE_KEY, is(MessageKeys.ERROR_PERMISSION_MISSING));
+
+    assertThat(RAML_ASSERT_MESSAGE, restAssured.getLastReport(), RamlMatchers.hasNoViolations());
+  }
+
+  // GET /integrationRuns/{id}
+
+  @Test
+  public void shouldReturnGivenRun() {
+    restAssured
+        .given()
+        .header(HttpHeaders.AUTHORIZATION, getTokenHeader())
+        .pathParam(ID, run.getId().toString())
+        .when()
+        .get(ID_URL)
+        .then()
+        .statusCode(HttpStatus.SC_OK)
+        .body(ID, is(run.getId().toString()))
+        .body("triggerType", is(run.getTriggerType().name()));
+
+    assertThat(RAML_ASSERT_MESSAGE, restAssured.getLastReport(), RamlMatchers.hasNoViolations());
+  }
+
+  @Test
+  public void shouldReturnNotFoundWhenRunWithIdDoesNotExist() {
+    restAssured
+        .given()
+        .header(HttpHeaders.AUTHORIZATION, getTokenHeader())
+        .pathParam(ID, run1.getId().toString())
+        .when()
+        .get(ID_URL)
+        .then()
+        .statusCode(HttpStatus.SC_NOT_FOUND)
+        .body(MESSAGE_KEY, is(MessageKeys.ERROR_INTEGRATION_RUN_NOT_FOUND));
+
+    assertThat(RAML_ASSERT_MESSAGE, restAssured.getLastReport(), RamlMatchers.hasNoViolations());
+  }
+
+  @Test
+  public void shouldReturnForbiddenWhenUserHasNotRightForGetRunById() {
+    disablePermission();
+
+    restAssured
+        .given()
+        .header(HttpHeaders.AUTHORIZATION, getTokenHeader())
+        .pathParam(ID, run.getId().toString())
+        .when()
+        .get(ID_URL)
+        .then()
+        .statusCode(HttpStatus.SC_FORBIDDEN)
+        .body(MESSAGE_KEY, is(MessageKeys.ERROR_PERMISSION_MISSING));
+
+    assertThat(RAML_ASSERT_MESSAGE, restAssured.getLastReport(), RamlMatchers.hasNoViolations());
+  }
+
+  // GET /integrationRuns/{id}/items
+
+  @Test
+  public void shouldReturnItemsOfGivenRun() {
+    restAssured
+        .given()
+        .header(HttpHeaders.AUTHORIZATION, getTokenHeader())
+        .pathParam(ID, run.getId().toString())
+        .when()
+        .get(ITEMS_URL)
+        .then()
+        .statusCode(HttpStatus.SC_OK)
+        .body("content", hasSize(1))
+        .body("content[0].productCode", is(item.getProductCode()))
+        .body("content[0].statusCode", is(400));
+
+    assertThat(RAML_ASSERT_MESSAGE, restAssured.getLastReport(), RamlMatchers.hasNoViolations());
+  }
+
+  @Test
+  public void shouldSortItemsByProductCodeByDefault() {
+    restAssured
+        .given()
+        .header(HttpHeaders.AUTHORIZATION, getTokenHeader())
+        .pathParam(ID, run.getId().toString())
+        .when()
+        .get(ITEMS_URL)
+        .then()
+        .statusCode(HttpStatus.SC_OK);
+
+    ArgumentCaptor<Pageable> captor = ArgumentCaptor.forClass(Pageable.class);
+    verify(integrationRunItemRepository).findByRunId(eq(run.getId()), captor.capture());
+    assertThat(captor.getValue().getSort(), is(new Sort("productCode", "id")));
+  }
+
+  @Test
+  public void shouldReturnItemsWithGivenStatusCode() {
+    restAssured
+        .given()
+        .header(HttpHeaders.AUTHORIZATION, getTokenHeader())
+        .pathParam(ID, run.getId().toString())
+        .queryParam("statusCode", 400)
+        .when()
+        .get(ITEMS_URL)
+        .then()
+        .statusCode(HttpStatus.SC_OK)
+        .body("content", hasSize(1))
+        .body("content[0].errorMessage", is(item.getErrorMessage()));
+
+    assertThat(RAML_ASSERT_MESSAGE, restAssured.getLastReport(), RamlMatchers.hasNoViolations());
+  }
+
+  @Test
+  public void shouldReturnNotFoundForItemsWhenRunWithIdDoesNotExist() {
+    restAssured
+        .given()
+        .header(HttpHeaders.AUTHORIZATION, getTokenHeader())
+        .pathParam(ID, run1.getId().toString())
+        .when()
+        .get(ITEMS_URL)
+        .then()
+        .statusCode(HttpStatus.SC_NOT_FOUND)
+        .body(MESSAGE_KEY, is(MessageKeys.ERROR_INTEGRATION_RUN_NOT_FOUND));
+
+    assertThat(RAML_ASSERT_MESSAGE, restAssured.getLastReport(), RamlMatchers.hasNoViolations());
+  }
+
+  private void disablePermission() {
+    willThrow(new MissingPermissionException("permission"))
+        .given(permissionService)
+        .canManagePcmt();
+  }
+
+}
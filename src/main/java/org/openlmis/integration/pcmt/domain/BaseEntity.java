@@ -33,6 +33,7 @@ public abstract class BaseEntity {
 
   static final String UUID_TYPE = "pg-uuid";
   static final String TEXT_COLUMN_DEFINITION = "TEXT";
+  static final String BYTEA_COLUMN_DEFINITION = "BYTEA";
   static final String TIMESTAMP_COLUMN_DEFINITION = "TIMESTAMP WITH TIME ZONE";
 
   @Id
@@ -0,0 +1,84 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.integration.pcmt.domain;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import javax.persistence.AttributeConverter;
+import javax.persistence.Converter;
+import org.apache.commons.io.IOUtils;
+
+/**
+ * Stores long texts, like request and response bodies, compressed with GZIP. Short texts would
+ * not get smaller, so they are stored as plain UTF-8 bytes, like texts saved before the column
+ * was compressed. Both are recognized by the GZIP header when read.
+ */
+@Converter
+public class CompressedTextConverter implements AttributeConverter<String, byte[]> {
+
+  static final int MIN_COMPRESSED_LENGTH = 128;
+
+  @Override
+  public byte[] convertToDatabaseColumn(String attribute) {
+    if (null == attribute) {
+      return null;
+    }
+
+    byte[] bytes = attribute.getBytes(StandardCharsets.UTF_8);
+    if (bytes.length < MIN_COMPRESSED_LENGTH) {
+      return bytes;
+    }
+
+    ByteArrayOutputStream compressed = new ByteArrayOutputStream(bytes.length / 4);
+    try (OutputStream stream = new GZIPOutputStream(compressed)) {
+      stream.write(bytes);
+    } catch (IOException exp) {
+      throw new IllegalStateException(exp);
+    }
+
+    return compressed.toByteArray();
+  }
+
+  @Override
+  public String convertToEntityAttribute(byte[] dbData) {
+    if (null == dbData) {
+      return null;
+    }
+
+    if (!isCompressed(dbData)) {
+      return new String(dbData, StandardCharsets.UTF_8);
+    }
+
+    try (InputStream stream = new GZIPInputStream(new ByteArrayInputStream(dbData))) {
+      return IOUtils.toString(stream, StandardCharsets.UTF_8);
+    } catch (IOException exp) {
+      throw new IllegalStateException(exp);
+    }
+  }
+
+  private boolean isCompressed(byte[] data) {
+    return data.length > 1
+        && (byte) GZIPInputStream.GZIP_MAGIC == data[0]
+        && (byte) (GZIPInputStream.GZIP_MAGIC >> 8) == data[1];
+  }
+
+}
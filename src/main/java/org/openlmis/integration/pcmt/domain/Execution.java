@@ -21,6 +21,7 @@ import java.util.UUID;
 import javax.persistence.Basic;
 import javax.persistence.CascadeType;
 import javax.persistence.Column;
+import javax.persistence.Convert;
 import javax.persistence.Entity;
 import javax.persistence.EnumType;
 import javax.persistence.Enumerated;
@@ -62,7 +63,8 @@ public class Execution extends BaseEntity {
   private ZonedDateTime endDate;
 
   @Basic(fetch = FetchType.LAZY)
-  @Column(columnDefinition = TEXT_COLUMN_DEFINITION)
+  @Convert(converter = CompressedTextConverter.class)
+  @Column(columnDefinition = BYTEA_COLUMN_DEFINITION)
   private String requestBody;
 
   @Type(type = UUID_TYPE)
@@ -73,13 +75,23 @@ public class Execution extends BaseEntity {
       orphanRemoval = true, fetch = FetchType.EAGER)
   private ExecutionResponse response;
 
+  @Column(nullable = false)
+  private int writtenEntities;
+
+  @Column(nullable = false)
+  private int skippedEntities;
+
+  @Type(type = UUID_TYPE)
+  @Column
+  private UUID runId;
+
   /**
    * Creates a new automatic execution.
    */
   public static Execution forAutomaticExecution(Integration integration, Clock clock) {
     return new Execution(false,
         ExecutionStatus.STARTED, integration.getDescription(),
-        ZonedDateTime.now(clock), null, EMPTY_JSON, null, null);
+        ZonedDateTime.now(clock), null, EMPTY_JSON, null, null, 0, 0, null);
   }
 
   /**
@@ -89,7 +101,14 @@ public class Execution extends BaseEntity {
       Clock clock) {
     return new Execution(true,
         ExecutionStatus.STARTED, integration.getDescription(),
-        ZonedDateTime.now(clock), null, EMPTY_JSON, userId, null);
+        ZonedDateTime.now(clock), null, EMPTY_JSON, userId, null, 0, 0, null);
+  }
+
+  /**
+   * Links this execution with the run in which the entity has been sent.
+   */
+  public void setRun(IntegrationRun run) {
+    this.runId = run.getId();
   }
 
   public void setRequestBody(String requestBody) {
@@ -98,7 +117,8 @@ public class Execution extends BaseEntity {
   }
 
   /**
-   * mark this execution as done.
+   * mark this execution as done. Entities that have not been written because the target system
+   * already had the same data are counted as skipped.
    */
   public void markAsDone(ExecutionResponse response, Clock clock) {
     this.response = response;
@@ -106,6 +126,36 @@ public class Execution extends BaseEntity {
 
     this.endDate = ZonedDateTime.now(clock);
     this.status = response.isSuccess() ? ExecutionStatus.SUCCESS : ExecutionStatus.ERROR;
+
+    if (response.isNotModified()) {
+      ++skippedEntities;
+    } else if (response.isSuccess()) {
+      ++writtenEntities;
+    }
+  }
+
+  /**
+   * Mark this execution of a whole run as done. The status and the numbers of written and skipped
+   * entities are copied from the finished run. Products that have not been sent because they had
+   * not changed are counted as skipped.
+   */
+  public void markAsDone(IntegrationRun run, Clock clock) {
+    this.endDate = ZonedDateTime.now(clock);
+    this.status = run.getStatus();
+    this.writtenEntities = run.getWrittenEntities();
+    this.skippedEntities = run.getSkippedEntities() + run.getUnchangedEntities();
+  }
+
+  /**
+   * Removes the request and the response body, so they are not saved. The status and dates of
+   * the execution are kept.
+   */
+  public void discardBodies() {
+    this.requestBody = null;
+
+    if (null != response) {
+      response.discardBody();
+    }
   }
 
   /**
@@ -117,6 +167,8 @@ public class Execution extends BaseEntity {
     exporter.setStatus(status);
     exporter.setDescription(description);
     exporter.setStartDate(startDate);
+    exporter.setWrittenEntities(writtenEntities);
+    exporter.setSkippedEntities(skippedEntities);
 
     if (null != endDate) {
       exporter.setEndDate(endDate);
@@ -129,6 +181,10 @@ public class Execution extends BaseEntity {
     if (null != userId) {
       exporter.setUserId(userId);
     }
+
+    if (null != runId) {
+      exporter.setRunId(runId);
+    }
   }
 
   public interface Exporter extends BaseExporter {
@@ -147,5 +203,11 @@ public class Execution extends BaseEntity {
 
     void setUserId(UUID userId);
 
+    void setWrittenEntities(int writtenEntities);
+
+    void setSkippedEntities(int skippedEntities);
+
+    void setRunId(UUID runId);
+
   }
 }
@@ -18,6 +18,7 @@ package org.openlmis.integration.pcmt.domain;
 import java.time.ZonedDateTime;
 import java.util.UUID;
 import javax.persistence.Column;
+import javax.persistence.Convert;
 import javax.persistence.Entity;
 import javax.persistence.FetchType;
 import javax.persistence.Id;
@@ -50,7 +51,8 @@ public final class ExecutionResponse {
   private int statusCode;
 
   @Getter
-  @Column(nullable = false, columnDefinition = BaseEntity.TEXT_COLUMN_DEFINITION)
+  @Convert(converter = CompressedTextConverter.class)
+  @Column(columnDefinition = BaseEntity.BYTEA_COLUMN_DEFINITION)
   private String body;
 
   @MapsId
@@ -77,6 +79,10 @@ public final class ExecutionResponse {
     }
   }
 
+  void discardBody() {
+    this.body = null;
+  }
+
   boolean isSuccess() {
     HttpStatus status = HttpStatus.valueOf(statusCode);
 
@@ -85,6 +91,14 @@ public final class ExecutionResponse {
         || status.is3xxRedirection();
   }
 
+  /**
+   * Checks if the entity has not been written, because the target system already had the same
+   * data.
+   */
+  boolean isNotModified() {
+    return HttpStatus.NOT_MODIFIED.value() == statusCode;
+  }
+
   /**
    * Export the current object state.
    */
@@ -0,0 +1,103 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.integration.pcmt.domain;
+
+import java.time.ZonedDateTime;
+import java.util.UUID;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+import org.openlmis.integration.pcmt.domain.BaseEntity.BaseExporter;
+
+/**
+ * Read-only view of an execution and its response used to list executions. Request and response
+ * bodies are not part of it, only the size of the stored response body is. Long bodies are stored
+ * compressed, so the size is the number of bytes in the database, not the length of the body.
+ */
+@Getter
+@AllArgsConstructor
+@EqualsAndHashCode
+@ToString
+public final class ExecutionSummary {
+
+  private final UUID id;
+  private final boolean manualExecution;
+  private final ExecutionStatus status;
+  private final String description;
+  private final ZonedDateTime startDate;
+  private final ZonedDateTime endDate;
+  private final UUID userId;
+  private final int writtenEntities;
+  private final int skippedEntities;
+  private final UUID runId;
+  private final ZonedDateTime responseDate;
+  private final Integer statusCode;
+  private final Integer storedBodyBytes;
+
+  /**
+   * Exports the current state of the summary into the given exporter.
+   */
+  public void export(Exporter exporter) {
+    exporter.setId(id);
+    exporter.setManualExecution(manualExecution);
+    exporter.setStatus(status);
+    exporter.setDescription(description);
+    exporter.setStartDate(startDate);
+    exporter.setWrittenEntities(writtenEntities);
+    exporter.setSkippedEntities(skippedEntities);
+
+    if (null != endDate) {
+      exporter.setEndDate(endDate);
+    }
+
+    if (null != statusCode) {
+      exporter.setResponse(responseDate, statusCode, storedBodyBytes);
+    }
+
+    if (null != userId) {
+      exporter.setUserId(userId);
+    }
+
+    if (null != runId) {
+      exporter.setRunId(runId);
+    }
+  }
+
+  public interface Exporter extends BaseExporter {
+
+    void setManualExecution(boolean manualExecution);
+
+    void setStatus(ExecutionStatus status);
+
+    void setDescription(String description);
+
+    void setStartDate(ZonedDateTime startDate);
+
+    void setEndDate(ZonedDateTime endDate);
+
+    void setResponse(ZonedDateTime responseDate, int statusCode, Integer storedBodyBytes);
+
+    void setUserId(UUID userId);
+
+    void setWrittenEntities(int writtenEntities);
+
+    void setSkippedEntities(int skippedEntities);
+
+    void setRunId(UUID runId);
+
+  }
+}
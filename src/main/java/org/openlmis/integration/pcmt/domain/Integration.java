@@ -15,21 +15,21 @@
 
 package org.openlmis.integration.pcmt.domain;
 
+import java.time.ZonedDateTime;
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.Table;
-import lombok.AllArgsConstructor;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.ToString;
+import org.javers.core.metamodel.annotation.DiffIgnore;
 import org.javers.core.metamodel.annotation.TypeName;
 
 @Entity
 @Table(name = "integrations")
 @TypeName("Integration")
 @NoArgsConstructor
-@AllArgsConstructor
 @EqualsAndHashCode(callSuper = true)
 @ToString(callSuper = true)
 public class Integration extends BaseEntity {
@@ -42,6 +42,20 @@ public class Integration extends BaseEntity {
   @Column(columnDefinition = TEXT_COLUMN_DEFINITION)
   private String description;
 
+  /**
+   * The most recent PCMT update date of products that have been fetched by the integration. Only
+   * products updated after this date are fetched in the next run. The value is maintained by the
+   * integration itself so it is not a part of the audit log.
+   */
+  @Getter
+  @DiffIgnore
+  @Column(columnDefinition = TIMESTAMP_COLUMN_DEFINITION)
+  private ZonedDateTime lastSyncDate;
+
+  public Integration(String cronExpression, String description) {
+    this.cronExpression = cronExpression;
+    this.description = description;
+  }
 
   /**
    * Update this from another.
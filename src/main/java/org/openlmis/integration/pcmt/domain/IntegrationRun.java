@@ -0,0 +1,205 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.integration.pcmt.domain;
+
+import java.time.Clock;
+import java.time.ZonedDateTime;
+import java.util.UUID;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.Table;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.apache.commons.lang3.StringUtils;
+import org.hibernate.annotations.Type;
+
+/**
+ * Single run of an integration. Keeps the aggregated results of all products sent in the run,
+ * the result of each product is kept in a separate {@link IntegrationRunItem}.
+ */
+@Entity
+@Table(name = "integration_runs")
+@NoArgsConstructor
+@Getter
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+@EqualsAndHashCode(callSuper = true)
+@ToString(callSuper = true)
+public class IntegrationRun extends BaseEntity {
+
+  @Type(type = UUID_TYPE)
+  @Column(nullable = false)
+  private UUID integrationId;
+
+  @Enumerated(EnumType.STRING)
+  @Column(nullable = false)
+  private IntegrationRunTrigger triggerType;
+
+  @Type(type = UUID_TYPE)
+  @Column
+  private UUID userId;
+
+  @Column(nullable = false)
+  private boolean fullSync;
+
+  @Enumerated(EnumType.STRING)
+  @Column(nullable = false)
+  private ExecutionStatus status;
+
+  @Column(nullable = false, columnDefinition = TIMESTAMP_COLUMN_DEFINITION)
+  private ZonedDateTime startDate;
+
+  @Column(columnDefinition = TIMESTAMP_COLUMN_DEFINITION)
+  private ZonedDateTime endDate;
+
+  @Column(nullable = false)
+  private int writtenEntities;
+
+  @Column(nullable = false)
+  private int skippedEntities;
+
+  @Column(nullable = false)
+  private int failedEntities;
+
+  @Column(nullable = false)
+  private int unchangedEntities;
+
+  /**
+   * Creates a new run started by the scheduler.
+   */
+  public static IntegrationRun forAutomaticExecution(Integration integration, boolean fullSync,
+      Clock clock) {
+    return new IntegrationRun(integration.getId(), IntegrationRunTrigger.SCHEDULED, null,
+        fullSync, ExecutionStatus.STARTED, ZonedDateTime.now(clock), null, 0, 0, 0, 0);
+  }
+
+  /**
+   * Creates a new run started by the given user.
+   */
+  public static IntegrationRun forManualExecution(Integration integration, UUID userId,
+      boolean fullSync, Clock clock) {
+    return new IntegrationRun(integration.getId(), IntegrationRunTrigger.MANUAL, userId,
+        fullSync, ExecutionStatus.STARTED, ZonedDateTime.now(clock), null, 0, 0, 0, 0);
+  }
+
+  /**
+   * Adds the result of sending a product and counts it as written, skipped or failed. Results can
+   * be added by many send workers at the same time.
+   *
+   * @return the result which should be saved
+   */
+  public synchronized IntegrationRunItem addItem(UUID productId, String productCode,
+      ExecutionResponse response, long durationMillis) {
+    if (response.isNotModified()) {
+      ++skippedEntities;
+    } else if (response.isSuccess()) {
+      ++writtenEntities;
+    } else {
+      ++failedEntities;
+    }
+
+    String errorMessage = response.isSuccess() ? null : response.getBody();
+    return new IntegrationRunItem(getId(), productId, productCode, response.getStatusCode(),
+        durationMillis, StringUtils.abbreviate(errorMessage, IntegrationRunItem.ERROR_LENGTH));
+  }
+
+  /**
+   * Adds a product that could not be sent because of the given error.
+   *
+   * @return the result which should be saved
+   */
+  public synchronized IntegrationRunItem addFailedItem(UUID productId, String productCode,
+      Exception error, long durationMillis) {
+    ++failedEntities;
+
+    return new IntegrationRunItem(getId(), productId, productCode, null, durationMillis,
+        StringUtils.abbreviate(String.valueOf(error), IntegrationRunItem.ERROR_LENGTH));
+  }
+
+  /**
+   * Counts products that have not been sent because they have not changed since they were last
+   * sent. Unlike skipped products, they are not compared with OpenLMIS and have no results.
+   */
+  public synchronized void addUnchangedItems(int count) {
+    unchangedEntities += count;
+  }
+
+  /**
+   * Marks the run as finished. The run is successful only if it has not been interrupted and all
+   * products have been sent.
+   */
+  public synchronized void finish(boolean completed, Clock clock) {
+    this.endDate = ZonedDateTime.now(clock);
+    this.status = completed && 0 == failedEntities
+        ? ExecutionStatus.SUCCESS
+        : ExecutionStatus.ERROR;
+  }
+
+  /**
+   * Export the current object state.
+   */
+  public synchronized void export(Exporter exporter) {
+    exporter.setId(getId());
+    exporter.setIntegrationId(integrationId);
+    exporter.setTriggerType(triggerType);
+    exporter.setFullSync(fullSync);
+    exporter.setStatus(status);
+    exporter.setStartDate(startDate);
+    exporter.setWrittenEntities(writtenEntities);
+    exporter.setSkippedEntities(skippedEntities);
+    exporter.setFailedEntities(failedEntities);
+    exporter.setUnchangedEntities(unchangedEntities);
+
+    if (null != endDate) {
+      exporter.setEndDate(endDate);
+    }
+
+    if (null != userId) {
+      exporter.setUserId(userId);
+    }
+  }
+
+  public interface Exporter extends BaseExporter {
+
+    void setIntegrationId(UUID integrationId);
+
+    void setTriggerType(IntegrationRunTrigger triggerType);
+
+    void setUserId(UUID userId);
+
+    void setFullSync(boolean fullSync);
+
+    void setStatus(ExecutionStatus status);
+
+    void setStartDate(ZonedDateTime startDate);
+
+    void setEndDate(ZonedDateTime endDate);
+
+    void setWrittenEntities(int writtenEntities);
+
+    void setSkippedEntities(int skippedEntities);
+
+    void setFailedEntities(int failedEntities);
+
+    void setUnchangedEntities(int unchangedEntities);
+
+  }
+}
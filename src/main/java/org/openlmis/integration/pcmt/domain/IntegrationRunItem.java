@@ -0,0 +1,93 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.integration.pcmt.domain;
+
+import java.util.UUID;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Table;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.hibernate.annotations.Type;
+
+/**
+ * Result of sending a single product in an {@link IntegrationRun}. Only the beginning of the
+ * error message is kept, full requests and responses are available in executions.
+ */
+@Entity
+@Table(name = "integration_run_items")
+@NoArgsConstructor
+@Getter
+@AllArgsConstructor(access = AccessLevel.PACKAGE)
+@EqualsAndHashCode(callSuper = true)
+@ToString(callSuper = true)
+public class IntegrationRunItem extends BaseEntity {
+
+  static final int ERROR_LENGTH = 255;
+
+  @Type(type = UUID_TYPE)
+  @Column(nullable = false)
+  private UUID runId;
+
+  @Type(type = UUID_TYPE)
+  @Column
+  private UUID productId;
+
+  @Column(columnDefinition = TEXT_COLUMN_DEFINITION)
+  private String productCode;
+
+  @Column
+  private Integer statusCode;
+
+  @Column(nullable = false)
+  private long durationMillis;
+
+  @Column(columnDefinition = TEXT_COLUMN_DEFINITION)
+  private String errorMessage;
+
+  /**
+   * Export the current object state.
+   */
+  public void export(Exporter exporter) {
+    exporter.setId(getId());
+    exporter.setRunId(runId);
+    exporter.setProductId(productId);
+    exporter.setProductCode(productCode);
+    exporter.setStatusCode(statusCode);
+    exporter.setDurationMillis(durationMillis);
+    exporter.setErrorMessage(errorMessage);
+  }
+
+  public interface Exporter extends BaseExporter {
+
+    void setRunId(UUID runId);
+
+    void setProductId(UUID productId);
+
+    void setProductCode(String productCode);
+
+    void setStatusCode(Integer statusCode);
+
+    void setDurationMillis(long durationMillis);
+
+    void setErrorMessage(String errorMessage);
+
+  }
+}
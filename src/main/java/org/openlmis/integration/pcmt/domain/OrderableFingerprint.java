@@ -0,0 +1,55 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.integration.pcmt.domain;
+
+import java.time.ZonedDateTime;
+import java.util.UUID;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Table;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+/**
+ * Fingerprint of the orderable fields that the integration sends to OpenLMIS. The id of the
+ * fingerprint is the id of the orderable (LMIS_UUID in PCMT).
+ */
+@Entity
+@Table(name = "orderable_fingerprints")
+@NoArgsConstructor
+@Getter
+@EqualsAndHashCode(callSuper = true)
+@ToString(callSuper = true)
+public class OrderableFingerprint extends BaseEntity {
+
+  @Column(nullable = false, columnDefinition = TEXT_COLUMN_DEFINITION)
+  private String fingerprint;
+
+  @Column(nullable = false, columnDefinition = TIMESTAMP_COLUMN_DEFINITION)
+  private ZonedDateTime lastSentDate;
+
+  /**
+   * Creates a new fingerprint of the orderable with the given id.
+   */
+  public OrderableFingerprint(UUID orderableId, String fingerprint, ZonedDateTime lastSentDate) {
+    setId(orderableId);
+    this.fingerprint = fingerprint;
+    this.lastSentDate = lastSentDate;
+  }
+
+}
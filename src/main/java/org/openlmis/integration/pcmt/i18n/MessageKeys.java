@@ -29,6 +29,7 @@ public abstract class MessageKeys {
   private static final String PERMISSION = "permission";
   private static final String INTEGRATION = "integration";
   private static final String EXECUTION = "execution";
+  private static final String INTEGRATION_RUN = "integrationRun";
   private static final String JAVERS = "javers";
 
   private static final String CRON_EXPRESSION = "cronExpression";
@@ -62,6 +63,13 @@ public abstract class MessageKeys {
       join(ERROR_PREFIX, CRON_EXPRESSION, INVALID);
 
   public static final String ERROR_EXECUTION_NOT_FOUND = join(ERROR_PREFIX, EXECUTION, NOT_FOUND);
+  public static final String ERROR_EXECUTION_REQUEST_NOT_RETAINED =
+      join(ERROR_PREFIX, EXECUTION, "request", "notRetained");
+  public static final String ERROR_EXECUTION_KEYSET_INCOMPLETE =
+      join(ERROR_PREFIX, EXECUTION, "keyset", "incomplete");
+
+  public static final String ERROR_INTEGRATION_RUN_NOT_FOUND =
+      join(ERROR_PREFIX, INTEGRATION_RUN, NOT_FOUND);
 
   public static final String ERROR_JAVERS_EXISTING_ENTRY =
       join(ERROR_PREFIX, JAVERS, "entryAlreadyExists");
@@ -15,10 +15,101 @@
 
 package org.openlmis.integration.pcmt.repository;
 
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+
+import java.time.ZonedDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.UUID;
+import java.util.stream.Stream;
+import javax.persistence.QueryHint;
 import org.openlmis.integration.pcmt.domain.Execution;
+import org.openlmis.integration.pcmt.domain.ExecutionStatus;
+import org.openlmis.integration.pcmt.domain.ExecutionSummary;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 public interface ExecutionRepository extends JpaRepository<Execution, UUID> {
 
+  String SUMMARY_SELECT = "SELECT new org.openlmis.integration.pcmt.domain.ExecutionSummary("
+      + "    e.id, e.manualExecution, e.status, e.description, e.startDate, e.endDate,"
+      + "    e.userId, e.writtenEntities, e.skippedEntities, e.runId,"
+      + "    r.responseDate, r.statusCode, LENGTH(r.body))"
+      + "  FROM Execution e"
+      + "    LEFT JOIN e.response r";
+
+  @Query(value = SUMMARY_SELECT, countQuery = "SELECT COUNT(e) FROM Execution e")
+  Page<ExecutionSummary> findAllSummaries(Pageable pageable);
+
+  @Query(SUMMARY_SELECT
+      + "  ORDER BY e.startDate DESC, e.id DESC")
+  List<ExecutionSummary> findLatestSummaries(Pageable pageable);
+
+  /**
+   * Retrieves summaries of executions that come after the given one when ordered by start date
+   * and id, newest first. The redundant start date condition lets the database seek in the
+   * (startDate, id) index instead of filtering all newer executions.
+   */
+  @Query(SUMMARY_SELECT
+      + "  WHERE e.startDate <= :startDate"
+      + "    AND (e.startDate < :startDate OR e.id < :id)"
+      + "  ORDER BY e.startDate DESC, e.id DESC")
+  List<ExecutionSummary> findSummariesBefore(@Param("startDate") ZonedDateTime startDate,
+      @Param("id") UUID id, Pageable pageable);
+
+  /**
+   * Streams summaries of executions started in the given period with one of the given statuses,
+   * oldest first. Rows are read from a database cursor in chunks, so the stream has to be
+   * consumed and closed within a transaction.
+   */
+  @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+  @Query(SUMMARY_SELECT
+      + "  WHERE e.startDate >= :startDateFrom"
+      + "    AND e.startDate < :startDateTo"
+      + "    AND e.status IN :statuses"
+      + "  ORDER BY e.startDate, e.id")
+  Stream<ExecutionSummary> streamSummaries(@Param("startDateFrom") ZonedDateTime startDateFrom,
+      @Param("startDateTo") ZonedDateTime startDateTo,
+      @Param("statuses") Collection<ExecutionStatus> statuses);
+
+  /**
+   * Deletes the oldest executions started before the given date together with their responses.
+   * At most the given number of executions is deleted, so that locks are held only for a short
+   * time.
+   *
+   * @return a single row with the number of deleted executions, the number of deleted responses
+   *     and the size in bytes of all deleted rows.
+   */
+  @Transactional
+  @Query(value = "WITH batch AS ("
+      + "    SELECT id"
+      + "      FROM pcmtintegration.executions"
+      + "      WHERE startDate < :startDate"
+      + "      ORDER BY startDate"
+      + "      LIMIT :batchSize"
+      + "  ), deleted_responses AS ("
+      + "    DELETE FROM pcmtintegration.execution_responses r"
+      + "      USING batch b"
+      + "      WHERE r.id = b.id"
+      + "      RETURNING pg_column_size(r.*) AS size"
+      + "  ), deleted AS ("
+      + "    DELETE FROM pcmtintegration.executions e"
+      + "      USING batch b"
+      + "      WHERE e.id = b.id"
+      + "      RETURNING pg_column_size(e.*) AS size"
+      + "  )"
+      + "  SELECT"
+      + "    (SELECT COUNT(*) FROM deleted),"
+      + "    (SELECT COUNT(*) FROM deleted_responses),"
+      + "    (SELECT COALESCE(SUM(size), 0) FROM deleted)"
+      + "      + (SELECT COALESCE(SUM(size), 0) FROM deleted_responses)",
+      nativeQuery = true)
+  List<Object[]> deleteStartedBefore(@Param("startDate") ZonedDateTime startDate,
+      @Param("batchSize") int batchSize);
+
 }
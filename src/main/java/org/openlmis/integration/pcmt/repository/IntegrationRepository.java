@@ -15,13 +15,17 @@
 
 package org.openlmis.integration.pcmt.repository;
 
+import java.time.ZonedDateTime;
 import java.util.UUID;
 import org.javers.spring.annotation.JaversSpringDataAuditable;
 import org.openlmis.integration.pcmt.domain.Integration;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.PagingAndSortingRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 @JaversSpringDataAuditable
 public interface IntegrationRepository
@@ -47,4 +51,16 @@ public interface IntegrationRepository
       nativeQuery = true)
   Page<Integration> findAllWithoutSnapshots(Pageable pageable);
 
+  @Query("SELECT i.lastSyncDate FROM Integration i WHERE i.id = :id")
+  ZonedDateTime findLastSyncDate(@Param("id") UUID id);
+
+  /**
+   * Updates only the last sync date of the given integration, so that concurrent changes made by
+   * users are not overridden and no audit log entry is created.
+   */
+  @Modifying
+  @Transactional
+  @Query("UPDATE Integration i SET i.lastSyncDate = :lastSyncDate WHERE i.id = :id")
+  int updateLastSyncDate(@Param("id") UUID id, @Param("lastSyncDate") ZonedDateTime lastSyncDate);
+
 }
@@ -0,0 +1,67 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.integration.pcmt.repository;
+
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.UUID;
+import org.openlmis.integration.pcmt.domain.IntegrationRun;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+public interface IntegrationRunRepository extends JpaRepository<IntegrationRun, UUID> {
+
+  Page<IntegrationRun> findByIntegrationId(UUID integrationId, Pageable pageable);
+
+  /**
+   * Deletes the oldest runs started before the given date together with their items. At most
+   * the given number of runs is deleted, so that locks are held only for a short time.
+   *
+   * @return a single row with the number of deleted runs, the number of deleted items and the
+   *     size in bytes of all deleted rows.
+   */
+  @Transactional
+  @Query(value = "WITH batch AS ("
+      + "    SELECT id"
+      + "      FROM pcmtintegration.integration_runs"
+      + "      WHERE startDate < :startDate"
+      + "      ORDER BY startDate"
+      + "      LIMIT :batchSize"
+      + "  ), deleted_items AS ("
+      + "    DELETE FROM pcmtintegration.integration_run_items i"
+      + "      USING batch b"
+      + "      WHERE i.runId = b.id"
+      + "      RETURNING pg_column_size(i.*) AS size"
+      + "  ), deleted AS ("
+      + "    DELETE FROM pcmtintegration.integration_runs r"
+      + "      USING batch b"
+      + "      WHERE r.id = b.id"
+      + "      RETURNING pg_column_size(r.*) AS size"
+      + "  )"
+      + "  SELECT"
+      + "    (SELECT COUNT(*) FROM deleted),"
+      + "    (SELECT COUNT(*) FROM deleted_items),"
+      + "    (SELECT COALESCE(SUM(size), 0) FROM deleted)"
+      + "      + (SELECT COALESCE(SUM(size), 0) FROM deleted_items)",
+      nativeQuery = true)
+  List<Object[]> deleteStartedBefore(@Param("startDate") ZonedDateTime startDate,
+      @Param("batchSize") int batchSize);
+
+}
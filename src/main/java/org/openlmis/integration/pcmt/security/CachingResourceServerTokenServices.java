@@ -0,0 +1,76 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.integration.pcmt.security;
+
+import java.time.Clock;
+import java.time.Duration;
+import org.openlmis.integration.pcmt.util.ExpiringCache;
+import org.openlmis.integration.pcmt.util.HashUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.oauth2.common.OAuth2AccessToken;
+import org.springframework.security.oauth2.provider.OAuth2Authentication;
+import org.springframework.security.oauth2.provider.token.ResourceServerTokenServices;
+
+/**
+ * Token services that cache authentications loaded by the given token services, so that the auth
+ * service is not asked to check the same token on every request. Authentications are cached by
+ * the token hash until the token expires, but not longer than the given time to live. Invalid
+ * tokens are not cached.
+ */
+public class CachingResourceServerTokenServices implements ResourceServerTokenServices {
+
+  private static final Logger LOGGER =
+      LoggerFactory.getLogger(CachingResourceServerTokenServices.class);
+
+  private final ResourceServerTokenServices delegate;
+  private final ExpiringCache<String, OAuth2Authentication> authentications;
+
+  /**
+   * Creates new instance that caches authentications loaded by the given token services.
+   */
+  public CachingResourceServerTokenServices(ResourceServerTokenServices delegate, Clock clock,
+      Duration timeToLive, int maxSize) {
+    this.delegate = delegate;
+    this.authentications = new ExpiringCache<>(clock, timeToLive, maxSize);
+  }
+
+  @Override
+  public OAuth2Authentication loadAuthentication(String accessToken) {
+    OAuth2Authentication authentication = authentications.get(HashUtils.sha256Hex(accessToken),
+        key -> load(accessToken), ExpiringAccessTokenConverter::getExpiration);
+
+    // the authentication manager sets request details on the returned object, so each request
+    // gets its own copy of the cached authentication
+    return new OAuth2Authentication(authentication.getOAuth2Request(),
+        authentication.getUserAuthentication());
+  }
+
+  @Override
+  public OAuth2AccessToken readAccessToken(String accessToken) {
+    return delegate.readAccessToken(accessToken);
+  }
+
+  private OAuth2Authentication load(String accessToken) {
+    OAuth2Authentication authentication = delegate.loadAuthentication(accessToken);
+
+    LOGGER.debug("Checked access token in the auth service (cache hits: {}, misses: {})",
+        authentications.getHitCount(), authentications.getMissCount());
+
+    return authentication;
+  }
+
+}
@@ -0,0 +1,62 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.integration.pcmt.security;
+
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import org.springframework.security.oauth2.provider.OAuth2Authentication;
+import org.springframework.security.oauth2.provider.OAuth2Request;
+import org.springframework.security.oauth2.provider.token.DefaultAccessTokenConverter;
+
+/**
+ * Access token converter that keeps the expiration time of the checked token in the extensions
+ * of the OAuth2 request, so that the authentication can be cached until the token expires.
+ */
+public class ExpiringAccessTokenConverter extends DefaultAccessTokenConverter {
+
+  /**
+   * Returns the expiration time of the token of the given authentication, or null if it is not
+   * known.
+   */
+  public static Instant getExpiration(OAuth2Authentication authentication) {
+    Serializable exp = authentication.getOAuth2Request().getExtensions().get(EXP);
+    return exp instanceof Number ? Instant.ofEpochSecond(((Number) exp).longValue()) : null;
+  }
+
+  @Override
+  public OAuth2Authentication extractAuthentication(Map<String, ?> map) {
+    OAuth2Authentication authentication = super.extractAuthentication(map);
+    Object exp = map.get(EXP);
+
+    if (!(exp instanceof Number)) {
+      return authentication;
+    }
+
+    OAuth2Request request = authentication.getOAuth2Request();
+    Map<String, Serializable> extensions = new HashMap<>(request.getExtensions());
+    extensions.put(EXP, ((Number) exp).longValue());
+
+    OAuth2Request withExpiration = new OAuth2Request(request.getRequestParameters(),
+        request.getClientId(), request.getAuthorities(), request.isApproved(),
+        request.getScope(), request.getResourceIds(), request.getRedirectUri(),
+        request.getResponseTypes(), extensions);
+
+    return new OAuth2Authentication(withExpiration, authentication.getUserAuthentication());
+  }
+
+}
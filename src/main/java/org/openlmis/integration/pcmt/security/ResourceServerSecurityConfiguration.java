@@ -16,6 +16,8 @@
 package org.openlmis.integration.pcmt.security;
 
 import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
 import java.util.Arrays;
 import javax.servlet.FilterChain;
 import javax.servlet.ServletException;
@@ -37,6 +39,7 @@ import org.springframework.security.oauth2.provider.authentication.TokenExtracto
 import org.springframework.security.oauth2.provider.token.AccessTokenConverter;
 import org.springframework.security.oauth2.provider.token.DefaultAccessTokenConverter;
 import org.springframework.security.oauth2.provider.token.RemoteTokenServices;
+import org.springframework.security.oauth2.provider.token.ResourceServerTokenServices;
 import org.springframework.security.web.authentication.preauth.AbstractPreAuthenticatedProcessingFilter;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
@@ -98,31 +101,38 @@ public class ResourceServerSecurityConfiguration implements ResourceServerConfig
    */
   @Bean
   public AccessTokenConverter accessTokenConverter() {
-    DefaultAccessTokenConverter defaultAccessTokenConverter = new DefaultAccessTokenConverter();
+    DefaultAccessTokenConverter defaultAccessTokenConverter = new ExpiringAccessTokenConverter();
     defaultAccessTokenConverter.setUserTokenConverter(new CustomUserAuthenticationConverter());
     return defaultAccessTokenConverter;
   }
 
   /**
-   * RemoteTokenServices bean initializer.
+   * Token services bean initializer. Tokens are checked against the auth service and the results
+   * are cached until the token expires, but not longer than the configured time.
    *
    * @param checkTokenUrl url to check tokens against
    * @param clientId      client's id
    * @param clientSecret  client's secret
+   * @param ttlSeconds    the longest time for which a checked token is cached
+   * @param maxSize       how many checked tokens can be cached
    * @return token services
    */
   @Bean
   @Autowired
-  public RemoteTokenServices remoteTokenServices(
+  public ResourceServerTokenServices remoteTokenServices(
       @Value("${auth.server.olmisUrl}") String checkTokenUrl,
       @Value("${auth.server.olmisClientId}") String clientId,
-      @Value("${auth.server.olmisClientSecret}") String clientSecret) {
+      @Value("${auth.server.olmisClientSecret}") String clientSecret,
+      @Value("${auth.tokenCache.ttlSeconds}") long ttlSeconds,
+      @Value("${auth.tokenCache.maxSize}") int maxSize,
+      Clock clock) {
     final RemoteTokenServices remoteTokenServices = new RemoteTokenServices();
     remoteTokenServices.setCheckTokenEndpointUrl(checkTokenUrl);
     remoteTokenServices.setClientId(clientId);
     remoteTokenServices.setClientSecret(clientSecret);
     remoteTokenServices.setAccessTokenConverter(accessTokenConverter());
-    return remoteTokenServices;
+    return new CachingResourceServerTokenServices(remoteTokenServices, clock,
+        Duration.ofSeconds(ttlSeconds), maxSize);
   }
 
   /**
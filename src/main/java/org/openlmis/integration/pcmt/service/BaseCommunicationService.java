@@ -21,10 +21,10 @@ import static org.openlmis.integration.pcmt.service.RequestHelper.splitRequest;
 import com.google.common.collect.Lists;
 import java.lang.reflect.Array;
 import java.net.URI;
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.UUID;
+import java.util.function.Function;
 import lombok.Setter;
 import org.openlmis.integration.pcmt.service.auth.AuthService;
 import org.slf4j.Logger;
@@ -48,6 +48,10 @@ public abstract class BaseCommunicationService<T> {
   @Autowired
   private AuthService authService;
 
+  @Setter
+  @Autowired
+  private SplitRequestExecutor splitRequestExecutor;
+
   @Value("${request.maxUrlLength}")
   protected int maxUrlLength;
 
@@ -74,9 +78,9 @@ public abstract class BaseCommunicationService<T> {
     String url = getServiceUrl() + getUrl() + id.toString();
 
     try {
-      ResponseEntity<T> responseEntity = restTemplate.exchange(
-          createUri(url, parameters), HttpMethod.GET, createEntity(),
-          getResultClass());
+      ResponseEntity<T> responseEntity = exchangeWithAuth(entity -> restTemplate.exchange(
+          createUri(url, parameters), HttpMethod.GET, entity,
+          getResultClass()));
       return responseEntity.getBody();
     } catch (HttpStatusCodeException ex) {
       // rest template will handle 404 as an exception, instead of returning null
@@ -96,9 +100,9 @@ public abstract class BaseCommunicationService<T> {
   protected <P> P get(Class<P> type, String resourceUrl, RequestParameters parameters) {
     String url = getServiceUrl() + getUrl() + resourceUrl;
 
-    HttpEntity<Object> entity = createEntity();
     URI uri = createUri(url, parameters);
-    ResponseEntity<P> response = restTemplate.exchange(uri, HttpMethod.GET, entity, type);
+    ResponseEntity<P> response = exchangeWithAuth(entity ->
+        restTemplate.exchange(uri, HttpMethod.GET, entity, type));
 
     return response.getBody();
   }
@@ -140,13 +144,10 @@ public abstract class BaseCommunicationService<T> {
 
   private  <E> ResponseEntity<E[]> doListRequest(String url, RequestParameters parameters,
       Class<E[]> type) {
-    HttpEntity<Object> entity = RequestHelper
-        .createEntity(RequestHeaders.init().setAuth(authService.obtainAccessToken()));
-    List<E[]> arrays = new ArrayList<>();
-
-    for (URI uri : splitRequest(url, parameters, maxUrlLength)) {
-      arrays.add(restTemplate.exchange(uri, HttpMethod.GET, entity, type).getBody());
-    }
+    List<E[]> arrays = splitRequestExecutor.executeAll(
+        splitRequest(url, parameters, maxUrlLength),
+        uri -> exchangeWithAuth(entity ->
+            restTemplate.exchange(uri, HttpMethod.GET, entity, type)).getBody());
 
     E[] body = Merger
         .ofArrays(arrays)
@@ -158,14 +159,12 @@ public abstract class BaseCommunicationService<T> {
 
   private <E> ResponseEntity<PageDto<E>> doPageRequest(String url, RequestParameters parameters,
       Class<E> type) {
-    HttpEntity<Object> entity = createEntity();
     ParameterizedTypeReference<PageDto<E>> parameterizedType =
         new DynamicPageTypeReference<>(type);
-    List<PageDto<E>> pages = new ArrayList<>();
-
-    for (URI uri : splitRequest(url, parameters, maxUrlLength)) {
-      pages.add(restTemplate.exchange(uri, HttpMethod.GET, entity, parameterizedType).getBody());
-    }
+    List<PageDto<E>> pages = splitRequestExecutor.executeAll(
+        splitRequest(url, parameters, maxUrlLength),
+        uri -> exchangeWithAuth(entity ->
+            restTemplate.exchange(uri, HttpMethod.GET, entity, parameterizedType)).getBody());
 
     PageDto<E> body = Merger
         .ofPages(pages)
@@ -179,12 +178,28 @@ public abstract class BaseCommunicationService<T> {
     return new DataRetrievalException(getResultClass().getSimpleName(), ex);
   }
 
-  private <E> HttpEntity<E> createEntity() {
-    return RequestHelper.createEntity(createHeadersWithAuth());
+  /**
+   * Executes the given request with the cached access token. If OpenLMIS rejects the token, it is
+   * removed from the cache and the request is retried once with a new one.
+   */
+  private <R> R exchangeWithAuth(Function<HttpEntity<Object>, R> exchange) {
+    String token = authService.obtainAccessToken();
+
+    try {
+      return exchange.apply(createEntity(token));
+    } catch (HttpStatusCodeException ex) {
+      if (HttpStatus.UNAUTHORIZED != ex.getStatusCode()) {
+        throw ex;
+      }
+
+      logger.warn("OpenLMIS rejected the access token, the request will be retried");
+      authService.invalidateAccessToken(token);
+      return exchange.apply(createEntity(authService.obtainAccessToken()));
+    }
   }
 
-  protected RequestHeaders createHeadersWithAuth() {
-    return RequestHeaders.init().setAuth(authService.obtainAccessToken());
+  private <E> HttpEntity<E> createEntity(String token) {
+    return RequestHelper.createEntity(RequestHeaders.init().setAuth(token));
   }
 
 }
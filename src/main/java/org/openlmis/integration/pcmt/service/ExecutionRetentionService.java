@@ -0,0 +1,172 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.integration.pcmt.service;
+
+import java.time.Clock;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+import org.openlmis.integration.pcmt.repository.ExecutionRepository;
+import org.openlmis.integration.pcmt.repository.IntegrationRunRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Purges the execution history (executions with responses and integration runs with items) that
+ * is older than the configured number of whole months. Rows are deleted oldest first in small
+ * batches, each in its own transaction, so that the tables are never locked for long and
+ * autovacuum can reuse the freed space.
+ */
+@Service
+public class ExecutionRetentionService {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ExecutionRetentionService.class);
+
+  @Value("${pcmt.executionRetention.months:0}")
+  private int retentionMonths;
+
+  @Value("${pcmt.executionRetention.batchSize:1000}")
+  private int batchSize;
+
+  @Autowired
+  private ExecutionRepository executionRepository;
+
+  @Autowired
+  private IntegrationRunRepository integrationRunRepository;
+
+  @Autowired
+  private Clock clock;
+
+  private final AtomicLong purgedRows = new AtomicLong();
+  private final AtomicLong reclaimedBytes = new AtomicLong();
+  private volatile ZonedDateTime lastPurgeDate;
+
+  @Scheduled(cron = "${pcmt.executionRetention.cron}", zone = "${time.zoneId}")
+  public void purgeOnSchedule() {
+    purge();
+  }
+
+  /**
+   * Deletes the history that started before the first day of the month that is the configured
+   * number of months ago. Nothing is deleted if the retention is not positive.
+   */
+  public PurgeResult purge() {
+    if (retentionMonths <= 0) {
+      LOGGER.debug("Execution retention is disabled, nothing will be purged");
+      return new PurgeResult(0, 0);
+    }
+
+    ZonedDateTime startDate = getRetentionStartDate();
+    LOGGER.info("Purging execution history started before {}", startDate);
+
+    PurgeResult executions = purgeInBatches(size -> executionRepository
+        .deleteStartedBefore(startDate, size));
+    PurgeResult runs = purgeInBatches(size -> integrationRunRepository
+        .deleteStartedBefore(startDate, size));
+    PurgeResult result = executions.plus(runs);
+
+    purgedRows.addAndGet(result.getRows());
+    reclaimedBytes.addAndGet(result.getBytes());
+    lastPurgeDate = ZonedDateTime.now(clock);
+
+    LOGGER.info("Purged execution history started before {}: {} execution rows, {} run rows, "
+            + "{} bytes reclaimed ({} rows and {} bytes since the service started)",
+        startDate, executions.getRows(), runs.getRows(), result.getBytes(),
+        purgedRows.get(), reclaimedBytes.get());
+
+    return result;
+  }
+
+  /**
+   * Exports the retention settings and the numbers of rows and bytes purged since the service
+   * started.
+   */
+  public void export(Exporter exporter) {
+    exporter.setRetentionMonths(retentionMonths);
+    exporter.setPurgedRows(purgedRows.get());
+    exporter.setReclaimedBytes(reclaimedBytes.get());
+
+    if (retentionMonths > 0) {
+      exporter.setRetentionStartDate(getRetentionStartDate());
+    }
+
+    if (null != lastPurgeDate) {
+      exporter.setLastPurgeDate(lastPurgeDate);
+    }
+  }
+
+  ZonedDateTime getRetentionStartDate() {
+    return ZonedDateTime
+        .now(clock)
+        .truncatedTo(ChronoUnit.DAYS)
+        .withDayOfMonth(1)
+        .minusMonths(retentionMonths);
+  }
+
+  private PurgeResult purgeInBatches(IntFunction<List<Object[]>> deleteBatch) {
+    PurgeResult result = new PurgeResult(0, 0);
+    long deleted;
+
+    do {
+      // a single row: deleted parent rows, deleted child rows, deleted bytes
+      Object[] batch = deleteBatch.apply(batchSize).get(0);
+      deleted = ((Number) batch[0]).longValue();
+
+      result = result.plus(new PurgeResult(
+          deleted + ((Number) batch[1]).longValue(), ((Number) batch[2]).longValue()));
+    } while (deleted >= batchSize);
+
+    return result;
+  }
+
+  @Getter
+  @ToString
+  @EqualsAndHashCode
+  @AllArgsConstructor
+  public static final class PurgeResult {
+    private final long rows;
+    private final long bytes;
+
+    PurgeResult plus(PurgeResult other) {
+      return new PurgeResult(rows + other.rows, bytes + other.bytes);
+    }
+  }
+
+  public interface Exporter {
+
+    void setRetentionMonths(int retentionMonths);
+
+    void setRetentionStartDate(ZonedDateTime retentionStartDate);
+
+    void setLastPurgeDate(ZonedDateTime lastPurgeDate);
+
+    void setPurgedRows(long purgedRows);
+
+    void setReclaimedBytes(long reclaimedBytes);
+
+  }
+
+}
@@ -17,18 +17,30 @@ package org.openlmis.integration.pcmt.service;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import java.time.Clock;
+import java.time.ZonedDateTime;
+import java.util.List;
 import java.util.UUID;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Collectors;
+import javax.annotation.PostConstruct;
+import org.openlmis.integration.pcmt.domain.Execution;
 import org.openlmis.integration.pcmt.domain.Integration;
+import org.openlmis.integration.pcmt.domain.IntegrationRun;
 import org.openlmis.integration.pcmt.repository.ExecutionRepository;
+import org.openlmis.integration.pcmt.repository.IntegrationRepository;
+import org.openlmis.integration.pcmt.repository.IntegrationRunRepository;
 import org.openlmis.integration.pcmt.service.auth.AuthService;
 import org.openlmis.integration.pcmt.service.fetch.IntegrationFetchExecutor;
 import org.openlmis.integration.pcmt.service.fetch.OrderableIntegrationFetchTask;
+import org.openlmis.integration.pcmt.service.pcmt.PaginationType;
 import org.openlmis.integration.pcmt.service.pcmt.PcmtDataService;
 import org.openlmis.integration.pcmt.service.referencedata.orderable.OrderableDto;
+import org.openlmis.integration.pcmt.service.referencedata.orderable.OrderableReferenceDataService;
+import org.openlmis.integration.pcmt.service.send.ExecutionRecorder;
 import org.openlmis.integration.pcmt.service.send.IntegrationSendExecutor;
 import org.openlmis.integration.pcmt.service.send.IntegrationSendTask;
+import org.openlmis.integration.pcmt.service.send.OrderableIndexMode;
 import org.openlmis.integration.pcmt.service.send.OrderableIntegrationSendTask;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -45,15 +57,42 @@ public class IntegrationExecutionService {
   @Value("${referencedata.url}")
   private String targetUrl;
 
+  @Value("${pcmt.fetch.concurrentRequests}")
+  private int fetchConcurrentRequests;
+
+  @Value("${pcmt.queue.capacity}")
+  private int queueCapacity;
+
+  @Value("${pcmt.send.concurrentRequests}")
+  private int sendConcurrentRequests;
+
+  @Value("${pcmt.send.lookupBatchSize}")
+  private int sendLookupBatchSize;
+
+  @Value("${pcmt.send.orderableIndex.mode}")
+  private OrderableIndexMode orderableIndexMode;
+
+  @Value("${pcmt.send.orderableIndex.pageSize}")
+  private int orderableIndexPageSize;
+
   @Autowired
   private Clock clock;
 
   @Autowired
   private ObjectMapper objectMapper;
 
+  @Autowired
+  private ExecutionRecorder executionRecorder;
+
   @Autowired
   private ExecutionRepository executionRepository;
 
+  @Autowired
+  private IntegrationRepository integrationRepository;
+
+  @Autowired
+  private IntegrationRunRepository integrationRunRepository;
+
   @Autowired
   private IntegrationSendExecutor integrationSendExecutor;
 
@@ -72,16 +111,57 @@ public class IntegrationExecutionService {
   @Autowired
   private RestOperations restTemplate;
 
-  private final BlockingQueue<OrderableDto> queue = new LinkedBlockingDeque<>();
+  @Autowired
+  private OrderableFingerprintService orderableFingerprintService;
+
+  @Autowired
+  private OrderableReferenceDataService orderableReferenceDataService;
+
+  private final ConcurrentMap<IntegrationPipeline<OrderableDto>,
+      IntegrationSendTask<OrderableDto>> activeRuns = new ConcurrentHashMap<>();
+
+  /**
+   * Warns about settings that cannot be used together, so they are not silently ignored.
+   */
+  @PostConstruct
+  public void checkConfiguration() {
+    if (PaginationType.SEARCH_AFTER == pcmtDataService.getPaginationType()
+        && fetchConcurrentRequests > 1) {
+      LOGGER.warn("PCMT pages are downloaded one after another with the {} pagination, "
+          + "pcmt.fetch.concurrentRequests={} is ignored; use the {} pagination to download "
+          + "pages concurrently", PaginationType.SEARCH_AFTER, fetchConcurrentRequests,
+          PaginationType.PAGE);
+    }
+  }
 
   /**
-   * Integrates the PCMT with the OpenLMIS system. Designed for scheduled executions.
+   * Returns how many integration runs have not finished yet.
+   */
+  public int getActiveRunCount() {
+    return activeRuns.size();
+  }
+
+  /**
+   * Returns send tasks of active runs which are already sending products to OpenLMIS. Tasks
+   * waiting for a free thread are available in {@link IntegrationSendExecutor#getQueueItems()}.
+   */
+  public List<IntegrationSendTask<OrderableDto>> getRunningSendTasks() {
+    return activeRuns
+        .values()
+        .stream()
+        .filter(IntegrationSendTask::isRunning)
+        .collect(Collectors.toList());
+  }
+
+  /**
+   * Integrates the PCMT with the OpenLMIS system. Designed for scheduled executions. Only products
+   * updated since the last run of the integration are sent.
    *
    * @param integration configuration
    */
   public void integrate(Integration integration) {
     LOGGER.info("Scheduled Integration {} was started by a scheduler", integration.getId());
-    integrate(null, integration, false);
+    integrate(null, integration, false, false);
   }
 
   /**
@@ -89,25 +169,97 @@ public class IntegrationExecutionService {
    *
    * @param userId of a user who started integration manually
    * @param integration configuration
+   * @param fullSync if true all products are sent, otherwise only products updated since the last
+   *                 run of the integration.
    */
-  public void integrate(UUID userId, Integration integration) {
+  public void integrate(UUID userId, Integration integration, boolean fullSync) {
     LOGGER.info("Manual integration with id: {} was started by a user with id: {}",
         integration.getId(), userId);
-    integrate(userId, integration, true);
+    integrate(userId, integration, true, fullSync);
   }
 
-  private void integrate(UUID userId, Integration integration, boolean manualExecution) {
+  private void integrate(UUID userId, Integration integration, boolean manualExecution,
+      boolean fullSync) {
+    // the scheduler keeps integrations in memory so the date is always retrieved from database
+    ZonedDateTime updatedSince = fullSync
+        ? null
+        : integrationRepository.findLastSyncDate(integration.getId());
+
+    IntegrationRun run = integrationRunRepository.save(manualExecution
+        ? IntegrationRun.forManualExecution(integration, userId, null == updatedSince, clock)
+        : IntegrationRun.forAutomaticExecution(integration, null == updatedSince, clock));
+
+    // the run is shown in the execution history as a single execution unless an execution is
+    // recorded for every product
+    Execution execution = executionRecorder.isExecutionPerProduct()
+        ? null
+        : executionRepository.save(initExecution(userId, integration, manualExecution, run));
+
+    IntegrationPipeline<OrderableDto> pipeline = new IntegrationPipeline<>(queueCapacity);
 
     OrderableIntegrationFetchTask producer = new OrderableIntegrationFetchTask(pcmtDataService,
-        pcmtLongBuilder, queue, clock);
+        pcmtLongBuilder, orderableFingerprintService, pipeline, integration, run,
+        integrationRepository, updatedSince, clock, fetchConcurrentRequests);
 
     IntegrationSendTask<OrderableDto> consumer = new OrderableIntegrationSendTask(
-        queue, integration, userId, targetUrl, manualExecution,
-        executionRepository, clock, objectMapper, authService, restTemplate);
+        pipeline, integration, run, userId, targetUrl, manualExecution,
+        executionRecorder, clock, objectMapper, authService, restTemplate,
+        orderableFingerprintService, sendConcurrentRequests, orderableReferenceDataService,
+        sendLookupBatchSize, orderableIndexMode.isEnabled(null == updatedSince)
+            ? orderableIndexPageSize
+            : 0);
+
+    activeRuns.put(pipeline, consumer);
+    pipeline.getCompletion().whenComplete((result, error) -> {
+      activeRuns.remove(pipeline);
+      finishRun(run, execution, null == error);
+      if (null == error) {
+        LOGGER.info("Integration {} run has finished", integration.getId());
+      } else {
+        LOGGER.warn("Integration {} run has failed", integration.getId(), error);
+      }
+    });
+
+    LOGGER.info("Integration {} was started by a user with id: {} ({} runs in progress)",
+        integration.getId(), userId, getActiveRunCount());
+
+    try {
+      integrationFetchExecutor.execute(producer);
+    } catch (RuntimeException exp) {
+      pipeline.fail(exp);
+      throw exp;
+    }
+
+    try {
+      integrationSendExecutor.execute(consumer);
+    } catch (RuntimeException exp) {
+      // the fetch task stops when it sees that nothing is taking products from the pipeline
+      pipeline.fail(exp);
+      throw exp;
+    }
+  }
+
+  private Execution initExecution(UUID userId, Integration integration, boolean manualExecution,
+      IntegrationRun run) {
+    Execution execution = manualExecution
+        ? Execution.forManualExecution(integration, userId, clock)
+        : Execution.forAutomaticExecution(integration, clock);
+    execution.setRun(run);
+
+    return execution;
+  }
 
-    LOGGER.info("Integration {} was started by a user with id: {}", integration.getId(), userId);
+  private void finishRun(IntegrationRun run, Execution execution, boolean completed) {
+    try {
+      run.finish(completed, clock);
+      integrationRunRepository.save(run);
 
-    integrationFetchExecutor.execute(producer);
-    integrationSendExecutor.execute(consumer);
+      if (null != execution) {
+        execution.markAsDone(run, clock);
+        executionRepository.save(execution);
+      }
+    } catch (RuntimeException exp) {
+      LOGGER.error("Could not save results of the integration run {}", run.getId(), exp);
+    }
   }
 }
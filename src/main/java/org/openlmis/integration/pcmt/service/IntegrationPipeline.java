@@ -0,0 +1,171 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.integration.pcmt.service;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Connects the fetch task and the send task of a single integration run. The fetch task adds
+ * entities and marks the end of the stream when there is nothing more to fetch. The send task
+ * takes entities until the stream ends and then completes the pipeline, so both tasks release
+ * their threads when the run is over.
+ */
+public class IntegrationPipeline<T> {
+
+  private static final long POLL_TIMEOUT_MILLIS = 500;
+
+  private final int capacity;
+  private final BlockingQueue<T> queue;
+  private final CompletableFuture<Void> completion = new CompletableFuture<>();
+  private volatile boolean endOfStream;
+  private volatile long producerWaitNanos;
+
+  public IntegrationPipeline(int capacity) {
+    this.capacity = capacity;
+    this.queue = new LinkedBlockingQueue<>(capacity);
+  }
+
+  /**
+   * Adds the entity to the pipeline. If the queue is full, waits until the send task takes some
+   * entities from it, so fetched entities do not pile up in memory when the target system is
+   * slower than the source.
+   *
+   * @return false if the pipeline has been completed (for example the send task has failed) and
+   *         the entity will never be taken.
+   */
+  public boolean put(T entity) throws InterruptedException {
+    if (queue.offer(entity)) {
+      return true;
+    }
+
+    long waitStart = System.nanoTime();
+    try {
+      while (!queue.offer(entity, POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+        if (completion.isDone()) {
+          return false;
+        }
+      }
+      return true;
+    } finally {
+      producerWaitNanos += System.nanoTime() - waitStart;
+    }
+  }
+
+  /**
+   * Adds the entity to the pipeline, waiting at most the given time for free space in the queue.
+   *
+   * @return false if there was no free space in time or the pipeline has been completed.
+   */
+  public boolean offer(T entity, long timeout, TimeUnit unit) throws InterruptedException {
+    if (queue.offer(entity)) {
+      return true;
+    }
+
+    long waitStart = System.nanoTime();
+    try {
+      return !completion.isDone() && queue.offer(entity, timeout, unit);
+    } finally {
+      producerWaitNanos += System.nanoTime() - waitStart;
+    }
+  }
+
+  /**
+   * Marks that no more entities will be added to the pipeline.
+   */
+  public void endOfStream() {
+    endOfStream = true;
+  }
+
+  /**
+   * Takes the next entity from the pipeline, waiting if necessary until one is available.
+   *
+   * @return the next entity or null if the stream has ended and all entities have been taken.
+   */
+  public T take() throws InterruptedException {
+    while (true) {
+      // the flag has to be read before the queue is checked for the last time
+      boolean ended = endOfStream;
+      T entity = queue.poll(ended ? 0 : POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+
+      if (null != entity || ended) {
+        return entity;
+      }
+    }
+  }
+
+  /**
+   * Moves entities that are already waiting in the pipeline to the given collection without
+   * waiting for new ones.
+   *
+   * @return how many entities have been moved.
+   */
+  public int drainTo(Collection<? super T> entities, int maxEntities) {
+    return queue.drainTo(entities, maxEntities);
+  }
+
+  /**
+   * Marks the run as finished. Should be called by the send task after the last entity has been
+   * sent.
+   */
+  public void complete() {
+    completion.complete(null);
+  }
+
+  /**
+   * Marks the run as failed, for example when the send task has been interrupted.
+   */
+  public void fail(Throwable cause) {
+    completion.completeExceptionally(cause);
+  }
+
+  /**
+   * Returns the future that is completed when the send task has taken and sent all entities.
+   */
+  public CompletableFuture<Void> getCompletion() {
+    return completion;
+  }
+
+  public boolean isEndOfStream() {
+    return endOfStream;
+  }
+
+  /**
+   * Returns how many entities are waiting for the send task.
+   */
+  public int size() {
+    return queue.size();
+  }
+
+  /**
+   * Returns how many entities can wait for the send task before the fetch task has to wait.
+   */
+  public int getCapacity() {
+    return capacity;
+  }
+
+  /**
+   * Returns how long the fetch task has been waiting for free space in the queue.
+   */
+  public Duration getProducerWaitTime() {
+    return Duration.ofNanos(producerWaitNanos);
+  }
+
+}
@@ -0,0 +1,89 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.integration.pcmt.service;
+
+import java.time.Clock;
+import java.time.ZonedDateTime;
+import java.util.Objects;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.openlmis.integration.pcmt.domain.OrderableFingerprint;
+import org.openlmis.integration.pcmt.repository.OrderableFingerprintRepository;
+import org.openlmis.integration.pcmt.service.referencedata.orderable.DispensableDto;
+import org.openlmis.integration.pcmt.service.referencedata.orderable.OrderableDto;
+import org.openlmis.integration.pcmt.util.HashUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+@Service
+public class OrderableFingerprintService {
+
+  private static final String SEPARATOR = "\u001f";
+
+  @Autowired
+  private OrderableFingerprintRepository orderableFingerprintRepository;
+
+  @Autowired
+  private Clock clock;
+
+  /**
+   * Checks if the given orderable is the same as the one that was last sent to OpenLMIS.
+   * Orderables without id are never treated as unchanged.
+   */
+  public boolean isUnchanged(OrderableDto orderable) {
+    if (null == orderable.getId()) {
+      return false;
+    }
+
+    String fingerprint = orderableFingerprintRepository.findFingerprint(orderable.getId());
+    return computeFingerprint(orderable).equals(fingerprint);
+  }
+
+  /**
+   * Stores the fingerprint of the given orderable. Should be called after the orderable has been
+   * successfully sent to OpenLMIS.
+   */
+  public void saveFingerprint(OrderableDto orderable) {
+    if (null == orderable.getId()) {
+      return;
+    }
+
+    orderableFingerprintRepository.save(new OrderableFingerprint(orderable.getId(),
+        computeFingerprint(orderable), ZonedDateTime.now(clock)));
+  }
+
+  /**
+   * Computes SHA-256 hash of the fields mapped from PCMT by {@link OrderableBuilder}. Programs are
+   * not a part of the fingerprint because they are merged with the ones stored in OpenLMIS.
+   */
+  String computeFingerprint(OrderableDto orderable) {
+    DispensableDto dispensable = null == orderable.getDispensable()
+        ? new DispensableDto()
+        : orderable.getDispensable();
+
+    String values = Stream
+        .of(orderable.getId(), orderable.getProductCode(), orderable.getFullProductName(),
+            orderable.getDescription(), orderable.getNetContent(),
+            orderable.getPackRoundingThreshold(), orderable.getRoundToZero(),
+            dispensable.getDispensingUnit(), dispensable.getSizeCode(),
+            dispensable.getRouteOfAdministration(), dispensable.getDisplayUnit())
+        .map(Objects::toString)
+        .collect(Collectors.joining(SEPARATOR));
+
+    return HashUtils.sha256Hex(values);
+  }
+
+}
@@ -18,8 +18,9 @@ package org.openlmis.integration.pcmt.service;
 import java.io.UnsupportedEncodingException;
 import java.net.URI;
 import java.nio.charset.StandardCharsets;
-import java.util.Arrays;
-import java.util.stream.Stream;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.commons.lang3.ArrayUtils;
 import org.apache.commons.lang3.tuple.Pair;
 import org.springframework.http.HttpEntity;
 import org.springframework.web.util.UriComponentsBuilder;
@@ -27,6 +28,8 @@ import org.springframework.web.util.UriUtils;
 
 public final class RequestHelper {
 
+  private static final String UNRESERVED = "-._~";
+
   private RequestHelper() {
     throw new UnsupportedOperationException();
   }
@@ -40,15 +43,8 @@ public final class RequestHelper {
     RequestParameters
         .init()
         .setAll(parameters)
-        .forEach(e -> e.getValue().forEach(one -> {
-          try {
-            builder.queryParam(e.getKey(),
-                UriUtils.encodeQueryParam(String.valueOf(one),
-                    StandardCharsets.UTF_8.name()));
-          } catch (UnsupportedEncodingException ex) {
-            throw new EncodingException(ex);
-          }
-        }));
+        .forEach(e -> e.getValue().forEach(one ->
+            builder.queryParam(e.getKey(), encodeQueryParam(String.valueOf(one)))));
 
     return builder.build(true).toUri();
   }
@@ -65,27 +61,121 @@ public final class RequestHelper {
   }
 
   /**
-   * Split the given {@link RequestParameters} into smaller chunks.
+   * Split the given {@link RequestParameters} into smaller chunks. Values of the parameter with
+   * the most values are encoded once and packed in order into as few URIs as possible without
+   * exceeding the max url length. Other parameters are added to every URI. If they are too long
+   * to leave room for any value, the parameter with the most values is halved and both halves are
+   * split again. A value that does not fit on its own is sent in a separate URI that is longer
+   * than the limit.
    */
   public static URI[] splitRequest(String url, RequestParameters queryParams, int maxUrlLength) {
     RequestParameters safeQueryParams = RequestParameters.init().setAll(queryParams);
-    URI uri = createUri(url, safeQueryParams);
+    Pair<String, List<String>> largest = safeQueryParams.removeLargest();
+
+    if (null == largest) {
+      return new URI[]{createUri(url, safeQueryParams)};
+    }
+
+    URI base = createUri(url, safeQueryParams);
+    int baseLength = base.toString().length();
+    // each value adds a separator (? or &), the parameter name and =
+    int valueOverhead = largest.getLeft().length() + 2;
+
+    // every value is encoded once and the chunks are built from ranges of the encoded values
+    String[] encoded = new String[largest.getRight().size()];
+    int length = baseLength;
+    int shortest = Integer.MAX_VALUE;
+    int index = 0;
+
+    for (String value : largest.getRight()) {
+      encoded[index] = encodeQueryParam(value);
+      shortest = Math.min(shortest, encoded[index].length());
+      length += valueOverhead + encoded[index++].length();
+    }
+
+    if (length <= maxUrlLength) {
+      return new URI[]{createUri(url, queryParams)};
+    }
+
+    if (baseLength + valueOverhead + shortest > maxUrlLength) {
+      return splitInHalf(url, safeQueryParams, largest, maxUrlLength);
+    }
+
+    List<URI> chunks = new ArrayList<>();
+    int from = 0;
+    length = baseLength;
+
+    for (int i = 0; i < encoded.length; ++i) {
+      int valueLength = valueOverhead + encoded[i].length();
+
+      if (i > from && length + valueLength > maxUrlLength) {
+        chunks.add(createChunk(base, largest.getLeft(), encoded, from, i));
+        from = i;
+        length = baseLength;
+      }
+
+      length += valueLength;
+    }
+
+    chunks.add(createChunk(base, largest.getLeft(), encoded, from, encoded.length));
 
-    if (uri.toString().length() > maxUrlLength) {
-      Pair<RequestParameters, RequestParameters> split = safeQueryParams.split();
+    return chunks.toArray(new URI[0]);
+  }
+
+  private static URI[] splitInHalf(String url, RequestParameters queryParams,
+      Pair<String, List<String>> largest, int maxUrlLength) {
+    List<String> values = largest.getRight();
+    int middle = (values.size() + 1) / 2;
+
+    RequestParameters left = RequestParameters
+        .init()
+        .setAll(queryParams)
+        .set(largest.getLeft(), values.subList(0, middle));
+    RequestParameters right = RequestParameters
+        .init()
+        .setAll(queryParams)
+        .set(largest.getLeft(), values.subList(middle, values.size()));
+
+    return ArrayUtils.addAll(
+        splitRequest(url, left, maxUrlLength), splitRequest(url, right, maxUrlLength));
+  }
+
+  private static URI createChunk(URI base, String name, String[] encoded, int from, int to) {
+    StringBuilder uri = new StringBuilder(base.toString());
+    char separator = null == base.getRawQuery() ? '?' : '&';
+
+    for (int i = from; i < to; ++i) {
+      uri.append(separator).append(name).append('=').append(encoded[i]);
+      separator = '&';
+    }
+
+    return URI.create(uri.toString());
+  }
+
+  private static String encodeQueryParam(String value) {
+    if (isUnreserved(value)) {
+      return value;
+    }
+
+    try {
+      return UriUtils.encodeQueryParam(value, StandardCharsets.UTF_8.name());
+    } catch (UnsupportedEncodingException ex) {
+      throw new EncodingException(ex);
+    }
+  }
 
-      if (null != split.getLeft() && null != split.getRight()) {
-        URI[] left = splitRequest(url, split.getLeft(), maxUrlLength);
-        URI[] right = splitRequest(url, split.getRight(), maxUrlLength);
+  // most values are ids that never need encoding
+  private static boolean isUnreserved(String value) {
+    for (int i = 0; i < value.length(); ++i) {
+      char character = value.charAt(i);
 
-        return Stream
-            .concat(Arrays.stream(left), Arrays.stream(right))
-            .distinct()
-            .toArray(URI[]::new);
+      if (!(character >= 'a' && character <= 'z' || character >= 'A' && character <= 'Z'
+          || character >= '0' && character <= '9' || UNRESERVED.indexOf(character) >= 0)) {
+        return false;
       }
     }
 
-    return new URI[]{uri};
+    return true;
   }
 
 }
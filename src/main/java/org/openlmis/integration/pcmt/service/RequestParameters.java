@@ -20,7 +20,6 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.Set;
 import java.util.function.Consumer;
 import lombok.EqualsAndHashCode;
 import org.apache.commons.lang3.tuple.Pair;
@@ -79,42 +78,25 @@ public final class RequestParameters {
   }
 
   /**
-   * Split this request parameters into two smaller chunks.
+   * Removes the parameter with the most values from this request parameters.
+   *
+   * @return the name and values of the removed parameter or null if no parameter has more than
+   *     one value.
    */
-  Pair<RequestParameters, RequestParameters> split() {
-    if (params.isEmpty()) {
-      return Pair.of(this, null);
-    }
-
-    Set<Map.Entry<String, List<String>>> entries = params.entrySet();
+  Pair<String, List<String>> removeLargest() {
+    Map.Entry<String, List<String>> max = null;
 
-    if (entries.stream().noneMatch(entry -> entry.getValue().size() > 1)) {
-      return Pair.of(this, null);
-    }
-
-    Map.Entry<String, List<String>> max = entries.iterator().next();
-    for (Map.Entry<String, List<String>> entry : entries) {
-      if (entry.getValue().size() > max.getValue().size()) {
+    for (Map.Entry<String, List<String>> entry : params.entrySet()) {
+      if (entry.getValue().size() > 1
+          && (null == max || entry.getValue().size() > max.getValue().size())) {
         max = entry;
       }
     }
 
-    RequestParameters left = init().setAll(this);
-    RequestParameters right = init().setAll(this);
-
-    left.params.remove(max.getKey());
-    right.params.remove(max.getKey());
-
-    List<String> list = max.getValue();
-    int chunkSize = list.size() / 2;
-    int leftOver = list.size() % 2;
-
-    List<String> leftCollection = list.subList(0, chunkSize + leftOver);
-    List<String> rightCollection = list.subList(chunkSize + leftOver, list.size());
-
-    left.set(max.getKey(), leftCollection);
-    right.set(max.getKey(), rightCollection);
+    if (null == max) {
+      return null;
+    }
 
-    return Pair.of(left, right);
+    return Pair.of(max.getKey(), params.remove(max.getKey()));
   }
 }
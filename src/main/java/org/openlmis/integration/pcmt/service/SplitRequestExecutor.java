@@ -0,0 +1,122 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.integration.pcmt.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Sends the chunks of a request split by {@link RequestHelper#splitRequest} concurrently. The
+ * number of chunks in flight is limited by the pool size shared by all reference data services.
+ */
+@Component
+@ConfigurationProperties(prefix = "request.splitExecutor")
+@SuppressWarnings("PMD.PreserveStackTrace")
+public class SplitRequestExecutor extends ThreadPoolTaskExecutor {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(SplitRequestExecutor.class);
+
+  /**
+   * Sends a request for each of the given chunks and returns the responses in the order of the
+   * chunks. A single chunk is sent in the calling thread. If any chunk fails, the remaining ones
+   * are cancelled and its exception is rethrown.
+   *
+   * @param chunks  URIs returned by {@link RequestHelper#splitRequest}.
+   * @param request sends a request for a single chunk.
+   * @return responses in the same order as the chunks.
+   */
+  public <U, R> List<R> executeAll(U[] chunks, Function<U, R> request) {
+    if (chunks.length == 1) {
+      return Arrays.asList(execute(chunks[0], request, 1, 1));
+    }
+
+    CompletionService<Indexed<R>> completionService = new ExecutorCompletionService<>(this);
+    List<Future<Indexed<R>>> futures = new ArrayList<>(chunks.length);
+
+    for (int i = 0; i < chunks.length; ++i) {
+      final int index = i;
+      futures.add(completionService.submit(() ->
+          new Indexed<>(index, execute(chunks[index], request, index + 1, chunks.length))));
+    }
+
+    Object[] responses = new Object[chunks.length];
+
+    try {
+      for (int i = 0; i < chunks.length; ++i) {
+        Indexed<R> response = completionService.take().get();
+        responses[response.index] = response.value;
+      }
+    } catch (InterruptedException exp) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(exp);
+    } catch (ExecutionException exp) {
+      throw propagate(exp.getCause());
+    } finally {
+      futures.forEach(future -> future.cancel(true));
+    }
+
+    @SuppressWarnings("unchecked")
+    List<R> ordered = (List<R>) Arrays.asList(responses);
+    return ordered;
+  }
+
+  private <U, R> R execute(U chunk, Function<U, R> request, int number, int total) {
+    long start = System.nanoTime();
+
+    try {
+      return request.apply(chunk);
+    } finally {
+      LOGGER.debug("Request chunk {} of {} took {} ms",
+          number, total, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+  }
+
+  private RuntimeException propagate(Throwable cause) {
+    if (cause instanceof RuntimeException) {
+      return (RuntimeException) cause;
+    }
+
+    if (cause instanceof Error) {
+      throw (Error) cause;
+    }
+
+    return new IllegalStateException(cause);
+  }
+
+  private static final class Indexed<R> {
+
+    private final int index;
+    private final R value;
+
+    private Indexed(int index, R value) {
+      this.index = index;
+      this.value = value;
+    }
+  }
+
+}
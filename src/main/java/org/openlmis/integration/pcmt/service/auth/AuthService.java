@@ -17,11 +17,20 @@ package org.openlmis.integration.pcmt.service.auth;
 
 import static org.openlmis.integration.pcmt.service.RequestHelper.createUri;
 
+import java.time.Clock;
+import java.time.Instant;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 import lombok.Setter;
 import org.apache.commons.codec.binary.Base64;
 import org.openlmis.integration.pcmt.service.RequestParameters;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.env.Environment;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
@@ -33,7 +42,10 @@ import org.springframework.web.client.RestOperations;
 @Service
 public class AuthService {
 
+  private static final Logger LOGGER = LoggerFactory.getLogger(AuthService.class);
+
   protected static final String ACCESS_TOKEN = "access_token";
+  protected static final String EXPIRES_IN = "expires_in";
 
   @Autowired
   protected Environment env;
@@ -42,6 +54,12 @@ public class AuthService {
   @Autowired
   private RestOperations restTemplate;
 
+  @Autowired
+  private Clock clock;
+
+  @Value("${auth.server.olmisTokenRefreshMargin}")
+  private long refreshMargin;
+
   private String clientId;
 
   private String clientSecret;
@@ -54,18 +72,55 @@ public class AuthService {
 
   private RequestParameters params;
 
+  private final ConcurrentMap<String, CachedToken> tokens = new ConcurrentHashMap<>();
+
+  private final AtomicLong tokenRequests = new AtomicLong();
+
+  private final AtomicLong cacheHits = new AtomicLong();
+
   /**
-   * Retrieves access token from the auth service.
+   * Retrieves access token from the auth service. Tokens are cached per client until shortly
+   * before they expire, and when many threads need a new token only one request is sent.
    *
    * @return token.
    */
-
   public String obtainAccessToken() {
+    String cacheKey = env.getProperty("auth.server.olmisClientId");
+    CachedToken token = tokens.get(cacheKey);
+
+    if (!isValid(token)) {
+      // compute blocks other callers for the same client until the new token is retrieved
+      token = tokens.compute(cacheKey, (key, current) -> isValid(current)
+          ? current
+          : requestToken());
+    } else {
+      cacheHits.incrementAndGet();
+    }
+
+    return token.accessToken;
+  }
+
+  /**
+   * Removes the given token from the cache, for example after OpenLMIS responded with 401. The
+   * next call of {@link #obtainAccessToken()} will request a new one. Nothing happens if the token
+   * has already been replaced.
+   */
+  public void invalidateAccessToken(String accessToken) {
+    tokens.computeIfPresent(env.getProperty("auth.server.olmisClientId"),
+        (key, current) -> Objects.equals(current.accessToken, accessToken) ? null : current);
+  }
+
+  private boolean isValid(CachedToken token) {
+    return null != token && token.refreshAt.isAfter(clock.instant());
+  }
+
+  private CachedToken requestToken() {
     setClientCreds();
     setPlainCreds();
     setHttpEntity();
     setParams();
 
+    Instant requestTime = clock.instant();
     ResponseEntity<?> response = restTemplate.exchange(
         createUri(authorizationUrl, params),
         HttpMethod.POST,
@@ -73,7 +128,15 @@ public class AuthService {
         Object.class
     );
 
-    return ((Map<String, String>) response.getBody()).get(ACCESS_TOKEN);
+    Map<String, Object> body = (Map<String, Object>) response.getBody();
+    Object expiresIn = body.get(EXPIRES_IN);
+    long validFor = expiresIn instanceof Number ? ((Number) expiresIn).longValue() : 0;
+
+    LOGGER.info("Obtained new OpenLMIS access token (token requests: {}, cache hits: {})",
+        tokenRequests.incrementAndGet(), cacheHits.get());
+
+    return new CachedToken((String) body.get(ACCESS_TOKEN),
+        requestTime.plusSeconds(validFor - refreshMargin));
   }
 
   protected void setClientCreds() {
@@ -101,4 +164,14 @@ public class AuthService {
         .set("grant_type", "client_credentials");
   }
 
+  private static final class CachedToken {
+    private final String accessToken;
+    private final Instant refreshAt;
+
+    CachedToken(String accessToken, Instant refreshAt) {
+      this.accessToken = accessToken;
+      this.refreshAt = refreshAt;
+    }
+  }
+
 }
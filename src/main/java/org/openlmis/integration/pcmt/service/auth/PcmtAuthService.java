@@ -15,25 +15,46 @@
 
 package org.openlmis.integration.pcmt.service.auth;
 
+import java.time.Clock;
+import java.time.Instant;
+import java.util.Objects;
+
 import kong.unirest.HttpResponse;
 import kong.unirest.JsonNode;
-import kong.unirest.Unirest;
 import kong.unirest.UnirestException;
+import kong.unirest.json.JSONObject;
 
 import org.apache.commons.codec.binary.Base64;
+import org.openlmis.integration.pcmt.service.pcmt.PcmtClient;
+import org.openlmis.integration.pcmt.service.pcmt.PcmtRequestException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.env.Environment;
 import org.springframework.stereotype.Service;
 
 @Service
-@SuppressWarnings("PMD.AvoidPrintStackTrace")
 public class PcmtAuthService {
 
+  private static final Logger LOGGER = LoggerFactory.getLogger(PcmtAuthService.class);
+
   protected static final String ACCESS_TOKEN = "access_token";
+  protected static final String REFRESH_TOKEN = "refresh_token";
+  protected static final String EXPIRES_IN = "expires_in";
 
   @Autowired
   protected Environment env;
 
+  @Autowired
+  private PcmtClient pcmtClient;
+
+  @Autowired
+  private Clock clock;
+
+  @Value("${pcmt.token.refreshMargin}")
+  private long refreshMargin;
+
   private String clientId;
 
   private String clientSecret;
@@ -46,25 +67,92 @@ public class PcmtAuthService {
 
   private String base64Creds;
 
+  private final Object lock = new Object();
+
+  private volatile PcmtToken token;
+
   /**
-   * This method get authentication token.
+   * This method get authentication token. The token is cached and refreshed shortly before it
+   * expires. When many threads need a new token at the same time, only one of them sends the
+   * request and the others wait for its result.
    *
    * @return bearer token.
    */
-
   public String obtainAccessToken() throws UnirestException {
+    PcmtToken current = token;
+    if (isValid(current)) {
+      return current.accessToken;
+    }
+
+    synchronized (lock) {
+      current = token;
+      if (!isValid(current)) {
+        current = requestToken(current);
+        token = current;
+      }
+
+      return current.accessToken;
+    }
+  }
+
+  /**
+   * Removes the given token from the cache, for example when PCMT rejected it. The next call of
+   * {@link #obtainAccessToken()} will request a new one. Nothing happens if the token has already
+   * been replaced by another thread.
+   */
+  public void invalidateAccessToken(String accessToken) {
+    synchronized (lock) {
+      PcmtToken current = token;
+      if (null != current && Objects.equals(current.accessToken, accessToken)) {
+        token = new PcmtToken(null, current.refreshToken, Instant.MIN);
+      }
+    }
+  }
+
+  private boolean isValid(PcmtToken current) {
+    return null != current
+        && null != current.accessToken
+        && current.refreshAt.isAfter(clock.instant());
+  }
+
+  private PcmtToken requestToken(PcmtToken current) {
     setClientCreds();
     setPlainCreds();
 
-    HttpResponse<JsonNode> response = Unirest.post(authorizationUrl)
+    if (null != current && null != current.refreshToken) {
+      try {
+        return sendTokenRequest("{\n    \"refresh_token\" : \"" + current.refreshToken + "\",\n"
+            + "\"grant_type\": \"refresh_token\"\n}");
+      } catch (UnirestException | PcmtRequestException exp) {
+        LOGGER.warn("Could not refresh PCMT access token, a new one will be requested", exp);
+      }
+    }
+
+    return sendTokenRequest("{\n    \"username\" : \"" + clientUsername + "\",\n"
+        + "\"password\" : \"" + clientPassword + "\",\n"
+        + "\"grant_type\": \"password\"\n}");
+  }
+
+  private PcmtToken sendTokenRequest(String body) {
+    Instant requestTime = clock.instant();
+    HttpResponse<JsonNode> response = pcmtClient.post(authorizationUrl)
         .header("Content-Type", "application/json")
         .header("Authorization", "Basic " + base64Creds)
-        .body("{\n    \"username\" : \"" + clientUsername + "\",\n"
-            + "\"password\" : \"" + clientPassword + "\",\n"
-            + "\"grant_type\": \"password\"\n}")
+        .body(body)
         .asJson();
 
-    return response.getBody().getObject().get(ACCESS_TOKEN).toString();
+    if (!response.isSuccess()) {
+      throw new PcmtRequestException(authorizationUrl, response.getStatus(),
+          response.getStatusText());
+    }
+
+    JSONObject json = response.getBody().getObject();
+    long expiresIn = json.optLong(EXPIRES_IN, 0);
+
+    return new PcmtToken(
+        json.get(ACCESS_TOKEN).toString(),
+        json.optString(REFRESH_TOKEN, null),
+        requestTime.plusSeconds(expiresIn - refreshMargin));
   }
 
   private void setClientCreds() {
@@ -82,4 +170,16 @@ public class PcmtAuthService {
     base64Creds = new String(base64CredsBytes);
   }
 
+  private static final class PcmtToken {
+    private final String accessToken;
+    private final String refreshToken;
+    private final Instant refreshAt;
+
+    PcmtToken(String accessToken, String refreshToken, Instant refreshAt) {
+      this.accessToken = accessToken;
+      this.refreshToken = refreshToken;
+      this.refreshAt = refreshAt;
+    }
+  }
+
 }
@@ -16,11 +16,9 @@
 package org.openlmis.integration.pcmt.service.fetch;
 
 import java.time.ZonedDateTime;
-import java.util.List;
-import java.util.concurrent.BlockingQueue;
-import org.apache.commons.collections4.CollectionUtils;
+import java.util.concurrent.TimeUnit;
+import org.openlmis.integration.pcmt.service.IntegrationPipeline;
 import org.openlmis.integration.pcmt.service.pcmt.PcmtDataService;
-import org.openlmis.integration.pcmt.service.pcmt.dto.Item;
 import org.openlmis.integration.pcmt.web.BaseDto;
 import org.slf4j.Logger;
 
@@ -31,7 +29,7 @@ public abstract class IntegrationFetchTask<T extends BaseDto> implements Runnabl
 
   protected abstract PcmtDataService getPcmtDataService();
 
-  protected abstract BlockingQueue<T> getQueue();
+  protected abstract IntegrationPipeline<T> getPipeline();
 
   protected abstract ZonedDateTime getExecutionTime();
 
@@ -39,14 +37,50 @@ public abstract class IntegrationFetchTask<T extends BaseDto> implements Runnabl
 
   protected abstract void incPage();
 
+  /**
+   * Adds the entity to the pipeline, waiting for free space if the send task is behind. If the
+   * thread is interrupted while waiting, the entity is dropped and the interrupt flag is restored.
+   *
+   * @throws IllegalStateException if the send task has stopped before taking the entity.
+   */
   protected void addToQueue(T entity) {
-    getQueue().add(entity);
+    try {
+      if (!getPipeline().put(entity)) {
+        throw new IllegalStateException("The send task has stopped before entity with id "
+            + entity.getId() + " was added to queue");
+      }
+    } catch (InterruptedException exp) {
+      Thread.currentThread().interrupt();
+      return;
+    }
+
+    getLogger().debug("Added fetched entity with id {} to queue.", entity.getId());
+  }
+
+  /**
+   * Adds the entity to the pipeline, waiting at most the given time for free space. If the thread
+   * is interrupted while waiting, the entity is dropped and the interrupt flag is restored.
+   *
+   * @return false if the entity has not been added because the send task is behind, so it has to
+   *         be added later with {@link #addToQueue(BaseDto)}.
+   */
+  protected boolean offerToQueue(T entity, long timeoutMillis) {
+    try {
+      if (!getPipeline().offer(entity, timeoutMillis, TimeUnit.MILLISECONDS)) {
+        return false;
+      }
+    } catch (InterruptedException exp) {
+      Thread.currentThread().interrupt();
+      return true;
+    }
+
     getLogger().debug("Added fetched entity with id {} to queue.", entity.getId());
+    return true;
   }
 
-  protected boolean nextPage(List<Item> items) {
-    if (CollectionUtils.isNotEmpty(items)) {
-      getLogger().debug("Fetched {} with {} items", getPageNumber(), items.size());
+  protected boolean nextPage(int itemsCount) {
+    if (itemsCount > 0) {
+      getLogger().debug("Fetched {} with {} items", getPageNumber(), itemsCount);
       incPage();
       return true;
     } else {
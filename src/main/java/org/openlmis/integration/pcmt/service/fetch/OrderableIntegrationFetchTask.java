@@ -17,27 +17,59 @@ package org.openlmis.integration.pcmt.service.fetch;
 
 import java.time.Clock;
 import java.time.ZonedDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
-import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.builder.EqualsBuilder;
 import org.apache.commons.lang3.builder.HashCodeBuilder;
+import org.openlmis.integration.pcmt.domain.Integration;
+import org.openlmis.integration.pcmt.domain.IntegrationRun;
+import org.openlmis.integration.pcmt.repository.IntegrationRepository;
+import org.openlmis.integration.pcmt.service.IntegrationPipeline;
 import org.openlmis.integration.pcmt.service.OrderableBuilder;
+import org.openlmis.integration.pcmt.service.OrderableFingerprintService;
 import org.openlmis.integration.pcmt.service.PcmtLongBuilder;
+import org.openlmis.integration.pcmt.service.pcmt.PaginationType;
 import org.openlmis.integration.pcmt.service.pcmt.PcmtDataService;
+import org.openlmis.integration.pcmt.service.pcmt.dto.Href;
 import org.openlmis.integration.pcmt.service.pcmt.dto.Item;
+import org.openlmis.integration.pcmt.service.pcmt.dto.Links;
 import org.openlmis.integration.pcmt.service.pcmt.dto.PcmtResponseBody;
 import org.openlmis.integration.pcmt.service.referencedata.orderable.OrderableDto;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 
+@SuppressWarnings("PMD.TooManyMethods")
 public class OrderableIntegrationFetchTask extends IntegrationFetchTask<OrderableDto> {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(OrderableIntegrationFetchTask.class);
+  // how long a product read from an open PCMT response can wait for free space in the queue
+  private static final long STREAM_OFFER_TIMEOUT_MILLIS = 1000;
   private final PcmtDataService pcmtDataService;
   private final PcmtLongBuilder pcmtLongBuilder;
-  private final BlockingQueue<OrderableDto> queue;
+  private final OrderableFingerprintService orderableFingerprintService;
+  private final IntegrationPipeline<OrderableDto> pipeline;
+  private final Integration integration;
+  private final IntegrationRun run;
+  private final IntegrationRepository integrationRepository;
+  private final ZonedDateTime updatedSince;
   private final ZonedDateTime executionTime;
+  private final int concurrentRequests;
+  private final boolean skipUnchanged;
+  private final List<OrderableDto> pageBuffer = new ArrayList<>();
   private int page;
+  private long fetchedItems;
+  private ZonedDateTime lastUpdated;
 
   @Override
   protected Logger getLogger() {
@@ -52,9 +84,13 @@ public class OrderableIntegrationFetchTask extends IntegrationFetchTask<Orderabl
     return pcmtLongBuilder;
   }
 
+  protected int getConcurrentRequests() {
+    return concurrentRequests;
+  }
+
   @Override
-  protected BlockingQueue<OrderableDto> getQueue() {
-    return queue;
+  protected IntegrationPipeline<OrderableDto> getPipeline() {
+    return pipeline;
   }
 
   @Override
@@ -75,36 +111,282 @@ public class OrderableIntegrationFetchTask extends IntegrationFetchTask<Orderabl
   /**
    * Constructor of OrderableIntegrationFetchTask.
    *
+   * @param pipeline           the pipeline of the run. Its stream is ended when the task finishes.
+   * @param integration        the integration for which products are fetched. Its last sync date
+   *                           is moved forward after all fetched products have been sent.
+   * @param run                the run to which fetched products belong. If any of them could not
+   *                           be sent, the last sync date is kept so they are fetched again.
+   * @param updatedSince       if set, only products updated after this date are fetched and
+   *                           products that have not changed since they were last sent are
+   *                           skipped. Otherwise all products are fetched and sent (full resync).
+   * @param concurrentRequests how many pages can be downloaded from PCMT at the same time.
+   *                           Value 1 means pages are downloaded one after another.
    */
   public OrderableIntegrationFetchTask(
       PcmtDataService pcmtDataService,
       PcmtLongBuilder pcmtLongBuilder,
-      BlockingQueue<OrderableDto> queue,
-      Clock clock) {
+      OrderableFingerprintService orderableFingerprintService,
+      IntegrationPipeline<OrderableDto> pipeline,
+      Integration integration,
+      IntegrationRun run,
+      IntegrationRepository integrationRepository,
+      ZonedDateTime updatedSince,
+      Clock clock,
+      int concurrentRequests) {
     this.pcmtDataService = pcmtDataService;
     this.pcmtLongBuilder = pcmtLongBuilder;
-    this.queue = queue;
+    this.orderableFingerprintService = orderableFingerprintService;
+    this.pipeline = pipeline;
+    this.integration = integration;
+    this.run = run;
+    this.integrationRepository = integrationRepository;
+    this.updatedSince = updatedSince;
     this.executionTime = ZonedDateTime.now(clock);
+    this.concurrentRequests = Math.max(1, concurrentRequests);
+    this.skipUnchanged = null != updatedSince;
     this.page = 1;
   }
 
   @Override
   public void run() {
-    getLogger().info("Started fetch task with execution time {}", getExecutionTime());
-    List<Item> items;
+    getLogger().info("Started fetch task with execution time {} (updated since: {})",
+        getExecutionTime(), updatedSince);
+    try {
+      if (PaginationType.SEARCH_AFTER == getPcmtDataService().getPaginationType()) {
+        fetchWithCursor();
+      } else if (getConcurrentRequests() > 1) {
+        fetchConcurrently();
+      } else {
+        fetchSequentially();
+      }
+
+      if (!Thread.currentThread().isInterrupted()) {
+        // products that are still in the queue would be lost if the date was moved forward now
+        getPipeline().getCompletion().whenComplete(this::updateLastSyncDate);
+      }
+    } catch (RuntimeException exp) {
+      // the run would be marked as successful if the send task only saw the end of the stream
+      getPipeline().fail(exp);
+      throw exp;
+    } finally {
+      getPipeline().endOfStream();
+    }
+    getLogger().info("Finished fetch task with execution time {} ({} products fetched, "
+        + "{} unchanged products skipped, {} ms spent waiting for the send queue, "
+        + "{} products left in the queue)", getExecutionTime(), fetchedItems,
+        run.getUnchangedEntities(),
+        getPipeline().getProducerWaitTime().toMillis(), getPipeline().size());
+  }
+
+  /**
+   * Downloads pages one after another and adds products to the queue while they are read from
+   * the response.
+   */
+  private void fetchSequentially() {
+    long fetchedBefore;
     do {
-      PcmtResponseBody responseBody = getPcmtDataService().downloadData(getPageNumber());
-      items = responseBody.getEmbedded().getItems();
-
-      for (Item item : items) {
-        Long uomQtyFactor = getPcmtLongBuilder().build(
-            item.getValues().getUomQtyFactor().get(0).getData());
-        OrderableDto entity = OrderableBuilder.build(item, uomQtyFactor);
-        addToQueue(entity);
+      fetchedBefore = fetchedItems;
+      readPage(consumer -> getPcmtDataService()
+          .downloadData(getPageNumber(), updatedSince, consumer));
+    } while (nextPage((int) (fetchedItems - fetchedBefore))
+        && !Thread.currentThread().isInterrupted());
+  }
+
+  /**
+   * Downloads pages by following the next link returned with each page (search_after
+   * pagination). The cost of a page does not depend on how deep it is and products changed
+   * during the run are neither skipped nor duplicated. Stops when there is no next link.
+   */
+  private void fetchWithCursor() {
+    PcmtResponseBody responseBody = readPage(consumer -> getPcmtDataService()
+        .downloadFirstPage(updatedSince, consumer));
+
+    String nextUrl = getNextUrl(responseBody);
+    while (null != nextUrl && !Thread.currentThread().isInterrupted()) {
+      incPage();
+      String pageUrl = nextUrl;
+      responseBody = readPage(consumer -> getPcmtDataService().downloadData(pageUrl, consumer));
+      nextUrl = getNextUrl(responseBody);
+    }
+  }
+
+  /**
+   * Downloads a page and adds its products to the queue while they are read from the response.
+   * A product waits for free space in the queue at most {@link #STREAM_OFFER_TIMEOUT_MILLIS}. If
+   * the send task is further behind, that product and the rest of the page are kept in a buffer
+   * until the response has been read to the end, so the response does not stay open and idle
+   * until PCMT or a proxy aborts it. The buffer never holds more than one page.
+   */
+  private PcmtResponseBody readPage(Function<Consumer<Item>, PcmtResponseBody> download) {
+    PcmtResponseBody responseBody = download.apply(this::streamItem);
+
+    pageBuffer.forEach(this::addToQueue);
+    pageBuffer.clear();
+
+    return responseBody;
+  }
+
+  private void streamItem(Item item) {
+    OrderableDto entity = toOrderable(item);
+
+    if (null != entity
+        && (!pageBuffer.isEmpty() || !offerToQueue(entity, STREAM_OFFER_TIMEOUT_MILLIS))) {
+      // products are added to the queue in the response order
+      pageBuffer.add(entity);
+    }
+  }
+
+  private String getNextUrl(PcmtResponseBody responseBody) {
+    Links links = responseBody.getLinks();
+    Href next = null == links ? null : links.getNext();
+
+    return null == next ? null : next.getHref();
+  }
+
+  /**
+   * Downloads the first page to find out how many pages there are and then downloads the rest of
+   * them with up to {@link #getConcurrentRequests()} requests in flight. Responses are consumed in
+   * page order so items are added to the queue in the same order as in the sequential mode.
+   */
+  private void fetchConcurrently() {
+    PcmtResponseBody firstPage = getPcmtDataService().downloadData(getPageNumber(), updatedSince);
+    List<Item> items = firstPage.getEmbedded().getItems();
+    items.forEach(this::addItemToQueue);
+
+    if (!nextPage(items.size())) {
+      return;
+    }
+
+    int pageCount = getPageCount(firstPage);
+    ExecutorService executor = Executors.newFixedThreadPool(getConcurrentRequests(),
+        new CustomizableThreadFactory("pcmt-page-fetch-"));
+    Deque<Future<PcmtResponseBody>> pending = new ArrayDeque<>();
+    int nextPageToSubmit = getPageNumber();
+
+    try {
+      while (nextPageToSubmit <= pageCount && pending.size() < getConcurrentRequests()) {
+        pending.add(submitDownload(executor, nextPageToSubmit++));
       }
 
-    } while (nextPage(items));
-    getLogger().info("Finished fetch task with execution time {}", getExecutionTime());
+      while (!pending.isEmpty()) {
+        items = pending.poll().get().getEmbedded().getItems();
+        items.forEach(this::addItemToQueue);
+
+        if (!nextPage(items.size())) {
+          return;
+        }
+
+        if (nextPageToSubmit <= pageCount) {
+          pending.add(submitDownload(executor, nextPageToSubmit++));
+        }
+      }
+    } catch (InterruptedException exp) {
+      Thread.currentThread().interrupt();
+      return;
+    } catch (ExecutionException exp) {
+      throw new IllegalStateException(exp);
+    } finally {
+      executor.shutdownNow();
+    }
+
+    // products could have been added after the first page was downloaded
+    fetchSequentially();
+  }
+
+  private Future<PcmtResponseBody> submitDownload(ExecutorService executor, int pageNumber) {
+    return executor.submit(() -> getPcmtDataService().downloadData(pageNumber, updatedSince));
+  }
+
+  private int getPageCount(PcmtResponseBody firstPage) {
+    Integer itemsCount = firstPage.getItemsCount();
+    int pageLimit = getPcmtDataService().getPageLimit();
+
+    if (null == itemsCount || pageLimit <= 0) {
+      return 0;
+    }
+
+    return (itemsCount + pageLimit - 1) / pageLimit;
+  }
+
+  private void updateLastSyncDate(Void result, Throwable error) {
+    if (null != error) {
+      getLogger().warn("Last sync date of integration {} has not been changed because the run "
+          + "has failed", integration.getId());
+      return;
+    }
+
+    // nothing waits for this callback, so a failure would be lost if it was not logged here
+    try {
+      updateLastSyncDate();
+    } catch (RuntimeException exp) {
+      getLogger().error("Could not update last sync date of integration {}",
+          integration.getId(), exp);
+    }
+  }
+
+  private void updateLastSyncDate() {
+    if (run.getFailedEntities() > 0) {
+      // the next run filters by the date, so failed products would never be fetched again
+      getLogger().warn("Last sync date of integration {} has not been changed because {} "
+          + "products could not be sent", integration.getId(), run.getFailedEntities());
+      return;
+    }
+
+    if (null == lastUpdated) {
+      getLogger().info("No products have been updated since {}", updatedSince);
+      return;
+    }
+
+    integrationRepository.updateLastSyncDate(integration.getId(), lastUpdated);
+    getLogger().info("Last sync date of integration {} set to {}",
+        integration.getId(), lastUpdated);
+  }
+
+  private ZonedDateTime getUpdateDate(Item item) {
+    if (StringUtils.isBlank(item.getUpdated())) {
+      return null;
+    }
+
+    try {
+      return ZonedDateTime.parse(item.getUpdated());
+    } catch (DateTimeParseException exp) {
+      getLogger().warn("Could not parse update date {} of product {}",
+          item.getUpdated(), item.getIdentifier());
+      return null;
+    }
+  }
+
+  private void addItemToQueue(Item item) {
+    OrderableDto entity = toOrderable(item);
+
+    if (null != entity) {
+      addToQueue(entity);
+    }
+  }
+
+  /**
+   * Builds the orderable from the product.
+   *
+   * @return the orderable or null if it has not changed since it was last sent.
+   */
+  private OrderableDto toOrderable(Item item) {
+    ZonedDateTime updated = getUpdateDate(item);
+    if (null != updated && (null == lastUpdated || updated.isAfter(lastUpdated))) {
+      lastUpdated = updated;
+    }
+
+    Long uomQtyFactor = getPcmtLongBuilder().build(
+        item.getValues().getUomQtyFactor().get(0).getData());
+    OrderableDto entity = OrderableBuilder.build(item, uomQtyFactor);
+    fetchedItems++;
+
+    if (skipUnchanged && orderableFingerprintService.isUnchanged(entity)) {
+      getLogger().debug("Orderable {} has not changed since it was last sent", entity.getId());
+      run.addUnchangedItems(1);
+      return null;
+    }
+
+    return entity;
   }
 
   @Override
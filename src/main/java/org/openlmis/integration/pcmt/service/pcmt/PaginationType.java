@@ -0,0 +1,35 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.integration.pcmt.service.pcmt;
+
+/**
+ * Defines how pages of products are retrieved from PCMT.
+ */
+public enum PaginationType {
+
+  /**
+   * Pages are retrieved by number (page=N&amp;limit=M). Allows downloading pages concurrently but
+   * gets slower on deep pages and can skip or duplicate products that change during a run.
+   */
+  PAGE,
+
+  /**
+   * Pages are retrieved by following the next link (search_after cursor) of the previous page.
+   * The cost of a page does not depend on how deep it is.
+   */
+  SEARCH_AFTER
+
+}
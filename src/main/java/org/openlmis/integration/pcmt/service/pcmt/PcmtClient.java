@@ -0,0 +1,150 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.integration.pcmt.service.pcmt;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Optional;
+import java.util.function.Consumer;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import kong.unirest.Config;
+import kong.unirest.HttpRequestWithBody;
+import kong.unirest.HttpResponse;
+import kong.unirest.RawResponse;
+import kong.unirest.UnirestInstance;
+import kong.unirest.UnirestParsingException;
+import org.openlmis.integration.pcmt.service.pcmt.dto.Item;
+import org.openlmis.integration.pcmt.service.pcmt.dto.PcmtResponseBody;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * HTTP client used for all communication with PCMT. A single instance with its own connection
+ * pool lives as long as the application, so keep-alive connections and TLS sessions are reused
+ * between pages and requests can be safely sent from many threads.
+ */
+@Component
+@SuppressWarnings("PMD.PreserveStackTrace")
+public class PcmtClient {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(PcmtClient.class);
+
+  private final PcmtResponseBodyReader responseBodyReader = new PcmtResponseBodyReader();
+
+  @Value("${pcmt.client.maxConnections}")
+  private int maxConnections;
+
+  @Value("${pcmt.client.connectTimeout}")
+  private int connectTimeout;
+
+  @Value("${pcmt.client.socketTimeout}")
+  private int socketTimeout;
+
+  private UnirestInstance unirest;
+
+  /**
+   * Creates the client. Responses are requested in gzip and decompressed transparently. Cookies
+   * are not stored because PCMT is called with an access token only.
+   */
+  @PostConstruct
+  public void init() {
+    Config config = new Config()
+        .verifySsl(false)
+        .concurrency(maxConnections, maxConnections)
+        .connectTimeout(connectTimeout)
+        .socketTimeout(socketTimeout)
+        .requestCompression(true)
+        .enableCookieManagement(false)
+        .addShutdownHook(false);
+
+    unirest = new UnirestInstance(config);
+  }
+
+  @PreDestroy
+  public void destroy() {
+    unirest.shutDown(false);
+  }
+
+  /**
+   * Retrieves a page of products. Products are parsed from the response stream and passed to the
+   * consumer one by one, so the page is never held in memory. The consumer should not block for
+   * long, because the response stays open until it returns.
+   *
+   * @param url      the page url.
+   * @param token    the PCMT access token.
+   * @param consumer receives products in the response order.
+   * @return the page details without products.
+   * @throws PcmtRequestException if PCMT responded with an error status or the response could not
+   *                              be read.
+   */
+  public PcmtResponseBody getPage(String url, String token, Consumer<Item> consumer) {
+    HttpResponse<PcmtResponseBody> response = unirest.get(url)
+        .header("Content-Type", "application/json")
+        .header("Authorization", "Bearer " + token)
+        .asObject(raw -> readPage(raw, consumer));
+
+    Optional<UnirestParsingException> parsingError = response.getParsingError();
+    if (parsingError.isPresent()) {
+      throw getReadError(url, response.getStatus(), parsingError.get());
+    }
+
+    if (!response.isSuccess()) {
+      throw new PcmtRequestException(url, response.getStatus(), response.getStatusText());
+    }
+
+    LOGGER.debug("Retrieved PCMT page: {}", url);
+    return response.getBody();
+  }
+
+  private PcmtResponseBody readPage(RawResponse response, Consumer<Item> consumer) {
+    if (response.getStatus() < 200 || response.getStatus() >= 300) {
+      // products are not read from error responses
+      return null;
+    }
+
+    try {
+      return responseBodyReader.read(response.getContent(), consumer);
+    } catch (IOException exp) {
+      throw new UncheckedIOException(exp);
+    }
+  }
+
+  private RuntimeException getReadError(String url, int status, UnirestParsingException error) {
+    Throwable cause = error.getCause();
+
+    if (cause instanceof UncheckedIOException) {
+      return new PcmtRequestException(url, status, cause.getCause());
+    }
+
+    if (cause instanceof RuntimeException) {
+      // thrown by the consumer, for example when the send task has stopped
+      return (RuntimeException) cause;
+    }
+
+    return new PcmtRequestException(url, status, error);
+  }
+
+  /**
+   * Prepares a POST request that will be sent with the shared connection pool.
+   */
+  public HttpRequestWithBody post(String url) {
+    return unirest.post(url);
+  }
+
+}
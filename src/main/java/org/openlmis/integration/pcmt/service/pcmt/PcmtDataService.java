@@ -15,36 +15,66 @@
 
 package org.openlmis.integration.pcmt.service.pcmt;
 
-import com.fasterxml.jackson.databind.DeserializationFeature;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.SerializationFeature;
-
-import java.io.IOException;
-
-import kong.unirest.HttpResponse;
-import kong.unirest.Unirest;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import lombok.Getter;
 import lombok.Setter;
 
 import org.openlmis.integration.pcmt.service.auth.PcmtAuthService;
+import org.openlmis.integration.pcmt.service.pcmt.dto.Embedded;
+import org.openlmis.integration.pcmt.service.pcmt.dto.Item;
 import org.openlmis.integration.pcmt.service.pcmt.dto.PcmtResponseBody;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.env.Environment;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Component;
 
 @Component
 @SuppressWarnings({"PMD.PreserveStackTrace"})
 public class PcmtDataService {
 
+  private static final Logger LOGGER = LoggerFactory.getLogger(PcmtDataService.class);
+
+  private static final String LMIS_CATEGORY_FILTER =
+      "\"categories\":[{\"operator\":\"IN\",\"value\":[\"LMIS\"]}]";
+  private static final String UPDATED_FILTER =
+      "\"updated\":[{\"operator\":\">\",\"value\":\"%s\"}]";
+  private static final DateTimeFormatter UPDATED_FORMATTER =
+      DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+  // PCMT has no >= operator and compares dates with second precision
+  private static final long UPDATED_OVERLAP_SECONDS = 1;
+
+  @Autowired
+  private PcmtClient pcmtClient;
+
   @Autowired
   private PcmtAuthService pcmtAuthService;
 
   @Autowired
   protected Environment env;
 
+  @Getter
   @Setter
   private int pageLimit = 100;
 
+  @Getter
+  @Setter
+  @Value("${pcmt.paginationType}")
+  private PaginationType paginationType;
+
   private String getDomainUrl() {
     return env.getProperty("pcmt.url");
   }
@@ -58,48 +88,100 @@ public class PcmtDataService {
   }
 
   /**
-   * This method retrieves Products for given ids.
+   * This method retrieves the first page of Products using the search_after (cursor) pagination.
+   * Next pages should be retrieved with {@link #downloadData(String, Consumer)} by following the
+   * next link of the previous page.
    *
+   * @param updatedSince if set, only Products updated after this date are retrieved.
+   * @param consumer     receives Products one by one while the page is read.
+   * @return the page details without Products.
+   */
+  public PcmtResponseBody downloadFirstPage(ZonedDateTime updatedSince,
+      Consumer<Item> consumer) {
+    return getPage(getUrl() + "?pagination_type=search_after"
+        + "&limit=" + pageLimit
+        + "&search=" + getSearch(updatedSince), consumer);
+  }
+
+  /**
+   * This method retrieves Products from the given page using the offset pagination.
+   *
+   * @param updatedSince if set, only Products updated after this date are retrieved.
    * @return List of Products.
    */
+  public PcmtResponseBody downloadData(int pageNumber, ZonedDateTime updatedSince) {
+    List<Item> items = new ArrayList<>();
+    PcmtResponseBody pcmtResponseBody = downloadData(pageNumber, updatedSince, items::add);
+    pcmtResponseBody.setEmbedded(new Embedded(items));
 
-  public PcmtResponseBody downloadData(int pageNumber) {
-    return getPage(pageNumber);
+    return pcmtResponseBody;
   }
 
-  private PcmtResponseBody getPage(int pageNumber) {
+  /**
+   * This method retrieves Products from the given page using the offset pagination.
+   *
+   * @param updatedSince if set, only Products updated after this date are retrieved.
+   * @param consumer     receives Products one by one while the page is read.
+   * @return the page details without Products.
+   */
+  public PcmtResponseBody downloadData(int pageNumber, ZonedDateTime updatedSince,
+      Consumer<Item> consumer) {
+    return getPage(getUrl() + "?with_count=true&page="
+        + pageNumber
+        + "&limit=" + pageLimit
+        + "&search=" + getSearch(updatedSince), consumer);
+  }
+
+  /**
+   * This method retrieves Products from the page with the given url, for example the next link
+   * returned by PCMT.
+   *
+   * @param consumer receives Products one by one while the page is read.
+   * @return the page details without Products.
+   */
+  public PcmtResponseBody downloadData(String pageUrl, Consumer<Item> consumer) {
+    return getPage(pageUrl, consumer);
+  }
+
+  /**
+   * Builds the url-encoded search filter. Products are limited to the LMIS category and, if the
+   * date is set, to Products updated after it. PCMT compares dates in UTC. The filter starts one
+   * second earlier, so Products updated in the same second as the date are fetched again instead
+   * of being skipped. Those that have not changed are skipped by their fingerprints.
+   */
+  String getSearch(ZonedDateTime updatedSince) {
+    StringBuilder search = new StringBuilder("{").append(LMIS_CATEGORY_FILTER);
+
+    if (null != updatedSince) {
+      String date = updatedSince
+          .minusSeconds(UPDATED_OVERLAP_SECONDS)
+          .withZoneSameInstant(ZoneOffset.UTC)
+          .format(UPDATED_FORMATTER);
+      search.append(',').append(String.format(UPDATED_FILTER, date));
+    }
 
-    String url = getUrl() + "";
-    PcmtResponseBody pcmtResponseBody = new PcmtResponseBody();
     try {
-      Unirest.config()
-          .reset()
-          .verifySsl(false);
-
-      HttpResponse<String> response =
-          Unirest.get(url + "?with_count=true&page="
-              + pageNumber
-              + "&limit=" + pageLimit
-              + "&search=%7B%22categories%22%3A%5B%7B%22operator%22%3A%22IN%22%2C%22"
-              + "value%22%3A%5B%22LMIS%22%5D%7D%5D%7D"
-          )
-          .header("Content-Type", "application/json")
-          .header("Authorization", "Bearer " + getToken())
-          .header("Cookie", "")
-          .asString();
-
-      ObjectMapper objectMapper = new ObjectMapper();
-      objectMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
-      objectMapper.configure(SerializationFeature.FAIL_ON_EMPTY_BEANS, false);
-      pcmtResponseBody = objectMapper.readValue(response.getBody(),
-          PcmtResponseBody.class);
-
-      System.out.println(pcmtResponseBody.getLinks().getSelf());
-
-    } catch (IOException e) {
-      throw new IllegalStateException(e);
+      return URLEncoder
+          .encode(search.append('}').toString(), StandardCharsets.UTF_8.name())
+          .replace("+", "%20");
+    } catch (UnsupportedEncodingException exp) {
+      throw new IllegalStateException(exp);
     }
+  }
 
-    return pcmtResponseBody;
+  private PcmtResponseBody getPage(String url, Consumer<Item> consumer) {
+    String token = getToken();
+
+    try {
+      return pcmtClient.getPage(url, token, consumer);
+    } catch (PcmtRequestException exp) {
+      if (HttpStatus.UNAUTHORIZED.value() != exp.getStatus()) {
+        throw exp;
+      }
+
+      LOGGER.warn("PCMT rejected the access token, the request will be retried with a new one");
+      pcmtAuthService.invalidateAccessToken(token);
+      return pcmtClient.getPage(url, getToken(), consumer);
+    }
   }
 }
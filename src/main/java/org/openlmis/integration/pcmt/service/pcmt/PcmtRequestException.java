@@ -0,0 +1,52 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.integration.pcmt.service.pcmt;
+
+import lombok.Getter;
+
+/**
+ * Signals that PCMT responded with an error status or its response could not be read.
+ */
+public class PcmtRequestException extends RuntimeException {
+
+  @Getter
+  private final int status;
+
+  /**
+   * Constructs the exception.
+   *
+   * @param url        the url that has been called
+   * @param status     the http status that was returned
+   * @param statusText the status text that was returned
+   */
+  public PcmtRequestException(String url, int status, String statusText) {
+    super(String.format("Request to PCMT failed: %s. Error code: %d, status text: %s",
+        url, status, statusText));
+    this.status = status;
+  }
+
+  /**
+   * Constructs the exception for a response that could not be read.
+   *
+   * @param url    the url that has been called
+   * @param status the http status that was returned
+   * @param cause  the reason why the response could not be read
+   */
+  public PcmtRequestException(String url, int status, Throwable cause) {
+    super(String.format("Could not read PCMT response: %s. Error code: %d", url, status), cause);
+    this.status = status;
+  }
+}
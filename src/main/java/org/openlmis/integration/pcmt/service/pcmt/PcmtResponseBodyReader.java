@@ -0,0 +1,121 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.integration.pcmt.service.pcmt;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.Consumer;
+import org.openlmis.integration.pcmt.service.pcmt.dto.Item;
+import org.openlmis.integration.pcmt.service.pcmt.dto.Links;
+import org.openlmis.integration.pcmt.service.pcmt.dto.PcmtResponseBody;
+
+/**
+ * Reads a page of products returned by PCMT directly from the response stream. Items are passed
+ * to the given consumer one by one as soon as they are parsed, so the JSON tree of the whole
+ * page is never built. Instances are thread safe.
+ */
+class PcmtResponseBodyReader {
+
+  private static final String LINKS = "_links";
+  private static final String CURRENT_PAGE = "current_page";
+  private static final String ITEMS_COUNT = "items_count";
+  private static final String EMBEDDED = "_embedded";
+  private static final String ITEMS = "items";
+
+  private final ObjectMapper objectMapper;
+  private final ObjectReader itemReader;
+  private final ObjectReader linksReader;
+  private final ObjectReader integerReader;
+
+  PcmtResponseBodyReader() {
+    objectMapper = new ObjectMapper()
+        .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    itemReader = objectMapper.readerFor(Item.class);
+    linksReader = objectMapper.readerFor(Links.class);
+    integerReader = objectMapper.readerFor(Integer.class);
+  }
+
+  /**
+   * Reads the page from the given stream.
+   *
+   * @param input    the response body.
+   * @param consumer receives items from the _embedded.items array in the response order.
+   * @return the page without items (the embedded field is not set).
+   */
+  PcmtResponseBody read(InputStream input, Consumer<Item> consumer) throws IOException {
+    PcmtResponseBody body = new PcmtResponseBody();
+
+    try (JsonParser parser = objectMapper.getFactory().createParser(input)) {
+      expect(parser, parser.nextToken(), JsonToken.START_OBJECT);
+
+      while (JsonToken.FIELD_NAME == parser.nextToken()) {
+        String field = parser.getCurrentName();
+        parser.nextToken();
+
+        if (LINKS.equals(field)) {
+          body.setLinks(linksReader.readValue(parser));
+        } else if (CURRENT_PAGE.equals(field)) {
+          body.setCurrentPage(integerReader.readValue(parser));
+        } else if (ITEMS_COUNT.equals(field)) {
+          body.setItemsCount(integerReader.readValue(parser));
+        } else if (EMBEDDED.equals(field)) {
+          readEmbedded(parser, consumer);
+        } else {
+          parser.skipChildren();
+        }
+      }
+    }
+
+    return body;
+  }
+
+  private void readEmbedded(JsonParser parser, Consumer<Item> consumer) throws IOException {
+    if (JsonToken.VALUE_NULL == parser.getCurrentToken()) {
+      return;
+    }
+
+    expect(parser, parser.getCurrentToken(), JsonToken.START_OBJECT);
+
+    while (JsonToken.FIELD_NAME == parser.nextToken()) {
+      String field = parser.getCurrentName();
+      JsonToken token = parser.nextToken();
+
+      if (ITEMS.equals(field) && JsonToken.START_ARRAY == token) {
+        while (JsonToken.START_OBJECT == parser.nextToken()) {
+          consumer.accept(itemReader.readValue(parser));
+        }
+        expect(parser, parser.getCurrentToken(), JsonToken.END_ARRAY);
+      } else {
+        parser.skipChildren();
+      }
+    }
+  }
+
+  private void expect(JsonParser parser, JsonToken actual, JsonToken expected)
+      throws JsonParseException {
+    if (expected != actual) {
+      throw new JsonParseException(parser,
+          "Unexpected token " + actual + " in PCMT response, expected " + expected);
+    }
+  }
+
+}
@@ -43,4 +43,7 @@ public class Links {
   @JsonProperty("previous")
   public Href previous;
 
+  @JsonProperty("next")
+  public Href next;
+
 }
@@ -0,0 +1,124 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.integration.pcmt.service.referencedata.orderable;
+
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Page;
+
+/**
+ * Keeps orderables that exist in OpenLMIS by their ids and product codes. Only data needed to
+ * decide if an orderable should be created or updated, and if the update would change anything,
+ * is kept, so the whole catalog can be held in memory during an integration run.
+ */
+public final class OrderableIndex {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(OrderableIndex.class);
+
+  private final ConcurrentMap<UUID, OrderableDto> entries = new ConcurrentHashMap<>();
+  private final ConcurrentMap<String, UUID> idsByProductCode = new ConcurrentHashMap<>();
+
+  /**
+   * Retrieves all orderables from OpenLMIS page by page and builds the index of them.
+   *
+   * @param service  used to retrieve orderables.
+   * @param pageSize how many orderables are retrieved with a single request.
+   * @return index of all orderables that exist in OpenLMIS.
+   */
+  public static OrderableIndex build(OrderableReferenceDataService service, int pageSize) {
+    OrderableIndex index = new OrderableIndex();
+    int pageNumber = 0;
+    Page<OrderableDto> page;
+
+    do {
+      page = service.findAll(pageNumber, pageSize);
+      page.getContent().forEach(index::add);
+      ++pageNumber;
+    } while (page.hasNext() && page.hasContent());
+
+    LOGGER.info("Built index of {} OpenLMIS orderables with {} requests", index.size(),
+        pageNumber);
+    return index;
+  }
+
+  /**
+   * Adds the orderable to the index or replaces the existing entry. Orderables without id are
+   * ignored.
+   */
+  public void add(OrderableDto orderable) {
+    if (null == orderable || null == orderable.getId()) {
+      return;
+    }
+
+    entries.put(orderable.getId(), copy(orderable));
+    if (null != orderable.getProductCode()) {
+      idsByProductCode.put(orderable.getProductCode(), orderable.getId());
+    }
+  }
+
+  /**
+   * Finds the existing orderable by id of the given orderable or, if it does not have id yet, by
+   * its product code.
+   *
+   * @return a copy of the existing orderable with fields set by the integration, its version
+   *         number and programs, or null if the orderable does not exist in OpenLMIS.
+   */
+  public OrderableDto find(OrderableDto orderable) {
+    UUID id = findId(orderable);
+    OrderableDto existing = null == id ? null : entries.get(id);
+
+    return null == existing ? null : copy(existing);
+  }
+
+  public int size() {
+    return entries.size();
+  }
+
+  private UUID findId(OrderableDto orderable) {
+    if (null != orderable.getId()) {
+      return orderable.getId();
+    }
+
+    return null == orderable.getProductCode()
+        ? null
+        : idsByProductCode.get(orderable.getProductCode());
+  }
+
+  private static OrderableDto copy(OrderableDto orderable) {
+    OrderableDto copy = new OrderableDto();
+    copy.setId(orderable.getId());
+    copy.setProductCode(orderable.getProductCode());
+    copy.setFullProductName(orderable.getFullProductName());
+    copy.setDescription(orderable.getDescription());
+    copy.setNetContent(orderable.getNetContent());
+    copy.setDispensable(orderable.getDispensable());
+    copy.setPackRoundingThreshold(orderable.getPackRoundingThreshold());
+    copy.setRoundToZero(orderable.getRoundToZero());
+
+    if (null != orderable.getMeta()) {
+      copy.getMeta().setVersionNumber(orderable.getMeta().getVersionNumber());
+    }
+    if (null != orderable.getPrograms()) {
+      copy.getPrograms().addAll(orderable.getPrograms());
+    }
+
+    return copy;
+  }
+
+}
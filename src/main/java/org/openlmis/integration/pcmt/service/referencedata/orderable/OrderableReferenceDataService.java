@@ -0,0 +1,81 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.integration.pcmt.service.referencedata.orderable;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.openlmis.integration.pcmt.service.RequestParameters;
+import org.openlmis.integration.pcmt.service.referencedata.BaseReferenceDataService;
+import org.springframework.data.domain.Page;
+import org.springframework.stereotype.Service;
+
+@Service
+public class OrderableReferenceDataService extends BaseReferenceDataService<OrderableDto> {
+
+  @Override
+  protected String getUrl() {
+    return "/api/orderables/";
+  }
+
+  @Override
+  protected Class<OrderableDto> getResultClass() {
+    return OrderableDto.class;
+  }
+
+  @Override
+  protected Class<OrderableDto[]> getArrayResultClass() {
+    return OrderableDto[].class;
+  }
+
+  /**
+   * Retrieves the given page of all orderables.
+   */
+  public Page<OrderableDto> findAll(int page, int size) {
+    return getPage(RequestParameters
+        .init()
+        .set("page", page)
+        .set("size", size));
+  }
+
+  /**
+   * Finds orderables with the given ids. Long id lists are split into several requests, so the
+   * url does not exceed the maximum length.
+   *
+   * @param ids of orderables to find.
+   * @return orderables that exist in OpenLMIS by their ids. Missing ids are not in the map.
+   */
+  public Map<UUID, OrderableDto> findByIds(Collection<UUID> ids) {
+    if (ids.isEmpty()) {
+      return Collections.emptyMap();
+    }
+
+    RequestParameters parameters = RequestParameters
+        .init()
+        .set("id", ids)
+        .set("size", ids.size());
+
+    return getPage(parameters)
+        .getContent()
+        .stream()
+        .collect(Collectors.toMap(OrderableDto::getId, Function.identity(),
+            (first, second) -> first));
+  }
+
+}
@@ -0,0 +1,57 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.integration.pcmt.service.send;
+
+import java.util.concurrent.ThreadLocalRandom;
+import org.openlmis.integration.pcmt.domain.Execution;
+import org.openlmis.integration.pcmt.domain.ExecutionStatus;
+
+/**
+ * Defines which executions keep their request and response bodies when they are saved.
+ * Executions that have not finished successfully always keep them.
+ */
+public enum ExecutionBodyRetention {
+
+  /**
+   * Bodies of all executions are kept.
+   */
+  ALWAYS,
+
+  /**
+   * Bodies are kept only for failed executions.
+   */
+  FAILURES_ONLY,
+
+  /**
+   * Bodies are kept for failed executions and for a sample of successful ones.
+   */
+  SAMPLED;
+
+  /**
+   * Checks if bodies of the given execution should be saved.
+   *
+   * @param sampleRate part of successful executions, between 0 and 1, which keep their bodies in
+   *                   the sampled mode.
+   */
+  public boolean shouldRetain(Execution execution, double sampleRate) {
+    if (this == ALWAYS || ExecutionStatus.SUCCESS != execution.getStatus()) {
+      return true;
+    }
+
+    return this == SAMPLED && ThreadLocalRandom.current().nextDouble() < sampleRate;
+  }
+
+}
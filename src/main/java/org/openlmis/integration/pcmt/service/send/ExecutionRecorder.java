@@ -0,0 +1,227 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.integration.pcmt.service.send;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import lombok.AllArgsConstructor;
+import org.openlmis.integration.pcmt.domain.Execution;
+import org.openlmis.integration.pcmt.domain.IntegrationRunItem;
+import org.openlmis.integration.pcmt.repository.ExecutionRepository;
+import org.openlmis.integration.pcmt.repository.IntegrationRunItemRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Saves finished executions in the background. Send tasks build executions in memory and pass
+ * them to the recorder, which saves them in batches, so sending does not wait for the database.
+ * Executions are saved when a batch is full, periodically, when a send task ends and when the
+ * application shuts down. By default only results of run items are recorded for products, the
+ * whole run is kept as a single execution.
+ */
+@Component
+public class ExecutionRecorder {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ExecutionRecorder.class);
+
+  @Autowired
+  private ExecutionRepository executionRepository;
+
+  @Autowired
+  private IntegrationRunItemRepository integrationRunItemRepository;
+
+  @Value("${pcmt.executionRecorder.batchSize}")
+  private int batchSize;
+
+  @Value("${pcmt.executionRecorder.capacity}")
+  private int capacity;
+
+  @Value("${pcmt.executionRecorder.flushIntervalMillis}")
+  private long flushIntervalMillis;
+
+  @Value("${pcmt.executionRecorder.bodyRetention:ALWAYS}")
+  private ExecutionBodyRetention bodyRetention;
+
+  @Value("${pcmt.executionRecorder.bodySampleRate}")
+  private double bodySampleRate;
+
+  @Value("${pcmt.executionRecorder.executionPerProduct}")
+  private boolean executionPerProduct;
+
+  private final Object flushLock = new Object();
+  private final AtomicBoolean flushScheduled = new AtomicBoolean();
+
+  private BlockingQueue<Entry> buffer;
+  private ScheduledExecutorService flusher;
+
+  @PostConstruct
+  void init() {
+    batchSize = Math.max(1, batchSize);
+    buffer = new LinkedBlockingQueue<>(Math.max(batchSize, capacity));
+    flusher = Executors.newSingleThreadScheduledExecutor(
+        new CustomizableThreadFactory("pcmt-execution-recorder-"));
+    flusher.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMillis, flushIntervalMillis,
+        TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Saves executions that are still in the buffer before the application stops.
+   */
+  @PreDestroy
+  void shutdown() {
+    flusher.shutdown();
+    flush();
+  }
+
+  /**
+   * Adds the finished execution to the buffer. If the buffer is full, waits until the previous
+   * executions have been saved.
+   */
+  public void record(Execution execution) {
+    record(execution, null);
+  }
+
+  /**
+   * Adds the finished execution and the result of the run item to the buffer. Both are saved in
+   * the same batch. If the buffer is full, waits until the previous executions have been saved.
+   * Request and response bodies are removed from executions that should not keep them.
+   */
+  public void record(Execution execution, IntegrationRunItem item) {
+    if (!bodyRetention.shouldRetain(execution, bodySampleRate)) {
+      execution.discardBodies();
+    }
+
+    add(new Entry(execution, item));
+  }
+
+  /**
+   * Adds the result of the run item to the buffer without an execution. If the buffer is full,
+   * waits until the previous results have been saved.
+   */
+  public void record(IntegrationRunItem item) {
+    add(new Entry(null, item));
+  }
+
+  /**
+   * Returns true if an execution with the request and the response should be recorded for every
+   * product. Otherwise products are recorded only as items of their run.
+   */
+  public boolean isExecutionPerProduct() {
+    return executionPerProduct;
+  }
+
+  private void add(Entry entry) {
+    try {
+      buffer.put(entry);
+    } catch (InterruptedException exp) {
+      Thread.currentThread().interrupt();
+      // the entry is saved right away, so it is not lost
+      if (null != entry.execution) {
+        executionRepository.save(entry.execution);
+      }
+      if (null != entry.item) {
+        integrationRunItemRepository.save(entry.item);
+      }
+      return;
+    }
+
+    if (buffer.size() >= batchSize && flushScheduled.compareAndSet(false, true)) {
+      try {
+        flusher.execute(() -> {
+          flushScheduled.set(false);
+          flushQuietly();
+        });
+      } catch (RejectedExecutionException exp) {
+        flushScheduled.set(false);
+        flush();
+      }
+    }
+  }
+
+  /**
+   * Saves all executions from the buffer in the current thread. If a batch cannot be saved, its
+   * executions are lost and the exception is rethrown.
+   */
+  public void flush() {
+    synchronized (flushLock) {
+      List<Entry> batch = new ArrayList<>(batchSize);
+
+      while (buffer.drainTo(batch, batchSize) > 0) {
+        try {
+          save(batch);
+        } finally {
+          batch.clear();
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns how many executions are waiting to be saved.
+   */
+  public int getBufferSize() {
+    return buffer.size();
+  }
+
+  private void save(List<Entry> batch) {
+    List<Execution> executions = new ArrayList<>(batch.size());
+    List<IntegrationRunItem> items = new ArrayList<>(batch.size());
+
+    for (Entry entry : batch) {
+      if (null != entry.execution) {
+        executions.add(entry.execution);
+      }
+      if (null != entry.item) {
+        items.add(entry.item);
+      }
+    }
+
+    if (!executions.isEmpty()) {
+      executionRepository.save(executions);
+    }
+    if (!items.isEmpty()) {
+      integrationRunItemRepository.save(items);
+    }
+  }
+
+  private void flushQuietly() {
+    try {
+      flush();
+    } catch (RuntimeException exp) {
+      LOGGER.error("Could not save executions", exp);
+    }
+  }
+
+  @AllArgsConstructor
+  private static final class Entry {
+    private final Execution execution;
+    private final IntegrationRunItem item;
+  }
+
+}
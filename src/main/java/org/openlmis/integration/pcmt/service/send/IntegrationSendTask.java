@@ -18,29 +18,47 @@ package org.openlmis.integration.pcmt.service.send;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import java.time.Clock;
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.UUID;
-import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import org.openlmis.integration.pcmt.domain.Execution;
 import org.openlmis.integration.pcmt.domain.ExecutionResponse;
 import org.openlmis.integration.pcmt.domain.Integration;
-import org.openlmis.integration.pcmt.repository.ExecutionRepository;
+import org.openlmis.integration.pcmt.domain.IntegrationRun;
+import org.openlmis.integration.pcmt.domain.IntegrationRunItem;
+import org.openlmis.integration.pcmt.service.IntegrationPipeline;
 import org.openlmis.integration.pcmt.web.BaseDto;
 import org.slf4j.Logger;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 
+@SuppressWarnings("PMD.TooManyMethods")
 public abstract class IntegrationSendTask<T extends BaseDto> implements Runnable,
     Comparable<IntegrationSendTask<T>> {
 
+  private static final int WORKER_QUEUE_CAPACITY = 10;
+
+  private volatile List<SendWorker<T>> workers = Collections.emptyList();
+
+  private volatile boolean running;
+
   protected abstract Logger getLogger();
 
-  protected abstract BlockingQueue<T> getQueue();
+  protected abstract IntegrationPipeline<T> getPipeline();
 
   protected abstract Integration getIntegration();
 
+  protected abstract IntegrationRun getRun();
+
   protected abstract UUID getUserId();
 
   protected abstract String getTargetUrl();
 
-  protected abstract ExecutionRepository getExecutionRepository();
+  protected abstract ExecutionRecorder getExecutionRecorder();
 
   protected abstract ZonedDateTime getExecutionTime();
 
@@ -56,15 +74,55 @@ public abstract class IntegrationSendTask<T extends BaseDto> implements Runnable
 
   protected abstract ExecutionResponse send(T entity);
 
+  /**
+   * Returns how many entities can be sent to the target system at the same time.
+   */
+  protected abstract int getConcurrentRequests();
+
+  /**
+   * Returns the key that decides which worker sends the entity. Entities with the same key are
+   * always sent one after another in the order in which they were fetched.
+   */
+  protected Object getOrderingKey(T entity) {
+    return entity.getId();
+  }
+
+  /**
+   * Returns the code under which the entity is shown in results of the run. Not set by default.
+   */
+  protected String getProductCode(T entity) {
+    return null;
+  }
+
+  /**
+   * Prepares the task before the first entity is taken from the queue, for example by retrieving
+   * data required by all entities. Does nothing by default.
+   */
+  protected void prepareRun() {
+    // nothing to prepare by default
+  }
+
+  /**
+   * Returns how many entities waiting in the queue can be prepared together before they are sent.
+   */
+  protected int getBatchSize() {
+    return 1;
+  }
+
+  /**
+   * Prepares entities that are going to be sent one after another, for example by retrieving
+   * data required to send them with a single request. Does nothing by default.
+   */
+  protected void prepareBatch(List<T> entities) {
+    // nothing to prepare by default
+  }
+
   protected Execution initExecution() {
-    Execution execution;
     if (isManualExecution()) {
-      execution = Execution.forManualExecution(getIntegration(), getUserId(), getClock());
-    } else {
-      execution = Execution.forAutomaticExecution(getIntegration(), getClock());
+      return Execution.forManualExecution(getIntegration(), getUserId(), getClock());
     }
 
-    return getExecutionRepository().saveAndFlush(execution);
+    return Execution.forAutomaticExecution(getIntegration(), getClock());
   }
 
   protected Execution addRequestToExecution(T entity, Execution execution) {
@@ -75,31 +133,147 @@ public abstract class IntegrationSendTask<T extends BaseDto> implements Runnable
       throw new IllegalStateException(exp);
     }
 
-    return getExecutionRepository().saveAndFlush(execution);
+    return execution;
   }
 
   protected Execution addResponseToExecution(ExecutionResponse response, Execution execution) {
     execution.markAsDone(response, getClock());
-    return getExecutionRepository().saveAndFlush(execution);
+    return execution;
   }
 
+  /**
+   * Sends entities from the pipeline until the fetch task ends the stream and then completes the
+   * pipeline, so the thread is released for the next run.
+   */
   @Override
   public void run() {
     getLogger().info("Started send task with execution time {}", getExecutionTime());
+    running = true;
     try {
-      while (true) {
-        T entity = getQueue().take();
-        getLogger().debug("Taken entity with id {} from the queue.", entity.getId());
-
-        Execution execution = initExecution();
-        execution = addRequestToExecution(entity, execution);
-        ExecutionResponse response = send(entity);
-        addResponseToExecution(response, execution);
+      prepareRun();
+      if (getConcurrentRequests() > 1) {
+        sendConcurrently();
+      } else {
+        sendSequentially();
       }
+      // the run is completed only when all its executions have been saved
+      getExecutionRecorder().flush();
+      getPipeline().complete();
     } catch (InterruptedException e) {
       Thread.currentThread().interrupt();
+      getPipeline().fail(e);
+    } catch (RuntimeException e) {
+      getPipeline().fail(e);
+      throw e;
+    } finally {
+      running = false;
     }
-    getLogger().info("Started send task with execution time {}", getExecutionTime());
+    getLogger().info("Finished send task with execution time {} ({} entities sent)",
+        getExecutionTime(), workers.stream().mapToLong(SendWorker::getSentEntities).sum());
+  }
+
+  private void sendSequentially() throws InterruptedException {
+    SendWorker<T> worker = createWorker(1, null);
+    workers = Collections.singletonList(worker);
+    worker.sendAll(getPipeline());
+  }
+
+  /**
+   * Distributes entities between workers by their ordering key. Each worker sends its entities
+   * one after another, so different entities are sent in parallel while changes of the same
+   * entity keep their order.
+   */
+  private void sendConcurrently() throws InterruptedException {
+    List<SendWorker<T>> stripes = new ArrayList<>();
+    for (int number = 1; number <= getConcurrentRequests(); ++number) {
+      stripes.add(createWorker(number,
+          new IntegrationPipeline<>(Math.max(WORKER_QUEUE_CAPACITY, getBatchSize()))));
+    }
+    workers = Collections.unmodifiableList(stripes);
+
+    ExecutorService executor = Executors.newFixedThreadPool(stripes.size(),
+        new CustomizableThreadFactory("pcmt-send-worker-"));
+    try {
+      stripes.forEach(executor::execute);
+
+      for (T entity = getPipeline().take(); null != entity; entity = getPipeline().take()) {
+        SendWorker<T> worker = stripes.get(getStripe(entity, stripes.size()));
+        if (!worker.getPipeline().put(entity)) {
+          throw new IllegalStateException("Send worker has stopped before entity with id "
+              + entity.getId() + " was sent");
+        }
+      }
+
+      for (SendWorker<T> worker : stripes) {
+        worker.getPipeline().endOfStream();
+      }
+      for (SendWorker<T> worker : stripes) {
+        worker.getPipeline().getCompletion().get();
+      }
+    } catch (ExecutionException exp) {
+      throw new IllegalStateException(exp);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private SendWorker<T> createWorker(int number, IntegrationPipeline<T> pipeline) {
+    return new SendWorker<>(number, pipeline, getBatchSize(), this::prepareBatch, this::process);
+  }
+
+  private int getStripe(T entity, int stripeCount) {
+    Object key = getOrderingKey(entity);
+    return null == key ? 0 : Math.floorMod(key.hashCode(), stripeCount);
+  }
+
+  private ExecutionResponse process(T entity) {
+    getLogger().debug("Taken entity with id {} from the queue.", entity.getId());
+
+    // by default the product is recorded only as an item of the run
+    Execution execution = getExecutionRecorder().isExecutionPerProduct() ? initExecution() : null;
+    IntegrationRunItem item = null;
+    long startTime = System.nanoTime();
+    try {
+      ExecutionResponse response;
+      if (null == execution) {
+        response = send(entity);
+      } else {
+        execution.setRun(getRun());
+        addRequestToExecution(entity, execution);
+        response = send(entity);
+        addResponseToExecution(response, execution);
+      }
+      item = getRun().addItem(entity.getId(), getProductCode(entity), response,
+          getElapsedMillis(startTime));
+
+      return response;
+    } catch (RuntimeException exp) {
+      item = getRun().addFailedItem(entity.getId(), getProductCode(entity), exp,
+          getElapsedMillis(startTime));
+      throw exp;
+    } finally {
+      // results are saved in the background, unfinished executions are saved as well
+      if (null == execution) {
+        getExecutionRecorder().record(item);
+      } else {
+        getExecutionRecorder().record(execution, item);
+      }
+    }
+  }
+
+  private long getElapsedMillis(long startTime) {
+    return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+  }
+
+  /**
+   * Returns workers of the task. The list is empty until the task starts.
+   */
+  public List<SendWorker<T>> getWorkers() {
+    return workers;
+  }
+
+  public boolean isRunning() {
+    return running;
   }
 
   @Override
@@ -118,6 +292,10 @@ public abstract class IntegrationSendTask<T extends BaseDto> implements Runnable
     exporter.setExecutionTime(getExecutionTime());
     exporter.setUserId(getUserId());
     exporter.setDescription(getIntegration().getDescription());
+    exporter.setRunning(isRunning());
+    exporter.setQueuedEntities(getPipeline().size());
+    exporter.setQueueCapacity(getPipeline().getCapacity());
+    exporter.setFetchWaitTime(getPipeline().getProducerWaitTime().toMillis());
   }
 
   public interface Exporter {
@@ -128,6 +306,14 @@ public abstract class IntegrationSendTask<T extends BaseDto> implements Runnable
 
     void setDescription(String description);
 
+    void setRunning(boolean running);
+
+    void setQueuedEntities(int queuedEntities);
+
+    void setQueueCapacity(int queueCapacity);
+
+    void setFetchWaitTime(long fetchWaitTime);
+
   }
 
 }
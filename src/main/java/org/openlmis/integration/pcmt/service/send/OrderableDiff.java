@@ -0,0 +1,63 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.integration.pcmt.service.send;
+
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Set;
+import org.openlmis.integration.pcmt.service.referencedata.orderable.DispensableDto;
+import org.openlmis.integration.pcmt.service.referencedata.orderable.OrderableDto;
+import org.openlmis.integration.pcmt.service.referencedata.orderable.ProgramOrderableDto;
+
+/**
+ * Compares fields of orderables that are set by the integration. OpenLMIS creates a new version
+ * of the orderable on every update, so an orderable without changes should not be sent.
+ */
+final class OrderableDiff {
+
+  private OrderableDiff() {
+    throw new UnsupportedOperationException();
+  }
+
+  /**
+   * Checks if the orderable mapped from PCMT differs from the one that exists in OpenLMIS.
+   *
+   * @param existing the orderable retrieved from OpenLMIS.
+   * @param updated  the orderable mapped from PCMT with programs of the existing one merged.
+   */
+  static boolean hasChanges(OrderableDto existing, OrderableDto updated) {
+    return !Objects.equals(existing.getProductCode(), updated.getProductCode())
+        || !Objects.equals(existing.getFullProductName(), updated.getFullProductName())
+        || !Objects.equals(existing.getDescription(), updated.getDescription())
+        || !Objects.equals(existing.getNetContent(), updated.getNetContent())
+        || !Objects.equals(getDispensingUnit(existing), getDispensingUnit(updated))
+        || !Objects.equals(existing.getPackRoundingThreshold(),
+            updated.getPackRoundingThreshold())
+        || !Objects.equals(existing.getRoundToZero(), updated.getRoundToZero())
+        || !toSet(existing.getPrograms()).equals(toSet(updated.getPrograms()));
+  }
+
+  // OpenLMIS fills in other fields of the dispensable, the integration sets only the unit
+  private static String getDispensingUnit(OrderableDto orderable) {
+    DispensableDto dispensable = orderable.getDispensable();
+    return null == dispensable ? null : dispensable.getDispensingUnit();
+  }
+
+  private static Set<ProgramOrderableDto> toSet(Set<ProgramOrderableDto> programs) {
+    return null == programs ? new HashSet<>() : new HashSet<>(programs);
+  }
+
+}
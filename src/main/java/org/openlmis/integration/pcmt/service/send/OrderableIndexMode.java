@@ -0,0 +1,48 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.integration.pcmt.service.send;
+
+/**
+ * Defines when the send task retrieves all OpenLMIS orderables before it starts sending.
+ */
+public enum OrderableIndexMode {
+
+  /**
+   * Existing orderables are always retrieved while they are sent.
+   */
+  NEVER,
+
+  /**
+   * All orderables are retrieved only for runs that send the whole catalog, where most of them
+   * would be retrieved one by one anyway.
+   */
+  FULL_SYNC,
+
+  /**
+   * All orderables are retrieved for every run.
+   */
+  ALWAYS;
+
+  /**
+   * Checks if the index of orderables should be built for a run.
+   *
+   * @param fullSync if the run sends all products.
+   */
+  public boolean isEnabled(boolean fullSync) {
+    return this == ALWAYS || this == FULL_SYNC && fullSync;
+  }
+
+}
@@ -16,21 +16,35 @@
 package org.openlmis.integration.pcmt.service.send;
 
 import static org.springframework.http.HttpStatus.NOT_FOUND;
+import static org.springframework.http.HttpStatus.NOT_MODIFIED;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.time.Clock;
 import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
-import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 import org.apache.commons.lang3.builder.EqualsBuilder;
 import org.apache.commons.lang3.builder.HashCodeBuilder;
 import org.openlmis.integration.pcmt.domain.ExecutionResponse;
 import org.openlmis.integration.pcmt.domain.Integration;
-import org.openlmis.integration.pcmt.repository.ExecutionRepository;
+import org.openlmis.integration.pcmt.domain.IntegrationRun;
+import org.openlmis.integration.pcmt.service.DataRetrievalException;
+import org.openlmis.integration.pcmt.service.IntegrationPipeline;
+import org.openlmis.integration.pcmt.service.OrderableFingerprintService;
 import org.openlmis.integration.pcmt.service.auth.AuthService;
 import org.openlmis.integration.pcmt.service.referencedata.orderable.OrderableDto;
+import org.openlmis.integration.pcmt.service.referencedata.orderable.OrderableIndex;
+import org.openlmis.integration.pcmt.service.referencedata.orderable.OrderableReferenceDataService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpHeaders;
@@ -40,44 +54,80 @@ import org.springframework.http.MediaType;
 import org.springframework.http.RequestEntity;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestClientResponseException;
 import org.springframework.web.client.RestOperations;
 
+@SuppressWarnings("PMD.TooManyMethods")
 public class OrderableIntegrationSendTask extends IntegrationSendTask<OrderableDto> {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(OrderableIntegrationSendTask.class);
   private static final String API_PATH = "/api/orderables/";
+  private static final String NOT_CHANGED_MESSAGE =
+      "Orderable has not changed since the last version, the update has been skipped";
 
-  private final BlockingQueue<OrderableDto> queue;
+  private final IntegrationPipeline<OrderableDto> pipeline;
   private final Integration integration;
+  private final IntegrationRun run;
   private final UUID userId;
   private final String targetUrl;
   private final boolean manualExecution;
   private final ZonedDateTime executionTime;
 
-  private final ExecutionRepository executionRepository;
+  private final ExecutionRecorder executionRecorder;
   private final Clock clock;
   private final ObjectMapper objectMapper;
   private final RestOperations restTemplate;
   private final AuthService authService;
+  private final OrderableFingerprintService orderableFingerprintService;
+  private final int concurrentRequests;
+  private final OrderableReferenceDataService orderableReferenceDataService;
+  private final int lookupBatchSize;
+  private final int indexPageSize;
+
+  // all OpenLMIS orderables, built at the start of the run if the index is enabled
+  private volatile OrderableIndex orderableIndex;
+
+  // orderables that have been looked up for the current batches; empty if not in OpenLMIS
+  private final ConcurrentMap<UUID, Optional<OrderableDto>> resolvedOrderables =
+      new ConcurrentHashMap<>();
 
   /**
    * Constructor of OrderableIntegrationTask.
+   *
+   * @param concurrentRequests how many orderables can be sent to OpenLMIS at the same time.
+   *                           Value 1 means orderables are sent one after another.
+   * @param lookupBatchSize    how many waiting orderables can be looked up in OpenLMIS with a
+   *                           single request. Value 1 means each orderable is retrieved
+   *                           separately before it is sent.
+   * @param indexPageSize      if greater than 0, all OpenLMIS orderables are retrieved in pages
+   *                           of this size when the task starts and existing orderables are
+   *                           found in memory instead of being retrieved one by one.
    */
-  public OrderableIntegrationSendTask(BlockingQueue<OrderableDto> queue,
-      Integration integration, UUID userId, String targetUrl, boolean manualExecution,
-      ExecutionRepository executionRepository, Clock clock,
-      ObjectMapper objectMapper, AuthService authService, RestOperations restTemplate) {
-    this.queue = queue;
+  public OrderableIntegrationSendTask(IntegrationPipeline<OrderableDto> pipeline,
+      Integration integration, IntegrationRun run, UUID userId, String targetUrl,
+      boolean manualExecution,
+      ExecutionRecorder executionRecorder, Clock clock,
+      ObjectMapper objectMapper, AuthService authService, RestOperations restTemplate,
+      OrderableFingerprintService orderableFingerprintService, int concurrentRequests,
+      OrderableReferenceDataService orderableReferenceDataService, int lookupBatchSize,
+      int indexPageSize) {
+    this.pipeline = pipeline;
     this.integration = integration;
+    this.run = run;
     this.userId = userId;
     this.targetUrl = targetUrl;
     this.manualExecution = manualExecution;
-    this.executionRepository = executionRepository;
+    this.executionRecorder = executionRecorder;
     this.clock = clock;
     this.objectMapper = objectMapper;
     this.authService = authService;
     this.restTemplate = restTemplate;
+    this.orderableFingerprintService = orderableFingerprintService;
+    this.concurrentRequests = Math.max(1, concurrentRequests);
+    this.orderableReferenceDataService = orderableReferenceDataService;
+    this.lookupBatchSize = Math.max(1, lookupBatchSize);
+    this.indexPageSize = indexPageSize;
     this.executionTime = ZonedDateTime.now(getClock());
   }
 
@@ -113,8 +163,8 @@ public class OrderableIntegrationSendTask extends IntegrationSendTask<OrderableD
   }
 
   @Override
-  protected BlockingQueue<OrderableDto> getQueue() {
-    return queue;
+  protected IntegrationPipeline<OrderableDto> getPipeline() {
+    return pipeline;
   }
 
   @Override
@@ -122,6 +172,11 @@ public class OrderableIntegrationSendTask extends IntegrationSendTask<OrderableD
     return integration;
   }
 
+  @Override
+  protected IntegrationRun getRun() {
+    return run;
+  }
+
   @Override
   protected UUID getUserId() {
     return userId;
@@ -143,8 +198,13 @@ public class OrderableIntegrationSendTask extends IntegrationSendTask<OrderableD
   }
 
   @Override
-  protected ExecutionRepository getExecutionRepository() {
-    return executionRepository;
+  protected String getProductCode(OrderableDto entity) {
+    return entity.getProductCode();
+  }
+
+  @Override
+  protected ExecutionRecorder getExecutionRecorder() {
+    return executionRecorder;
   }
 
   @Override
@@ -157,18 +217,106 @@ public class OrderableIntegrationSendTask extends IntegrationSendTask<OrderableD
     return objectMapper;
   }
 
-  protected HttpHeaders createInitHeaders() {
+  @Override
+  protected int getConcurrentRequests() {
+    return concurrentRequests;
+  }
+
+  /**
+   * Orderables without id are created in OpenLMIS so they are ordered by the product code.
+   */
+  @Override
+  protected Object getOrderingKey(OrderableDto entity) {
+    return null == entity.getId() ? entity.getProductCode() : entity.getId();
+  }
+
+  /**
+   * Builds the index of all OpenLMIS orderables if it is enabled. If the orderables cannot be
+   * retrieved, they are looked up while they are sent.
+   */
+  @Override
+  protected void prepareRun() {
+    if (indexPageSize <= 0) {
+      return;
+    }
+
+    try {
+      orderableIndex = OrderableIndex.build(orderableReferenceDataService, indexPageSize);
+    } catch (DataRetrievalException | RestClientException exp) {
+      getLogger().warn("Could not build the index of OpenLMIS orderables, existing orderables "
+          + "will be retrieved while they are sent", exp);
+    }
+  }
+
+  @Override
+  protected int getBatchSize() {
+    return lookupBatchSize;
+  }
+
+  /**
+   * Checks which orderables from the batch already exist in OpenLMIS with a single search
+   * request, so they can be updated or created without retrieving each of them first. Orderables
+   * that occur more than once in the batch are retrieved separately, because the first change
+   * can create them. If the search fails, all orderables are retrieved separately.
+   */
+  @Override
+  protected void prepareBatch(List<OrderableDto> entities) {
+    if (null != orderableIndex) {
+      return;
+    }
+
+    Map<UUID, Long> occurrences = entities
+        .stream()
+        .map(OrderableDto::getId)
+        .filter(Objects::nonNull)
+        .collect(Collectors.groupingBy(Function.identity(), Collectors.counting()));
+
+    Set<UUID> ids = occurrences
+        .entrySet()
+        .stream()
+        .filter(entry -> entry.getValue() == 1)
+        .map(Map.Entry::getKey)
+        .collect(Collectors.toSet());
+
+    if (ids.size() < 2) {
+      // a search for one orderable is not cheaper than retrieving it
+      return;
+    }
+
+    try {
+      Map<UUID, OrderableDto> existing = orderableReferenceDataService.findByIds(ids);
+      ids.forEach(id -> resolvedOrderables.put(id, Optional.ofNullable(existing.get(id))));
+      getLogger().debug("Looked up {} orderables, {} of them exist in OpenLMIS",
+          ids.size(), existing.size());
+    } catch (DataRetrievalException | RestClientException exp) {
+      getLogger().warn("Could not look up {} orderables, each of them will be retrieved "
+          + "separately", ids.size(), exp);
+    }
+  }
+
+  protected HttpHeaders createInitHeaders(String token) {
     HttpHeaders headers = new HttpHeaders();
     headers.setContentType(MediaType.APPLICATION_JSON);
-    headers.set(HttpHeaders.AUTHORIZATION, "Bearer " + getToken());
+    headers.set(HttpHeaders.AUTHORIZATION, "Bearer " + token);
     return headers;
   }
 
   @Override
   protected ExecutionResponse send(OrderableDto entity) {
     try {
-      ResponseEntity<OrderableDto> response = tryToSend(entity);
+      ResponseEntity<OrderableDto> response = sendWithToken(entity);
+      orderableFingerprintService.saveFingerprint(entity);
+
+      if (HttpStatus.NOT_MODIFIED == response.getStatusCode()) {
+        getLogger().debug("Orderable with id {} has not changed", entity.getId());
+        return new ExecutionResponse(ZonedDateTime.now(getClock()), NOT_MODIFIED.value(),
+            NOT_CHANGED_MESSAGE);
+      }
+
       getLogger().debug("Updated Orderable with result code: {}", response.getStatusCode());
+      if (null != orderableIndex) {
+        orderableIndex.add(response.getBody());
+      }
       return new ExecutionResponse(ZonedDateTime.now(getClock()), response.getStatusCodeValue(),
           response.getBody().toString());
     } catch (RestClientResponseException e) {
@@ -188,13 +336,14 @@ public class OrderableIntegrationSendTask extends IntegrationSendTask<OrderableD
     return authService.obtainAccessToken();
   }
 
-  private RequestEntity<OrderableDto> initRequest(OrderableDto entity, URI uri) {
-    return new RequestEntity<>(entity, createInitHeaders(), HttpMethod.PUT, uri);
+  private RequestEntity<OrderableDto> initRequest(OrderableDto entity, URI uri, String token) {
+    return new RequestEntity<>(entity, createInitHeaders(token), HttpMethod.PUT, uri);
   }
 
-  private OrderableDto get(UUID entityId) throws URISyntaxException {
+  private OrderableDto get(UUID entityId, String token) throws URISyntaxException {
     URI uri = new URI(getTargetUrl() + API_PATH + entityId);
-    RequestEntity<OrderableDto> req = new RequestEntity<>(createInitHeaders(), HttpMethod.GET, uri);
+    RequestEntity<OrderableDto> req = new RequestEntity<>(createInitHeaders(token),
+        HttpMethod.GET, uri);
     ResponseEntity<OrderableDto> fetched;
     try {
       fetched = getRestTemplate().exchange(req, OrderableDto.class);
@@ -208,25 +357,67 @@ public class OrderableIntegrationSendTask extends IntegrationSendTask<OrderableD
     }
   }
 
-  private ResponseEntity<OrderableDto> update(OrderableDto entity) throws URISyntaxException {
+  private OrderableDto findExisting(OrderableDto entity, String token)
+      throws URISyntaxException {
+    if (null != orderableIndex) {
+      return orderableIndex.find(entity);
+    }
+
+    UUID entityId = entity.getId();
+    if (null != entityId && resolvedOrderables.containsKey(entityId)) {
+      return resolvedOrderables.remove(entityId).orElse(null);
+    }
+
+    return get(entityId, token);
+  }
+
+  private ResponseEntity<OrderableDto> update(OrderableDto entity, String token)
+      throws URISyntaxException {
     URI uri = new URI(getTargetUrl() + API_PATH + entity.getId());
-    RequestEntity<OrderableDto> req = initRequest(entity, uri);
+    RequestEntity<OrderableDto> req = initRequest(entity, uri, token);
     return getRestTemplate().exchange(req, OrderableDto.class);
   }
 
-  private ResponseEntity<OrderableDto> create(OrderableDto entity) throws URISyntaxException {
+  private ResponseEntity<OrderableDto> create(OrderableDto entity, String token)
+      throws URISyntaxException {
     URI uri = new URI(getTargetUrl() + API_PATH);
-    RequestEntity<OrderableDto> req = initRequest(entity, uri);
+    RequestEntity<OrderableDto> req = initRequest(entity, uri, token);
     return getRestTemplate().exchange(req, OrderableDto.class);
   }
 
-  private ResponseEntity<OrderableDto> tryToSend(OrderableDto entity) throws URISyntaxException {
-    OrderableDto dto = get(entity.getId());
+  private ResponseEntity<OrderableDto> sendWithToken(OrderableDto entity)
+      throws URISyntaxException {
+    String token = getToken();
+
+    try {
+      return tryToSend(entity, token);
+    } catch (HttpClientErrorException e) {
+      if (e.getStatusCode() != HttpStatus.UNAUTHORIZED) {
+        throw e;
+      }
+
+      getLogger().warn("OpenLMIS rejected the access token, the request will be retried");
+      authService.invalidateAccessToken(token);
+      return tryToSend(entity, getToken());
+    }
+  }
+
+  private ResponseEntity<OrderableDto> tryToSend(OrderableDto entity, String token)
+      throws URISyntaxException {
+    OrderableDto dto = findExisting(entity, token);
     if (dto != null) {
+      if (null == entity.getId()) {
+        // the orderable without id has been found in the index by its product code
+        entity.setId(dto.getId());
+      }
       entity.getPrograms().addAll(dto.getPrograms());
-      return update(entity);
+      if (!OrderableDiff.hasChanges(dto, entity)) {
+        // OpenLMIS would create a new version of the orderable with the same data
+        return new ResponseEntity<>(dto, HttpStatus.NOT_MODIFIED);
+      }
+      return update(entity, token);
     } else {
-      return create(entity);
+      return create(entity, token);
     }
   }
 }
@@ -0,0 +1,141 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.integration.pcmt.service.send;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import org.openlmis.integration.pcmt.domain.ExecutionResponse;
+import org.openlmis.integration.pcmt.service.IntegrationPipeline;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Sends entities of a single stripe. All entities with the same ordering key are sent by the same
+ * worker, so they reach the target system in the order in which they were fetched.
+ */
+public final class SendWorker<T> implements Runnable {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(SendWorker.class);
+  private static final int MIN_ERROR_STATUS = 400;
+
+  private final int number;
+  private final IntegrationPipeline<T> pipeline;
+  private final int batchSize;
+  private final Consumer<List<T>> batchPreparer;
+  private final Function<T, ExecutionResponse> sender;
+
+  private volatile long sentEntities;
+  private volatile long failedEntities;
+  private volatile long sendNanos;
+
+  SendWorker(int number, IntegrationPipeline<T> pipeline, int batchSize,
+      Consumer<List<T>> batchPreparer, Function<T, ExecutionResponse> sender) {
+    this.number = number;
+    this.pipeline = pipeline;
+    this.batchSize = Math.max(1, batchSize);
+    this.batchPreparer = batchPreparer;
+    this.sender = sender;
+  }
+
+  /**
+   * Sends entities from the worker pipeline until its stream ends.
+   */
+  @Override
+  public void run() {
+    try {
+      sendAll(pipeline);
+      pipeline.complete();
+    } catch (InterruptedException exp) {
+      Thread.currentThread().interrupt();
+      pipeline.fail(exp);
+    } catch (RuntimeException exp) {
+      LOGGER.error("Send worker {} has stopped", number, exp);
+      pipeline.fail(exp);
+    }
+  }
+
+  /**
+   * Sends entities from the given pipeline in the current thread until its stream ends. Entities
+   * that are already waiting in the pipeline are sent together as a batch, so the target system
+   * can be asked about all of them at once. The worker never waits for a batch to fill up.
+   */
+  void sendAll(IntegrationPipeline<T> source) throws InterruptedException {
+    List<T> batch = new ArrayList<>(batchSize);
+
+    for (T entity = source.take(); null != entity; entity = source.take()) {
+      batch.add(entity);
+      source.drainTo(batch, batchSize - 1);
+
+      batchPreparer.accept(batch);
+      batch.forEach(this::send);
+      batch.clear();
+    }
+  }
+
+  /**
+   * Sends the given entity in the current thread and updates the worker statistics.
+   */
+  private void send(T entity) {
+    long start = System.nanoTime();
+    try {
+      ExecutionResponse response = sender.apply(entity);
+      if (null != response && response.getStatusCode() >= MIN_ERROR_STATUS) {
+        failedEntities++;
+      }
+    } finally {
+      sendNanos += System.nanoTime() - start;
+      sentEntities++;
+    }
+  }
+
+  IntegrationPipeline<T> getPipeline() {
+    return pipeline;
+  }
+
+  long getSentEntities() {
+    return sentEntities;
+  }
+
+  /**
+   * Exports the current worker statistics.
+   */
+  public void export(Exporter exporter) {
+    long sent = sentEntities;
+
+    exporter.setNumber(number);
+    exporter.setSentEntities(sent);
+    exporter.setFailedEntities(failedEntities);
+    exporter.setAverageSendTime(0 == sent ? 0 : sendNanos / sent / 1_000_000);
+    exporter.setQueuedEntities(null == pipeline ? 0 : pipeline.size());
+  }
+
+  public interface Exporter {
+
+    void setNumber(int number);
+
+    void setSentEntities(long sentEntities);
+
+    void setFailedEntities(long failedEntities);
+
+    void setAverageSendTime(long averageSendTime);
+
+    void setQueuedEntities(int queuedEntities);
+
+  }
+
+}
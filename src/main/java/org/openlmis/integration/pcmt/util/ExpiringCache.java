@@ -0,0 +1,156 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.integration.pcmt.util;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Simple thread-safe cache in which values expire after a fixed time. When the cache is full,
+ * the least recently used value is removed. Expired values are removed when they are read.
+ * Null values are not cached.
+ */
+public final class ExpiringCache<K, V> {
+
+  // access-ordered, so the eldest entry is the least recently used one; guarded by itself
+  private final Map<K, Entry<V>> entries;
+
+  private final Clock clock;
+  private final Duration timeToLive;
+  private final int maxSize;
+
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+
+  /**
+   * Creates a cache in which values expire after the given time. At most the given number of
+   * values is kept.
+   */
+  public ExpiringCache(Clock clock, Duration timeToLive, int maxSize) {
+    this.clock = clock;
+    this.timeToLive = timeToLive;
+    this.maxSize = maxSize;
+    this.entries = new LinkedHashMap<K, Entry<V>>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+        return size() > ExpiringCache.this.maxSize;
+      }
+    };
+  }
+
+  /**
+   * Returns the cached value for the given key. If there is no valid value, it is retrieved with
+   * the given loader and cached. The loader is called without holding the lock of the cache, so
+   * concurrent misses for the same key may call it more than once and it should not have side
+   * effects.
+   */
+  public V get(K key, Function<K, V> loader) {
+    return get(key, loader, value -> null);
+  }
+
+  /**
+   * Returns the cached value for the given key like {@link #get(Object, Function)}. A retrieved
+   * value expires at the time returned by the given function if it is earlier than the time to
+   * live of the cache.
+   */
+  public V get(K key, Function<K, V> loader, Function<V, Instant> expiration) {
+    Instant now = clock.instant();
+
+    synchronized (entries) {
+      Entry<V> entry = entries.get(key);
+
+      if (null != entry) {
+        if (entry.isValid(now)) {
+          hits.incrementAndGet();
+          return entry.value;
+        }
+
+        entries.remove(key);
+      }
+    }
+
+    misses.incrementAndGet();
+    V value = loader.apply(key);
+
+    if (null != value && maxSize > 0) {
+      Instant expiresAt = now.plus(timeToLive);
+      Instant valueExpiresAt = expiration.apply(value);
+
+      if (null != valueExpiresAt && valueExpiresAt.isBefore(expiresAt)) {
+        expiresAt = valueExpiresAt;
+      }
+
+      synchronized (entries) {
+        entries.put(key, new Entry<>(value, expiresAt));
+      }
+    }
+
+    return value;
+  }
+
+  /**
+   * Removes the value cached for the given key.
+   */
+  public void invalidate(K key) {
+    synchronized (entries) {
+      entries.remove(key);
+    }
+  }
+
+  /**
+   * Returns how many values are cached, including expired values that have not been read since
+   * they expired.
+   */
+  public int size() {
+    synchronized (entries) {
+      return entries.size();
+    }
+  }
+
+  /**
+   * Returns how many times a value has been returned from the cache.
+   */
+  public long getHitCount() {
+    return hits.get();
+  }
+
+  /**
+   * Returns how many times a value has been retrieved with the loader.
+   */
+  public long getMissCount() {
+    return misses.get();
+  }
+
+  private static final class Entry<V> {
+    private final V value;
+    private final Instant expiresAt;
+
+    Entry(V value, Instant expiresAt) {
+      this.value = value;
+      this.expiresAt = expiresAt;
+    }
+
+    boolean isValid(Instant now) {
+      return expiresAt.isAfter(now);
+    }
+  }
+
+}
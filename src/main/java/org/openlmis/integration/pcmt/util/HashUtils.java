@@ -0,0 +1,55 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.integration.pcmt.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+public class HashUtils {
+
+  private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+  private HashUtils() {
+    throw new UnsupportedOperationException();
+  }
+
+  /**
+   * Calculates the SHA-256 digest of the given text encoded in UTF-8.
+   *
+   * @param value text to hash
+   * @return the digest as 64 lowercase hex characters.
+   */
+  public static String sha256Hex(String value) {
+    MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException exp) {
+      // every Java platform has to support SHA-256
+      throw new IllegalStateException(exp);
+    }
+
+    byte[] hash = digest.digest(value.getBytes(StandardCharsets.UTF_8));
+    char[] hex = new char[hash.length * 2];
+
+    for (int i = 0; i < hash.length; ++i) {
+      hex[2 * i] = HEX_DIGITS[(hash[i] >> 4) & 0xF];
+      hex[2 * i + 1] = HEX_DIGITS[hash[i] & 0xF];
+    }
+
+    return new String(hex);
+  }
+}
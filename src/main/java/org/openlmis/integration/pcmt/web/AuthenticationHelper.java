@@ -18,12 +18,17 @@ package org.openlmis.integration.pcmt.web;
 import static org.openlmis.integration.pcmt.i18n.MessageKeys.ERROR_RIGHT_NOT_FOUND;
 import static org.openlmis.integration.pcmt.i18n.MessageKeys.ERROR_USER_NOT_FOUND;
 
+import java.time.Clock;
+import java.time.Duration;
 import java.util.UUID;
+import javax.annotation.PostConstruct;
 import org.openlmis.integration.pcmt.service.referencedata.RightDto;
 import org.openlmis.integration.pcmt.service.referencedata.RightReferenceDataService;
 import org.openlmis.integration.pcmt.service.referencedata.UserDto;
 import org.openlmis.integration.pcmt.service.referencedata.UserReferenceDataService;
+import org.openlmis.integration.pcmt.util.ExpiringCache;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.oauth2.provider.OAuth2Authentication;
 import org.springframework.stereotype.Component;
@@ -37,9 +42,34 @@ class AuthenticationHelper {
   @Autowired
   private RightReferenceDataService rightReferenceDataService;
 
+  @Autowired
+  private Clock clock;
+
+  @Value("${auth.permissionCache.userTtlSeconds}")
+  private long userTtlSeconds;
+
+  @Value("${auth.permissionCache.rightTtlSeconds}")
+  private long rightTtlSeconds;
+
+  @Value("${auth.permissionCache.maxSize}")
+  private int maxSize;
+
+  private ExpiringCache<UUID, UserDto> users;
+
+  private ExpiringCache<String, RightDto> rights;
+
+  /**
+   * Creates caches of users and rights retrieved from the reference-data service.
+   */
+  @PostConstruct
+  void init() {
+    users = new ExpiringCache<>(clock, Duration.ofSeconds(userTtlSeconds), maxSize);
+    rights = new ExpiringCache<>(clock, Duration.ofSeconds(rightTtlSeconds), maxSize);
+  }
+
   /**
    * Method returns current user based on Spring context and fetches his data from reference-data
-   * service.
+   * service. Users are cached for a short time.
    *
    * @return UserDto entity of current user.
    * @throws AuthenticationException if user cannot be found.
@@ -51,7 +81,7 @@ class AuthenticationHelper {
 
     if (!authentication.isClientOnly()) {
       UUID userId = (UUID) authentication.getPrincipal();
-      user = userReferenceDataService.findOne(userId);
+      user = users.get(userId, userReferenceDataService::findOne);
 
       if (user == null) {
         throw new AuthenticationException(ERROR_USER_NOT_FOUND, userId.toString());
@@ -62,14 +92,15 @@ class AuthenticationHelper {
   }
 
   /**
-   * Method returns a correct right and fetches his data from reference-data service.
+   * Method returns a correct right and fetches his data from reference-data service. Rights
+   * rarely change, so they are cached for a long time.
    *
    * @param name right name
    * @return RightDto entity of right.
    * @throws AuthenticationException if right cannot be found.
    */
   RightDto getRight(String name) {
-    RightDto right = rightReferenceDataService.findRight(name);
+    RightDto right = rights.get(name, rightReferenceDataService::findRight);
 
     if (null == right) {
       throw new AuthenticationException(ERROR_RIGHT_NOT_FOUND, name);
@@ -77,4 +108,12 @@ class AuthenticationHelper {
 
     return right;
   }
+
+  ExpiringCache<UUID, UserDto> getUserCache() {
+    return users;
+  }
+
+  ExpiringCache<String, RightDto> getRightCache() {
+    return rights;
+  }
 }
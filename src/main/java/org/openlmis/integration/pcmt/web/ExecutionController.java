@@ -17,20 +17,39 @@ package org.openlmis.integration.pcmt.web;
 
 import static org.openlmis.integration.pcmt.web.ExecutionController.RESOURCE_PATH;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.EnumSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import javax.servlet.http.HttpServletResponse;
 import org.openlmis.integration.pcmt.domain.Execution;
+import org.openlmis.integration.pcmt.domain.ExecutionStatus;
+import org.openlmis.integration.pcmt.domain.ExecutionSummary;
 import org.openlmis.integration.pcmt.domain.Integration;
 import org.openlmis.integration.pcmt.exception.NotFoundException;
+import org.openlmis.integration.pcmt.exception.ValidationMessageException;
 import org.openlmis.integration.pcmt.i18n.MessageKeys;
 import org.openlmis.integration.pcmt.repository.ExecutionRepository;
 import org.openlmis.integration.pcmt.repository.IntegrationRepository;
+import org.openlmis.integration.pcmt.service.ExecutionRetentionService;
 import org.openlmis.integration.pcmt.service.IntegrationExecutionService;
 import org.openlmis.integration.pcmt.util.Pagination;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.format.annotation.DateTimeFormat.ISO;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.transaction.annotation.Transactional;
@@ -39,6 +58,7 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -51,6 +71,18 @@ public class ExecutionController extends BaseController {
   public static final String RESOURCE_PATH = API_PATH + "/integrationExecutions";
   public static final String ID_URL = "/{id}";
   public static final String REQUEST_URL = ID_URL + "/request";
+  public static final String HISTORY_URL = "/history";
+  public static final String EXPORT_URL = "/export";
+  public static final String RETENTION_URL = "/retention";
+
+  static final int DEFAULT_PAGE_SIZE = 50;
+  static final int MAX_PAGE_SIZE = 1000;
+
+  // exported periods are unbounded by default
+  private static final ZonedDateTime MIN_START_DATE =
+      ZonedDateTime.of(1970, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+  private static final ZonedDateTime MAX_START_DATE =
+      ZonedDateTime.of(9999, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
 
   @Autowired
   private PermissionService permissionService;
@@ -64,11 +96,18 @@ public class ExecutionController extends BaseController {
   @Autowired
   private ExecutionRepository executionRepository;
 
+  @Autowired
+  private ExecutionRetentionService executionRetentionService;
+
   @Autowired
   private AuthenticationHelper authenticationHelper;
 
+  @Autowired
+  private ObjectMapper objectMapper;
+
   /**
-   * This method is used to manual trigger Integration.
+   * This method is used to manual trigger Integration. By default only products updated since the
+   * last run are sent, the full resync can be requested with the fullSync flag.
    */
   @PostMapping
   @ResponseStatus(HttpStatus.ACCEPTED)
@@ -82,30 +121,127 @@ public class ExecutionController extends BaseController {
       throw new NotFoundException(MessageKeys.ERROR_INTEGRATION_NOT_FOUND);
     }
 
-    integrationService.integrate(userId, integration);
+    integrationService.integrate(userId, integration, manualIntegrationDto.isFullSync());
   }
 
   /**
    * Retrieves all historical executions. Note that an empty collection rather than a 404 should be
-   * returned if no historical executions exist.
+   * returned if no historical executions exist. Bodies are not returned, only the size of the
+   * stored response body is.
    *
-   * @param pageable define which page and how many records should be returned.
+   * @param pageable define which page and how many records should be returned. At most
+   *                 {@value #MAX_PAGE_SIZE} records are returned at once.
    */
   @GetMapping
-  public Page<ExecutionDto> getAllHistoricalExecutions(Pageable pageable) {
+  public Page<ExecutionDto> getAllHistoricalExecutions(
+      @PageableDefault(size = DEFAULT_PAGE_SIZE) Pageable pageable) {
     permissionService.canManagePcmt();
 
-    Page<Execution> page = executionRepository.findAll(pageable);
+    Pageable bounded = pageable.getPageSize() > MAX_PAGE_SIZE
+        ? new PageRequest(pageable.getPageNumber(), MAX_PAGE_SIZE, pageable.getSort())
+        : pageable;
+    Page<ExecutionSummary> page = executionRepository.findAllSummaries(bounded);
     List<ExecutionDto> content = page
         .getContent()
         .stream()
         .map(ExecutionDto::newInstance)
         .collect(Collectors.toList());
-    return Pagination.getPage(content, pageable, page.getTotalElements());
+    return Pagination.getPage(content, bounded, page.getTotalElements());
+  }
+
+  /**
+   * Retrieves historical executions ordered by start date and id, newest first. The first page is
+   * returned if no position is given, next pages are requested with the position returned with
+   * the previous page. Unlike the page number, the position does not make deep pages slower.
+   * Bodies are not returned, only the size of the stored response body is.
+   *
+   * @param size           how many records should be returned, at most
+   *                       {@value #MAX_PAGE_SIZE}.
+   * @param afterStartDate the start date of the last execution of the previous page.
+   * @param afterId        the id of the last execution of the previous page.
+   */
+  @GetMapping(HISTORY_URL)
+  public KeysetPage<ExecutionDto> getHistoricalExecutions(
+      @RequestParam(value = "size", required = false) Integer size,
+      @RequestParam(value = "afterStartDate", required = false)
+      @DateTimeFormat(iso = ISO.DATE_TIME) ZonedDateTime afterStartDate,
+      @RequestParam(value = "afterId", required = false) UUID afterId) {
+    permissionService.canManagePcmt();
+
+    if ((null == afterStartDate) != (null == afterId)) {
+      throw new ValidationMessageException(MessageKeys.ERROR_EXECUTION_KEYSET_INCOMPLETE);
+    }
+
+    int pageSize = null == size || size <= 0 ? DEFAULT_PAGE_SIZE : Math.min(size, MAX_PAGE_SIZE);
+    // one more record is retrieved to find out whether there is a next page
+    Pageable limit = new PageRequest(Pagination.DEFAULT_PAGE_NUMBER, pageSize + 1);
+
+    List<ExecutionSummary> executions = null == afterId
+        ? executionRepository.findLatestSummaries(limit)
+        : executionRepository.findSummariesBefore(afterStartDate, afterId, limit);
+    List<ExecutionDto> content = executions
+        .stream()
+        .map(ExecutionDto::newInstance)
+        .collect(Collectors.toList());
+    return KeysetPage.of(content, pageSize, ExecutionDto::getStartDate, ExecutionDto::getId);
+  }
+
+  /**
+   * Exports historical executions started in the given period, oldest first. Rows are written to
+   * the response as soon as they are read from the database cursor, so any number of executions
+   * can be exported without loading them into memory. Bodies are not exported, only the size of
+   * the stored response body is.
+   *
+   * @param format        CSV (default) or NDJSON with one execution per line.
+   * @param startDateFrom if set, only executions started at or after this date are exported.
+   * @param startDateTo   if set, only executions started before this date are exported.
+   * @param statuses      if set, only executions with one of these statuses are exported.
+   */
+  @GetMapping(EXPORT_URL)
+  @Transactional(readOnly = true)
+  public void exportHistoricalExecutions(
+      @RequestParam(value = "format", defaultValue = "CSV") ExecutionExportFormat format,
+      @RequestParam(value = "startDateFrom", required = false)
+      @DateTimeFormat(iso = ISO.DATE_TIME) ZonedDateTime startDateFrom,
+      @RequestParam(value = "startDateTo", required = false)
+      @DateTimeFormat(iso = ISO.DATE_TIME) ZonedDateTime startDateTo,
+      @RequestParam(value = "status", required = false) Set<ExecutionStatus> statuses,
+      HttpServletResponse response) throws IOException {
+    permissionService.canManagePcmt();
+
+    response.setContentType(format.getContentType());
+    response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+    response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+        "attachment; filename=executions." + format.getFileExtension());
+
+    try (Stream<ExecutionSummary> summaries = executionRepository.streamSummaries(
+        null == startDateFrom ? MIN_START_DATE : startDateFrom,
+        null == startDateTo ? MAX_START_DATE : startDateTo,
+        null == statuses || statuses.isEmpty()
+            ? EnumSet.allOf(ExecutionStatus.class)
+            : statuses);
+        ExecutionExportWriter writer = ExecutionExportWriter
+            .create(format, response.getWriter(), objectMapper)) {
+      Iterator<ExecutionSummary> iterator = summaries.iterator();
+
+      while (iterator.hasNext()) {
+        writer.write(iterator.next());
+      }
+    }
   }
 
   /**
-   * Retrieves the historical execution based on passed ID value.
+   * Retrieves the retention of the execution history together with the numbers of rows and bytes
+   * purged since the service started.
+   */
+  @GetMapping(RETENTION_URL)
+  public ExecutionRetentionDto getRetention() {
+    permissionService.canManagePcmt();
+    return ExecutionRetentionDto.newInstance(executionRetentionService);
+  }
+
+  /**
+   * Retrieves the historical execution based on passed ID value, including the response body.
    */
   @GetMapping(ID_URL)
   public ExecutionDto getSpecifiedHistoricalExecution(@PathVariable("id") UUID id) {
@@ -119,7 +255,9 @@ public class ExecutionController extends BaseController {
   }
 
   /**
-   * Retrieves the request that has been used with the given execution.
+   * Retrieves the request that has been used with the given execution. Requests are stored
+   * compressed and, depending on the retention settings, may not be kept for successful
+   * executions.
    */
   @GetMapping(value = REQUEST_URL, produces = MediaType.APPLICATION_JSON_VALUE)
   public String getExecutionRequest(@PathVariable("id") UUID id) {
@@ -130,6 +268,11 @@ public class ExecutionController extends BaseController {
       throw new NotFoundException(MessageKeys.ERROR_EXECUTION_NOT_FOUND);
     }
 
-    return execution.getRequestBody();
+    String requestBody = execution.getRequestBody();
+    if (null == requestBody) {
+      throw new NotFoundException(MessageKeys.ERROR_EXECUTION_REQUEST_NOT_RETAINED);
+    }
+
+    return requestBody;
   }
 }
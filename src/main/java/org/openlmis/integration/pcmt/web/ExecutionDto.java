@@ -29,6 +29,7 @@ import org.codehaus.jackson.annotate.JsonSetter;
 import org.openlmis.integration.pcmt.domain.Execution;
 import org.openlmis.integration.pcmt.domain.ExecutionResponse;
 import org.openlmis.integration.pcmt.domain.ExecutionStatus;
+import org.openlmis.integration.pcmt.domain.ExecutionSummary;
 
 
 /**
@@ -40,7 +41,8 @@ import org.openlmis.integration.pcmt.domain.ExecutionStatus;
 @AllArgsConstructor
 @EqualsAndHashCode(callSuper = true)
 @ToString(callSuper = true)
-public final class ExecutionDto extends BaseDto implements Execution.Exporter {
+public final class ExecutionDto extends BaseDto
+    implements Execution.Exporter, ExecutionSummary.Exporter {
 
   private boolean manualExecution;
   private ExecutionStatus status;
@@ -48,6 +50,9 @@ public final class ExecutionDto extends BaseDto implements Execution.Exporter {
   private ZonedDateTime startDate;
   private ZonedDateTime endDate;
   private UUID userId;
+  private int writtenEntities;
+  private int skippedEntities;
+  private UUID runId;
   private ExecutionResponseDto response;
 
   /**
@@ -60,12 +65,27 @@ public final class ExecutionDto extends BaseDto implements Execution.Exporter {
     return dto;
   }
 
+  /**
+   * Creates new instance based on the execution summary. The response body is not set, only its
+   * size is.
+   */
+  public static ExecutionDto newInstance(ExecutionSummary summary) {
+    ExecutionDto dto = new ExecutionDto();
+    summary.export(dto);
+    return dto;
+  }
+
   @Override
   public void setResponse(ExecutionResponse response) {
     this.response = new ExecutionResponseDto();
     response.export(this.response);
   }
 
+  @Override
+  public void setResponse(ZonedDateTime responseDate, int statusCode, Integer storedBodyBytes) {
+    this.response = new ExecutionResponseDto(responseDate, statusCode, null, storedBodyBytes);
+  }
+
   @JsonSetter("ExecutionResponseDto")
   public void setResponse(ExecutionResponseDto executionResponseDto) {
     this.response = executionResponseDto;
@@ -0,0 +1,106 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.integration.pcmt.web;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVPrinter;
+import org.openlmis.integration.pcmt.domain.ExecutionSummary;
+
+/**
+ * Writes execution summaries one by one in the chosen export format, so that rows can be written
+ * to the response as soon as they are read from the database. Closing the writer only flushes
+ * it, the target is left open.
+ */
+public abstract class ExecutionExportWriter implements Closeable {
+
+  static final String[] CSV_HEADER = {
+      "id", "manualExecution", "status", "description", "startDate", "endDate", "userId",
+      "writtenEntities", "skippedEntities", "runId", "responseDate", "statusCode", "storedBodyBytes"
+  };
+
+  /**
+   * Creates a writer of the given format that writes to the given target.
+   */
+  public static ExecutionExportWriter create(ExecutionExportFormat format, Writer target,
+      ObjectMapper objectMapper) throws IOException {
+    if (ExecutionExportFormat.NDJSON == format) {
+      return new NdjsonWriter(target, objectMapper);
+    }
+
+    return new CsvWriter(target);
+  }
+
+  public abstract void write(ExecutionSummary summary) throws IOException;
+
+  private static final class CsvWriter extends ExecutionExportWriter {
+
+    private final CSVPrinter printer;
+
+    CsvWriter(Writer target) throws IOException {
+      printer = new CSVPrinter(target, CSVFormat.DEFAULT.withHeader(CSV_HEADER));
+    }
+
+    @Override
+    public void write(ExecutionSummary summary) throws IOException {
+      printer.printRecord(summary.getId(), summary.isManualExecution(), summary.getStatus(),
+          summary.getDescription(), format(summary.getStartDate()),
+          format(summary.getEndDate()), summary.getUserId(), summary.getWrittenEntities(),
+          summary.getSkippedEntities(), summary.getRunId(), format(summary.getResponseDate()),
+          summary.getStatusCode(), summary.getStoredBodyBytes());
+    }
+
+    @Override
+    public void close() throws IOException {
+      printer.flush();
+    }
+
+    private String format(ZonedDateTime date) {
+      return null == date ? null : date.format(DateTimeFormatter.ISO_OFFSET_DATE_TIME);
+    }
+  }
+
+  private static final class NdjsonWriter extends ExecutionExportWriter {
+
+    private final Writer target;
+    private final ObjectWriter objectWriter;
+
+    NdjsonWriter(Writer target, ObjectMapper objectMapper) {
+      this.target = target;
+      // each record has to fit in a single line
+      this.objectWriter = objectMapper.writer().without(SerializationFeature.INDENT_OUTPUT);
+    }
+
+    @Override
+    public void write(ExecutionSummary summary) throws IOException {
+      target.write(objectWriter.writeValueAsString(ExecutionDto.newInstance(summary)));
+      target.write('\n');
+    }
+
+    @Override
+    public void close() throws IOException {
+      target.flush();
+    }
+  }
+
+}
@@ -19,6 +19,8 @@ import static org.openlmis.integration.pcmt.web.ExecutionQueueController.RESOURC
 
 import java.util.Set;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.openlmis.integration.pcmt.service.IntegrationExecutionService;
 import org.openlmis.integration.pcmt.service.send.IntegrationSendExecutor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.transaction.annotation.Transactional;
@@ -40,16 +42,19 @@ public class ExecutionQueueController extends BaseController {
   @Autowired
   private IntegrationSendExecutor integrationSendExecutor;
 
+  @Autowired
+  private IntegrationExecutionService integrationExecutionService;
+
   /**
-   * Retrieves executions from the execution queue.
-   * @return
+   * Retrieves executions from the execution queue together with executions that are running at
+   * the moment. Running executions contain throughput statistics of their send workers.
    */
   @GetMapping
   public Set<PostPayloadTaskDto> getExecutionsInQueue() {
     permissionService.canManagePcmt();
-    return integrationSendExecutor
-        .getQueueItems()
-        .stream()
+    return Stream
+        .concat(integrationExecutionService.getRunningSendTasks().stream(),
+            integrationSendExecutor.getQueueItems().stream())
         .map(PostPayloadTaskDto::newInstance)
         .collect(Collectors.toSet());
   }
@@ -40,6 +40,7 @@ public final class ExecutionResponseDto implements ExecutionResponse.Exporter {
   private ZonedDateTime responseDate;
   private int statusCode;
   private String body;
+  private Integer storedBodyBytes;
 
   /**
    * Creates new instance based on domain object.
@@ -0,0 +1,143 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.integration.pcmt.web;
+
+import static org.openlmis.integration.pcmt.web.ExecutionController.DEFAULT_PAGE_SIZE;
+import static org.openlmis.integration.pcmt.web.ExecutionController.MAX_PAGE_SIZE;
+import static org.openlmis.integration.pcmt.web.IntegrationRunController.RESOURCE_PATH;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import org.openlmis.integration.pcmt.domain.IntegrationRun;
+import org.openlmis.integration.pcmt.domain.IntegrationRunItem;
+import org.openlmis.integration.pcmt.exception.NotFoundException;
+import org.openlmis.integration.pcmt.i18n.MessageKeys;
+import org.openlmis.integration.pcmt.repository.IntegrationRunItemRepository;
+import org.openlmis.integration.pcmt.repository.IntegrationRunRepository;
+import org.openlmis.integration.pcmt.util.Pagination;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort.Direction;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@Transactional(readOnly = true)
+@RestController
+@RequestMapping(RESOURCE_PATH)
+public class IntegrationRunController extends BaseController {
+
+  public static final String RESOURCE_PATH = API_PATH + "/integrationRuns";
+  public static final String ID_URL = "/{id}";
+  public static final String ITEMS_URL = ID_URL + "/items";
+
+  @Autowired
+  private PermissionService permissionService;
+
+  @Autowired
+  private IntegrationRunRepository integrationRunRepository;
+
+  @Autowired
+  private IntegrationRunItemRepository integrationRunItemRepository;
+
+  /**
+   * Retrieves integration runs with their aggregated results, without results of single
+   * products. The newest runs are returned first unless another sort is requested.
+   *
+   * @param integrationId if set, only runs of the given integration are returned.
+   * @param pageable      define which page and how many records should be returned. At most
+   *                      {@value ExecutionController#MAX_PAGE_SIZE} records are returned at once.
+   */
+  @GetMapping
+  public Page<IntegrationRunDto> getIntegrationRuns(
+      @RequestParam(value = "integrationId", required = false) UUID integrationId,
+      @PageableDefault(size = DEFAULT_PAGE_SIZE, sort = {"startDate", "id"},
+          direction = Direction.DESC) Pageable pageable) {
+    permissionService.canManagePcmt();
+
+    Pageable bounded = limitPageSize(pageable);
+    Page<IntegrationRun> page = null == integrationId
+        ? integrationRunRepository.findAll(bounded)
+        : integrationRunRepository.findByIntegrationId(integrationId, bounded);
+    List<IntegrationRunDto> content = page
+        .getContent()
+        .stream()
+        .map(IntegrationRunDto::newInstance)
+        .collect(Collectors.toList());
+    return Pagination.getPage(content, bounded, page.getTotalElements());
+  }
+
+  /**
+   * Retrieves the integration run based on passed ID value.
+   */
+  @GetMapping(ID_URL)
+  public IntegrationRunDto getIntegrationRun(@PathVariable("id") UUID id) {
+    permissionService.canManagePcmt();
+
+    return IntegrationRunDto.newInstance(findRun(id));
+  }
+
+  /**
+   * Retrieves results of products sent in the given integration run. Results are sorted by the
+   * product code unless another sort is requested.
+   *
+   * @param statusCode if set, only results with the given response status are returned.
+   * @param pageable   define which page and how many records should be returned. At most
+   *                   {@value ExecutionController#MAX_PAGE_SIZE} records are returned at once.
+   */
+  @GetMapping(ITEMS_URL)
+  public Page<IntegrationRunItemDto> getIntegrationRunItems(@PathVariable("id") UUID id,
+      @RequestParam(value = "statusCode", required = false) Integer statusCode,
+      @PageableDefault(size = DEFAULT_PAGE_SIZE, sort = {"productCode", "id"})
+          Pageable pageable) {
+    permissionService.canManagePcmt();
+
+    IntegrationRun run = findRun(id);
+    Pageable bounded = limitPageSize(pageable);
+    Page<IntegrationRunItem> page = null == statusCode
+        ? integrationRunItemRepository.findByRunId(run.getId(), bounded)
+        : integrationRunItemRepository.findByRunIdAndStatusCode(run.getId(), statusCode,
+            bounded);
+    List<IntegrationRunItemDto> content = page
+        .getContent()
+        .stream()
+        .map(IntegrationRunItemDto::newInstance)
+        .collect(Collectors.toList());
+    return Pagination.getPage(content, bounded, page.getTotalElements());
+  }
+
+  private Pageable limitPageSize(Pageable pageable) {
+    return pageable.getPageSize() > MAX_PAGE_SIZE
+        ? new PageRequest(pageable.getPageNumber(), MAX_PAGE_SIZE, pageable.getSort())
+        : pageable;
+  }
+
+  private IntegrationRun findRun(UUID id) {
+    IntegrationRun run = integrationRunRepository.findOne(id);
+    if (null == run) {
+      throw new NotFoundException(MessageKeys.ERROR_INTEGRATION_RUN_NOT_FOUND);
+    }
+
+    return run;
+  }
+}
@@ -0,0 +1,61 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.integration.pcmt.web;
+
+import java.time.ZonedDateTime;
+import java.util.UUID;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+import org.openlmis.integration.pcmt.domain.ExecutionStatus;
+import org.openlmis.integration.pcmt.domain.IntegrationRun;
+import org.openlmis.integration.pcmt.domain.IntegrationRunTrigger;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode(callSuper = true)
+@ToString(callSuper = true)
+public final class IntegrationRunDto extends BaseDto implements IntegrationRun.Exporter {
+
+  private UUID integrationId;
+  private IntegrationRunTrigger triggerType;
+  private UUID userId;
+  private boolean fullSync;
+  private ExecutionStatus status;
+  private ZonedDateTime startDate;
+  private ZonedDateTime endDate;
+  private int writtenEntities;
+  private int skippedEntities;
+  private int failedEntities;
+  private int unchangedEntities;
+
+  /**
+   * Creates new instance based on domain object.
+   */
+  public static IntegrationRunDto newInstance(IntegrationRun run) {
+    IntegrationRunDto dto = new IntegrationRunDto();
+    run.export(dto);
+    return dto;
+  }
+
+}
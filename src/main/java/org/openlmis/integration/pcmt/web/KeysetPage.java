@@ -0,0 +1,63 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.integration.pcmt.web;
+
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Function;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * A page of records ordered by start date and id, newest first. Instead of a page number the next
+ * page is requested with the start date and id of the last record of this page, so the database
+ * seeks directly to the next record however deep the client pages.
+ */
+@Getter
+@EqualsAndHashCode
+@ToString
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public final class KeysetPage<T> {
+
+  private final List<T> content;
+  private final int size;
+  private final int numberOfElements;
+  private final boolean last;
+  private final ZonedDateTime nextStartDate;
+  private final UUID nextId;
+
+  /**
+   * Creates a page from records retrieved with a limit one greater than the page size. The extra
+   * record is not returned, it only shows that there is a next page.
+   */
+  public static <T> KeysetPage<T> of(List<T> records, int size,
+      Function<T, ZonedDateTime> startDate, Function<T, UUID> id) {
+    if (records.size() <= size) {
+      return new KeysetPage<>(records, size, records.size(), true, null, null);
+    }
+
+    List<T> content = records.subList(0, size);
+    T lastRecord = content.get(size - 1);
+
+    return new KeysetPage<>(content, size, size, false,
+        startDate.apply(lastRecord), id.apply(lastRecord));
+  }
+
+}
@@ -37,5 +37,6 @@ public final class ManualIntegrationDto {
    */
   private UUID integrationId;
   private String description;
+  private boolean fullSync;
 
 }
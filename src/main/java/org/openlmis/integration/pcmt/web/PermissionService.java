@@ -17,10 +17,19 @@ package org.openlmis.integration.pcmt.web;
 
 import static org.apache.commons.lang3.BooleanUtils.isNotTrue;
 
+import java.time.Clock;
+import java.time.Duration;
+import java.util.UUID;
+import javax.annotation.PostConstruct;
+import lombok.EqualsAndHashCode;
+import lombok.RequiredArgsConstructor;
 import org.openlmis.integration.pcmt.service.ResultDto;
 import org.openlmis.integration.pcmt.service.referencedata.RightDto;
 import org.openlmis.integration.pcmt.service.referencedata.UserDto;
 import org.openlmis.integration.pcmt.service.referencedata.UserReferenceDataService;
+import org.openlmis.integration.pcmt.util.ExpiringCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -30,6 +39,8 @@ import org.springframework.stereotype.Service;
 @Service
 class PermissionService {
 
+  private static final Logger LOGGER = LoggerFactory.getLogger(PermissionService.class);
+
   private static final String PCMT_MANAGEMENT = "PCMT_MANAGEMENT";
 
   @Autowired
@@ -38,9 +49,28 @@ class PermissionService {
   @Autowired
   private UserReferenceDataService userReferenceDataService;
 
+  @Autowired
+  private Clock clock;
+
   @Value("${auth.server.olmisClientId}")
   private String serviceTokenClientId;
 
+  @Value("${auth.permissionCache.decisionTtlSeconds}")
+  private long decisionTtlSeconds;
+
+  @Value("${auth.permissionCache.maxSize}")
+  private int maxSize;
+
+  private ExpiringCache<Permission, Boolean> decisions;
+
+  /**
+   * Creates the cache of permission decisions retrieved from the reference-data service.
+   */
+  @PostConstruct
+  void init() {
+    decisions = new ExpiringCache<>(clock, Duration.ofSeconds(decisionTtlSeconds), maxSize);
+  }
+
   void canManagePcmt() {
     if (hasNoPermission(PCMT_MANAGEMENT, true)) {
       throw new MissingPermissionException(PCMT_MANAGEMENT);
@@ -66,11 +96,21 @@ class PermissionService {
   private boolean isNotValidUserToken(String rightName) {
     UserDto user = authenticationHelper.getCurrentUser();
     RightDto right = authenticationHelper.getRight(rightName);
+    Boolean hasRight = decisions.get(new Permission(user.getId(), right.getId()),
+        this::hasRight);
+
+    return isNotTrue(hasRight);
+  }
+
+  private Boolean hasRight(Permission permission) {
     ResultDto<Boolean> result = userReferenceDataService.hasRight(
-        user.getId(), right.getId(), null, null, null
+        permission.userId, permission.rightId, null, null, null
     );
 
-    return null == result || isNotTrue(result.getResult());
+    LOGGER.debug("Checked permission in reference-data (decision cache hits: {}, misses: {})",
+        decisions.getHitCount(), decisions.getMissCount());
+
+    return null == result ? null : result.getResult();
   }
 
   private boolean isNotValidServiceToken(OAuth2Authentication authentication) {
@@ -78,4 +118,15 @@ class PermissionService {
     return !serviceTokenClientId.equals(clientId);
   }
 
+  ExpiringCache<Permission, Boolean> getDecisionCache() {
+    return decisions;
+  }
+
+  @EqualsAndHashCode
+  @RequiredArgsConstructor
+  static final class Permission {
+    private final UUID userId;
+    private final UUID rightId;
+  }
+
 }
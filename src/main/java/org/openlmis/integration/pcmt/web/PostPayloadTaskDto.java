@@ -16,7 +16,9 @@
 package org.openlmis.integration.pcmt.web;
 
 import java.time.ZonedDateTime;
+import java.util.List;
 import java.util.UUID;
+import java.util.stream.Collectors;
 import lombok.AllArgsConstructor;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
@@ -35,6 +37,11 @@ public final class PostPayloadTaskDto implements IntegrationSendTask.Exporter {
   private ZonedDateTime executionTime;
   private UUID userId;
   private String description;
+  private boolean running;
+  private int queuedEntities;
+  private int queueCapacity;
+  private long fetchWaitTime;
+  private List<SendWorkerDto> workers;
 
   /**
    * Creates new instance based on {@link IntegrationSendTask} object.
@@ -42,6 +49,11 @@ public final class PostPayloadTaskDto implements IntegrationSendTask.Exporter {
   public static PostPayloadTaskDto newInstance(IntegrationSendTask<?> task) {
     PostPayloadTaskDto dto = new PostPayloadTaskDto();
     task.export(dto);
+    dto.setWorkers(task
+        .getWorkers()
+        .stream()
+        .map(SendWorkerDto::newInstance)
+        .collect(Collectors.toList()));
 
     return dto;
   }
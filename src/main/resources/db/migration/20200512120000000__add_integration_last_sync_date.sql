@@ -0,0 +1 @@
+ALTER TABLE integrations ADD COLUMN lastSyncDate TIMESTAMP WITH TIME ZONE;
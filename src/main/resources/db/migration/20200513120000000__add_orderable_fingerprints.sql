@@ -0,0 +1,6 @@
+CREATE TABLE orderable_fingerprints (
+  id UUID NOT NULL,
+  fingerprint TEXT NOT NULL,
+  lastSentDate TIMESTAMP WITH TIME ZONE NOT NULL,
+  CONSTRAINT orderable_fingerprint_pkey PRIMARY KEY (id)
+);
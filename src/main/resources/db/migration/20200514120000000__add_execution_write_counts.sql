@@ -0,0 +1,2 @@
+ALTER TABLE executions ADD COLUMN writtenEntities INTEGER NOT NULL DEFAULT 0;
+ALTER TABLE executions ADD COLUMN skippedEntities INTEGER NOT NULL DEFAULT 0;
@@ -0,0 +1,37 @@
+CREATE TABLE integration_runs (
+  id UUID NOT NULL,
+  integrationId UUID NOT NULL,
+  triggerType TEXT NOT NULL,
+  userId UUID,
+  fullSync BOOLEAN NOT NULL,
+  status TEXT NOT NULL,
+  startDate TIMESTAMP WITH TIME ZONE NOT NULL,
+  endDate TIMESTAMP WITH TIME ZONE,
+  writtenEntities INTEGER NOT NULL DEFAULT 0,
+  skippedEntities INTEGER NOT NULL DEFAULT 0,
+  failedEntities INTEGER NOT NULL DEFAULT 0,
+  CONSTRAINT integration_run_pkey PRIMARY KEY (id)
+);
+
+CREATE INDEX integration_run_startdate_idx ON integration_runs(startDate);
+CREATE INDEX integration_run_integration_startdate_idx
+  ON integration_runs(integrationId, startDate);
+
+CREATE TABLE integration_run_items (
+  id UUID NOT NULL,
+  runId UUID NOT NULL,
+  productId UUID,
+  productCode TEXT,
+  statusCode INT,
+  durationMillis BIGINT NOT NULL,
+  errorMessage TEXT,
+  CONSTRAINT integration_run_item_pkey PRIMARY KEY (id),
+  CONSTRAINT integration_run_item_run_fkey FOREIGN KEY (runId) REFERENCES integration_runs(id)
+    ON DELETE CASCADE
+);
+
+CREATE INDEX integration_run_item_run_statuscode_idx ON integration_run_items(runId, statusCode);
+
+ALTER TABLE executions ADD COLUMN runId UUID;
+
+CREATE INDEX execution_runid_idx ON executions(runId);
@@ -0,0 +1,5 @@
+-- bodies saved before are kept as plain UTF-8 bytes, new bodies are compressed by the service
+ALTER TABLE executions ALTER COLUMN requestBody TYPE BYTEA USING convert_to(requestBody, 'UTF8');
+
+ALTER TABLE execution_responses ALTER COLUMN body DROP NOT NULL;
+ALTER TABLE execution_responses ALTER COLUMN body TYPE BYTEA USING convert_to(body, 'UTF8');
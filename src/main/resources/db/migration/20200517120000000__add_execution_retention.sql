@@ -0,0 +1,8 @@
+-- executions are purged oldest first in small batches by the retention job
+CREATE INDEX execution_startdate_idx ON executions(startDate);
+
+-- rows are deleted continuously, so dead tuples are vacuumed earlier than by default
+ALTER TABLE executions SET (autovacuum_vacuum_scale_factor = 0.05);
+ALTER TABLE execution_responses SET (autovacuum_vacuum_scale_factor = 0.05);
+ALTER TABLE integration_runs SET (autovacuum_vacuum_scale_factor = 0.05);
+ALTER TABLE integration_run_items SET (autovacuum_vacuum_scale_factor = 0.05);
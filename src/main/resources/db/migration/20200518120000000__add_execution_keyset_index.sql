@@ -0,0 +1,5 @@
+-- the execution history is paged by seeking to the next (startDate, id) pair
+CREATE INDEX execution_startdate_id_idx ON executions(startDate, id);
+
+-- the new index also serves the retention purge that only filters by startDate
+DROP INDEX execution_startdate_idx;
@@ -0,0 +1 @@
+ALTER TABLE integration_runs ADD COLUMN unchangedEntities INTEGER NOT NULL DEFAULT 0;
@@ -0,0 +1,60 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.integration.pcmt.domain;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import org.apache.commons.lang3.StringUtils;
+import org.junit.Test;
+
+public class CompressedTextConverterTest {
+
+  private static final String LONG_TEXT = "{\"productCode\": \"C100\", \"description\": \""
+      + StringUtils.repeat("Paracetamol 500mg ", 50) + "\"}";
+
+  private CompressedTextConverter converter = new CompressedTextConverter();
+
+  @Test
+  public void shouldCompressLongText() {
+    byte[] data = converter.convertToDatabaseColumn(LONG_TEXT);
+
+    assertThat(data.length).isLessThan(LONG_TEXT.length() / 4);
+    assertThat(converter.convertToEntityAttribute(data)).isEqualTo(LONG_TEXT);
+  }
+
+  @Test
+  public void shouldStoreShortTextWithoutCompression() {
+    byte[] data = converter.convertToDatabaseColumn("ok");
+
+    assertThat(data).isEqualTo("ok".getBytes(StandardCharsets.UTF_8));
+    assertThat(converter.convertToEntityAttribute(data)).isEqualTo("ok");
+  }
+
+  @Test
+  public void shouldReadTextSavedBeforeCompression() {
+    byte[] data = LONG_TEXT.getBytes(StandardCharsets.UTF_8);
+
+    assertThat(converter.convertToEntityAttribute(data)).isEqualTo(LONG_TEXT);
+  }
+
+  @Test
+  public void shouldKeepNullValues() {
+    assertThat(converter.convertToDatabaseColumn(null)).isNull();
+    assertThat(converter.convertToEntityAttribute(null)).isNull();
+  }
+
+}
@@ -0,0 +1,61 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.integration.pcmt.domain;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import nl.jqno.equalsverifier.EqualsVerifier;
+import org.junit.Test;
+import org.openlmis.integration.pcmt.ToStringTestUtils;
+import org.openlmis.integration.pcmt.testbuilder.ExecutionDataBuilder;
+import org.openlmis.integration.pcmt.web.ExecutionDto;
+
+public class ExecutionSummaryTest {
+
+  @Test
+  public void equalsContract() {
+    EqualsVerifier
+        .forClass(ExecutionSummary.class)
+        .verify();
+  }
+
+  @Test
+  public void shouldImplementToString() {
+    ToStringTestUtils.verify(ExecutionSummary.class,
+        new ExecutionDataBuilder().buildAsSummary());
+  }
+
+  @Test
+  public void shouldExportResponseWithoutBody() {
+    ExecutionSummary summary = new ExecutionDataBuilder().buildAsSummary();
+
+    ExecutionDto dto = ExecutionDto.newInstance(summary);
+
+    assertThat(dto.getId()).isEqualTo(summary.getId());
+    assertThat(dto.getStartDate()).isEqualTo(summary.getStartDate());
+    assertThat(dto.getStatus()).isEqualTo(summary.getStatus());
+    assertThat(dto.getResponse().getStatusCode()).isEqualTo(summary.getStatusCode());
+    assertThat(dto.getResponse().getStoredBodyBytes()).isEqualTo(summary.getStoredBodyBytes());
+    assertThat(dto.getResponse().getBody()).isNull();
+  }
+
+  @Test
+  public void shouldNotExportResponseIfThereIsNone() {
+    ExecutionSummary summary = new ExecutionDataBuilder().withoutResponse().buildAsSummary();
+
+    assertThat(ExecutionDto.newInstance(summary).getResponse()).isNull();
+  }
+}
@@ -35,6 +35,7 @@ import org.openlmis.integration.pcmt.ToStringTestUtils;
 import org.openlmis.integration.pcmt.testbuilder.ExecutionResponseDataBuilder;
 import org.openlmis.integration.pcmt.testbuilder.IntegrationDataBuilder;
 
+@SuppressWarnings("PMD.TooManyMethods")
 public class ExecutionTest {
 
   private static final Integration INTEGRATION = new IntegrationDataBuilder().build();
@@ -142,6 +143,83 @@ public class ExecutionTest {
     assertThat(exporter.getStatus()).isEqualTo(ExecutionStatus.SUCCESS);
   }
 
+  @Test
+  public void shouldMarkExecutionOfRunAsDone() {
+    // given
+    IntegrationRun run = IntegrationRun.forAutomaticExecution(INTEGRATION, false, CLOCK);
+    run.addItem(null, null, new ExecutionResponse(END_DATE, 201, "created"), 0);
+    run.addItem(null, null, new ExecutionResponse(END_DATE, 304, "not modified"), 0);
+    run.addItem(null, null, new ExecutionResponse(END_DATE, 200, "updated"), 0);
+    run.addUnchangedItems(2);
+    run.finish(true, CLOCK);
+    Execution execution = Execution.forAutomaticExecution(INTEGRATION, CLOCK);
+
+    // when
+    execution.markAsDone(run, CLOCK);
+
+    // then
+    assertThat(execution.getEndDate()).isEqualTo(ZonedDateTime.now(CLOCK));
+    assertThat(execution.getStatus()).isEqualTo(ExecutionStatus.SUCCESS);
+    assertThat(execution.getWrittenEntities()).isEqualTo(2);
+    assertThat(execution.getSkippedEntities()).isEqualTo(3);
+  }
+
+  @Test
+  public void shouldCountWrittenAndSkippedEntities() {
+    // given
+    Execution written = Execution.forAutomaticExecution(INTEGRATION, CLOCK);
+    Execution skipped = Execution.forAutomaticExecution(INTEGRATION, CLOCK);
+    Execution failed = Execution.forAutomaticExecution(INTEGRATION, CLOCK);
+
+    // when
+    written.markAsDone(new ExecutionResponse(END_DATE, 201, "created"), CLOCK);
+    skipped.markAsDone(new ExecutionResponse(END_DATE, 304, "not modified"), CLOCK);
+    failed.markAsDone(new ExecutionResponse(END_DATE, 500, "error"), CLOCK);
+
+    // then
+    assertThat(written.getWrittenEntities()).isEqualTo(1);
+    assertThat(written.getSkippedEntities()).isZero();
+    assertThat(skipped.getWrittenEntities()).isZero();
+    assertThat(skipped.getSkippedEntities()).isEqualTo(1);
+    assertThat(skipped.getStatus()).isEqualTo(ExecutionStatus.SUCCESS);
+    assertThat(failed.getWrittenEntities()).isZero();
+    assertThat(failed.getSkippedEntities()).isZero();
+  }
+
+  @Test
+  public void shouldDiscardBodies() {
+    // given
+    Execution execution = Execution.forAutomaticExecution(INTEGRATION, CLOCK);
+    execution.setRequestBody("{}");
+    execution.markAsDone(new ExecutionResponse(END_DATE, 200, "ok"), CLOCK);
+
+    // when
+    execution.discardBodies();
+
+    // then
+    assertThat(execution.getRequestBody()).isNull();
+    assertThat(execution.getResponse().getBody()).isNull();
+    assertThat(execution.getResponse().getStatusCode()).isEqualTo(200);
+    assertThat(execution.getStatus()).isEqualTo(ExecutionStatus.SUCCESS);
+  }
+
+  @Test
+  public void shouldLinkExecutionWithRun() {
+    // given
+    Execution execution = Execution.forAutomaticExecution(INTEGRATION, CLOCK);
+    IntegrationRun run = IntegrationRun.forAutomaticExecution(INTEGRATION, false, CLOCK);
+    run.setId(UUID.randomUUID());
+
+    // when
+    execution.setRun(run);
+
+    // then
+    TestExecution exporter = new TestExecution();
+    execution.export(exporter);
+
+    assertThat(exporter.getRunId()).isEqualTo(run.getId());
+  }
+
   @Test
   public void shouldExportWithoutResponse() {
     // given
@@ -202,6 +280,9 @@ public class ExecutionTest {
     private ZonedDateTime endDate;
     private UUID userId;
     private TestExecutionResponse response;
+    private int writtenEntities;
+    private int skippedEntities;
+    private UUID runId;
 
     @Override
     public void setResponse(ExecutionResponse response) {
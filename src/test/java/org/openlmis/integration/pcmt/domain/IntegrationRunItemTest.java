@@ -0,0 +1,83 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.integration.pcmt.domain;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Clock;
+import java.time.ZonedDateTime;
+import java.util.UUID;
+import lombok.Getter;
+import lombok.Setter;
+import nl.jqno.equalsverifier.EqualsVerifier;
+import nl.jqno.equalsverifier.Warning;
+import org.junit.Test;
+import org.openlmis.integration.pcmt.ToStringTestUtils;
+import org.openlmis.integration.pcmt.testbuilder.IntegrationRunDataBuilder;
+
+public class IntegrationRunItemTest {
+
+  @Test
+  public void equalsContract() {
+    EqualsVerifier
+        .forClass(IntegrationRunItem.class)
+        .withRedefinedSuperclass()
+        .suppress(Warning.NONFINAL_FIELDS)
+        .verify();
+  }
+
+  @Test
+  public void shouldImplementToString() {
+    ToStringTestUtils.verify(IntegrationRunItem.class, new IntegrationRunItem(), "ERROR_LENGTH");
+  }
+
+  @Test
+  public void shouldExportCurrentState() {
+    // given
+    IntegrationRun run = new IntegrationRunDataBuilder().buildAsAutomatic();
+    UUID productId = UUID.randomUUID();
+    IntegrationRunItem item = run.addItem(productId, "C100",
+        new ExecutionResponse(ZonedDateTime.now(Clock.systemUTC()), 404, "not found"), 20);
+    item.setId(UUID.randomUUID());
+
+    // when
+    TestIntegrationRunItem exporter = new TestIntegrationRunItem();
+    item.export(exporter);
+
+    // then
+    assertThat(exporter.getId()).isEqualTo(item.getId());
+    assertThat(exporter.getRunId()).isEqualTo(run.getId());
+    assertThat(exporter.getProductId()).isEqualTo(productId);
+    assertThat(exporter.getProductCode()).isEqualTo("C100");
+    assertThat(exporter.getStatusCode()).isEqualTo(404);
+    assertThat(exporter.getDurationMillis()).isEqualTo(20);
+    assertThat(exporter.getErrorMessage()).isEqualTo("not found");
+  }
+
+  @Getter
+  @Setter
+  private static final class TestIntegrationRunItem implements IntegrationRunItem.Exporter {
+
+    private UUID id;
+    private UUID runId;
+    private UUID productId;
+    private String productCode;
+    private Integer statusCode;
+    private long durationMillis;
+    private String errorMessage;
+  }
+
+}
@@ -0,0 +1,239 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.integration.pcmt.domain;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.UUID;
+import lombok.Getter;
+import lombok.Setter;
+import nl.jqno.equalsverifier.EqualsVerifier;
+import nl.jqno.equalsverifier.Warning;
+import org.apache.commons.lang3.StringUtils;
+import org.junit.Test;
+import org.openlmis.integration.pcmt.ToStringTestUtils;
+import org.openlmis.integration.pcmt.testbuilder.IntegrationDataBuilder;
+
+@SuppressWarnings("PMD.TooManyMethods")
+public class IntegrationRunTest {
+
+  private static final Integration INTEGRATION = new IntegrationDataBuilder().build();
+  private static final Clock CLOCK = Clock.fixed(Instant.now(), ZoneId.systemDefault());
+  private static final ZonedDateTime NOW = ZonedDateTime.now(CLOCK);
+  private static final UUID USER_ID = UUID.randomUUID();
+  private static final UUID PRODUCT_ID = UUID.randomUUID();
+  private static final String PRODUCT_CODE = "C100";
+
+  @Test
+  public void equalsContract() {
+    EqualsVerifier
+        .forClass(IntegrationRun.class)
+        .withRedefinedSuperclass()
+        .suppress(Warning.NONFINAL_FIELDS)
+        .verify();
+  }
+
+  @Test
+  public void shouldImplementToString() {
+    ToStringTestUtils.verify(IntegrationRun.class, new IntegrationRun());
+  }
+
+  @Test
+  public void shouldCreateInstanceForAutomaticExecution() {
+    // when
+    IntegrationRun run = IntegrationRun.forAutomaticExecution(INTEGRATION, true, CLOCK);
+
+    // then
+    TestIntegrationRun exporter = new TestIntegrationRun();
+    run.export(exporter);
+
+    assertThat(exporter.getIntegrationId()).isEqualTo(INTEGRATION.getId());
+    assertThat(exporter.getTriggerType()).isEqualTo(IntegrationRunTrigger.SCHEDULED);
+    assertThat(exporter.isFullSync()).isTrue();
+    assertThat(exporter.getStatus()).isEqualTo(ExecutionStatus.STARTED);
+    assertThat(exporter.getStartDate()).isEqualTo(NOW);
+    assertThat(exporter.getEndDate()).isNull();
+    assertThat(exporter.getUserId()).isNull();
+  }
+
+  @Test
+  public void shouldCreateInstanceForManualExecution() {
+    // when
+    IntegrationRun run = IntegrationRun.forManualExecution(INTEGRATION, USER_ID, false, CLOCK);
+
+    // then
+    TestIntegrationRun exporter = new TestIntegrationRun();
+    run.export(exporter);
+
+    assertThat(exporter.getIntegrationId()).isEqualTo(INTEGRATION.getId());
+    assertThat(exporter.getTriggerType()).isEqualTo(IntegrationRunTrigger.MANUAL);
+    assertThat(exporter.isFullSync()).isFalse();
+    assertThat(exporter.getStatus()).isEqualTo(ExecutionStatus.STARTED);
+    assertThat(exporter.getUserId()).isEqualTo(USER_ID);
+  }
+
+  @Test
+  public void shouldCountItemsByResponseStatus() {
+    // given
+    IntegrationRun run = createRun();
+
+    // when
+    run.addItem(PRODUCT_ID, PRODUCT_CODE, new ExecutionResponse(NOW, 200, "ok"), 10);
+    run.addItem(PRODUCT_ID, PRODUCT_CODE, new ExecutionResponse(NOW, 201, "created"), 10);
+    run.addItem(PRODUCT_ID, PRODUCT_CODE, new ExecutionResponse(NOW, 304, "skipped"), 10);
+    run.addItem(PRODUCT_ID, PRODUCT_CODE, new ExecutionResponse(NOW, 400, "invalid"), 10);
+    run.addFailedItem(PRODUCT_ID, PRODUCT_CODE, new IllegalStateException(), 10);
+
+    // then
+    assertThat(run.getWrittenEntities()).isEqualTo(2);
+    assertThat(run.getSkippedEntities()).isEqualTo(1);
+    assertThat(run.getFailedEntities()).isEqualTo(2);
+  }
+
+  @Test
+  public void shouldCountUnchangedItemsSeparately() {
+    // given
+    IntegrationRun run = createRun();
+    run.addItem(PRODUCT_ID, PRODUCT_CODE, new ExecutionResponse(NOW, 304, "skipped"), 10);
+
+    // when
+    run.addUnchangedItems(3);
+    run.addUnchangedItems(2);
+
+    // then
+    TestIntegrationRun exporter = new TestIntegrationRun();
+    run.export(exporter);
+
+    assertThat(exporter.getUnchangedEntities()).isEqualTo(5);
+    assertThat(exporter.getSkippedEntities()).isEqualTo(1);
+  }
+
+  @Test
+  public void shouldCreateItemWithoutErrorForSuccessfulResponse() {
+    // given
+    IntegrationRun run = createRun();
+
+    // when
+    IntegrationRunItem item = run.addItem(PRODUCT_ID, PRODUCT_CODE,
+        new ExecutionResponse(NOW, 200, "ok"), 15);
+
+    // then
+    assertThat(item.getRunId()).isEqualTo(run.getId());
+    assertThat(item.getProductId()).isEqualTo(PRODUCT_ID);
+    assertThat(item.getProductCode()).isEqualTo(PRODUCT_CODE);
+    assertThat(item.getStatusCode()).isEqualTo(200);
+    assertThat(item.getDurationMillis()).isEqualTo(15);
+    assertThat(item.getErrorMessage()).isNull();
+  }
+
+  @Test
+  public void shouldKeepOnlyBeginningOfErrorMessage() {
+    // given
+    IntegrationRun run = createRun();
+    String body = StringUtils.repeat('x', IntegrationRunItem.ERROR_LENGTH * 2);
+
+    // when
+    IntegrationRunItem item = run.addItem(PRODUCT_ID, PRODUCT_CODE,
+        new ExecutionResponse(NOW, 500, body), 15);
+
+    // then
+    assertThat(item.getStatusCode()).isEqualTo(500);
+    assertThat(item.getErrorMessage()).hasSize(IntegrationRunItem.ERROR_LENGTH);
+  }
+
+  @Test
+  public void shouldCreateItemWithoutStatusIfProductCouldNotBeSent() {
+    // given
+    IntegrationRun run = createRun();
+
+    // when
+    IntegrationRunItem item = run.addFailedItem(PRODUCT_ID, PRODUCT_CODE,
+        new IllegalStateException("connection refused"), 15);
+
+    // then
+    assertThat(item.getStatusCode()).isNull();
+    assertThat(item.getErrorMessage()).contains("connection refused");
+  }
+
+  @Test
+  public void shouldFinishWithSuccessIfAllProductsHaveBeenSent() {
+    // given
+    IntegrationRun run = createRun();
+    run.addItem(PRODUCT_ID, PRODUCT_CODE, new ExecutionResponse(NOW, 200, "ok"), 10);
+
+    // when
+    run.finish(true, CLOCK);
+
+    // then
+    assertThat(run.getStatus()).isEqualTo(ExecutionStatus.SUCCESS);
+    assertThat(run.getEndDate()).isEqualTo(NOW);
+  }
+
+  @Test
+  public void shouldFinishWithErrorIfAnyProductHasFailed() {
+    // given
+    IntegrationRun run = createRun();
+    run.addItem(PRODUCT_ID, PRODUCT_CODE, new ExecutionResponse(NOW, 400, "invalid"), 10);
+
+    // when
+    run.finish(true, CLOCK);
+
+    // then
+    assertThat(run.getStatus()).isEqualTo(ExecutionStatus.ERROR);
+  }
+
+  @Test
+  public void shouldFinishWithErrorIfRunHasNotCompleted() {
+    // given
+    IntegrationRun run = createRun();
+
+    // when
+    run.finish(false, CLOCK);
+
+    // then
+    assertThat(run.getStatus()).isEqualTo(ExecutionStatus.ERROR);
+    assertThat(run.getEndDate()).isEqualTo(NOW);
+  }
+
+  private IntegrationRun createRun() {
+    IntegrationRun run = IntegrationRun.forAutomaticExecution(INTEGRATION, false, CLOCK);
+    run.setId(UUID.randomUUID());
+    return run;
+  }
+
+  @Getter
+  @Setter
+  private static final class TestIntegrationRun implements IntegrationRun.Exporter {
+
+    private UUID id;
+    private UUID integrationId;
+    private IntegrationRunTrigger triggerType;
+    private UUID userId;
+    private boolean fullSync;
+    private ExecutionStatus status;
+    private ZonedDateTime startDate;
+    private ZonedDateTime endDate;
+    private int writtenEntities;
+    private int skippedEntities;
+    private int failedEntities;
+    private int unchangedEntities;
+  }
+
+}
@@ -0,0 +1,110 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.integration.pcmt.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+import org.springframework.security.oauth2.common.exceptions.InvalidTokenException;
+import org.springframework.security.oauth2.provider.OAuth2Authentication;
+import org.springframework.security.oauth2.provider.token.AccessTokenConverter;
+import org.springframework.security.oauth2.provider.token.ResourceServerTokenServices;
+
+public class CachingResourceServerTokenServicesTest {
+
+  private static final Instant NOW = Instant.parse("2020-05-19T10:00:00Z");
+  private static final String TOKEN = "token";
+
+  @Rule
+  public MockitoRule mockitoRule = MockitoJUnit.rule();
+
+  @Mock
+  private ResourceServerTokenServices delegate;
+
+  @Mock
+  private Clock clock;
+
+  private CachingResourceServerTokenServices tokenServices;
+
+  @Before
+  public void setUp() {
+    when(clock.instant()).thenReturn(NOW);
+    tokenServices = new CachingResourceServerTokenServices(delegate, clock,
+        Duration.ofMinutes(5), 10);
+  }
+
+  @Test
+  public void shouldCheckTokenOnlyOnce() {
+    OAuth2Authentication authentication = authenticationExpiringAt(NOW.plusSeconds(3600));
+    when(delegate.loadAuthentication(TOKEN)).thenReturn(authentication);
+
+    OAuth2Authentication first = tokenServices.loadAuthentication(TOKEN);
+    OAuth2Authentication second = tokenServices.loadAuthentication(TOKEN);
+
+    verify(delegate, times(1)).loadAuthentication(TOKEN);
+    assertThat(first).isNotSameAs(second);
+    assertThat(second.getOAuth2Request()).isEqualTo(authentication.getOAuth2Request());
+  }
+
+  @Test
+  public void shouldCheckTokenAgainAfterItExpires() {
+    when(delegate.loadAuthentication(TOKEN))
+        .thenReturn(authenticationExpiringAt(NOW.plusSeconds(30)));
+
+    tokenServices.loadAuthentication(TOKEN);
+    when(clock.instant()).thenReturn(NOW.plusSeconds(30));
+    tokenServices.loadAuthentication(TOKEN);
+
+    verify(delegate, times(2)).loadAuthentication(TOKEN);
+  }
+
+  @Test
+  public void shouldNotCacheInvalidTokens() {
+    when(delegate.loadAuthentication(TOKEN))
+        .thenThrow(new InvalidTokenException(TOKEN))
+        .thenReturn(authenticationExpiringAt(NOW.plusSeconds(3600)));
+
+    try {
+      tokenServices.loadAuthentication(TOKEN);
+    } catch (InvalidTokenException exp) {
+      assertThat(exp.getMessage()).isEqualTo(TOKEN);
+    }
+
+    assertThat(tokenServices.loadAuthentication(TOKEN)).isNotNull();
+    verify(delegate, times(2)).loadAuthentication(TOKEN);
+  }
+
+  private OAuth2Authentication authenticationExpiringAt(Instant expiration) {
+    Map<String, Object> checkTokenResult = new HashMap<>();
+    checkTokenResult.put(AccessTokenConverter.CLIENT_ID, "trusted-client");
+    checkTokenResult.put(AccessTokenConverter.EXP, expiration.getEpochSecond());
+
+    return new ExpiringAccessTokenConverter().extractAuthentication(checkTokenResult);
+  }
+}
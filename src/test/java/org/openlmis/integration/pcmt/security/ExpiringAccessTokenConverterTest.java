@@ -0,0 +1,55 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.integration.pcmt.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.Test;
+import org.springframework.security.oauth2.provider.OAuth2Authentication;
+import org.springframework.security.oauth2.provider.token.AccessTokenConverter;
+
+public class ExpiringAccessTokenConverterTest {
+
+  private static final String CLIENT_ID = "trusted-client";
+
+  private ExpiringAccessTokenConverter converter = new ExpiringAccessTokenConverter();
+
+  private Map<String, Object> checkTokenResult = new HashMap<>();
+
+  @Test
+  public void shouldKeepTokenExpiration() {
+    checkTokenResult.put(AccessTokenConverter.CLIENT_ID, CLIENT_ID);
+    checkTokenResult.put(AccessTokenConverter.EXP, 1589882400);
+
+    OAuth2Authentication authentication = converter.extractAuthentication(checkTokenResult);
+
+    assertThat(authentication.getOAuth2Request().getClientId()).isEqualTo(CLIENT_ID);
+    assertThat(ExpiringAccessTokenConverter.getExpiration(authentication))
+        .isEqualTo(Instant.ofEpochSecond(1589882400));
+  }
+
+  @Test
+  public void shouldReturnNoExpirationIfItIsUnknown() {
+    checkTokenResult.put(AccessTokenConverter.CLIENT_ID, CLIENT_ID);
+
+    OAuth2Authentication authentication = converter.extractAuthentication(checkTokenResult);
+
+    assertThat(ExpiringAccessTokenConverter.getExpiration(authentication)).isNull();
+  }
+}
@@ -67,6 +67,7 @@ import org.springframework.web.client.RestOperations;
 public abstract class BaseCommunicationServiceTest<T> {
 
   private static final String TOKEN = UUID.randomUUID().toString();
+  private static final String NEW_TOKEN = UUID.randomUUID().toString();
   private static final String TOKEN_HEADER = "Bearer " + TOKEN;
 
   private static final String URI_QUERY_NAME = "name";
@@ -92,14 +93,18 @@ public abstract class BaseCommunicationServiceTest<T> {
 
   private BaseCommunicationService<T> service;
 
+  private SplitRequestExecutor splitRequestExecutor = new SplitRequestExecutor();
+
   @Before
   public void setUp() {
     mockAuth();
+    splitRequestExecutor.initialize();
     service = prepareService();
   }
 
   @After
   public void tearDown() {
+    splitRequestExecutor.shutdown();
     checkAuth();
   }
 
@@ -154,6 +159,28 @@ public abstract class BaseCommunicationServiceTest<T> {
     service.findOne(id);
   }
 
+  @Test
+  public void shouldRetryOnceWithNewTokenIfTokenHasBeenRejected() {
+    // given
+    UUID id = UUID.randomUUID();
+    T instance = generateInstance();
+    ResponseEntity<T> response = mock(ResponseEntity.class);
+    doReturn(instance).when(response).getBody();
+
+    // when
+    when(authService.obtainAccessToken()).thenReturn(TOKEN, NEW_TOKEN);
+    when(restTemplate.exchange(any(URI.class), any(HttpMethod.class), any(HttpEntity.class),
+        eq(getService().getResultClass())))
+        .thenThrow(new HttpClientErrorException(HttpStatus.UNAUTHORIZED))
+        .thenReturn(response);
+
+    T found = service.findOne(id);
+
+    // then
+    assertThat(found, is(instance));
+    verify(authService).invalidateAccessToken(TOKEN);
+  }
+
   protected abstract T generateInstance();
 
   protected abstract BaseCommunicationService<T> getService();
@@ -162,6 +189,7 @@ public abstract class BaseCommunicationServiceTest<T> {
     BaseCommunicationService<T> service = getService();
     service.setRestTemplate(restTemplate);
     service.setAuthService(authService);
+    service.setSplitRequestExecutor(splitRequestExecutor);
 
     ReflectionTestUtils.setField(service, "maxUrlLength", 2000);
 
@@ -0,0 +1,128 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.integration.pcmt.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Clock;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+import org.openlmis.integration.pcmt.repository.ExecutionRepository;
+import org.openlmis.integration.pcmt.repository.IntegrationRunRepository;
+import org.openlmis.integration.pcmt.service.ExecutionRetentionService.PurgeResult;
+import org.openlmis.integration.pcmt.web.ExecutionRetentionDto;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class ExecutionRetentionServiceTest {
+
+  private static final ZonedDateTime NOW = ZonedDateTime.parse("2020-05-17T10:15:30Z[UTC]");
+  private static final ZonedDateTime START_DATE = ZonedDateTime.parse("2019-11-01T00:00Z[UTC]");
+  private static final int BATCH_SIZE = 2;
+
+  @Rule
+  public MockitoRule mockitoRule = MockitoJUnit.rule();
+
+  @Mock
+  private ExecutionRepository executionRepository;
+
+  @Mock
+  private IntegrationRunRepository integrationRunRepository;
+
+  @Mock
+  private Clock clock;
+
+  @InjectMocks
+  private ExecutionRetentionService service;
+
+  @Before
+  public void setUp() {
+    when(clock.instant()).thenReturn(NOW.toInstant());
+    when(clock.getZone()).thenReturn(ZoneId.of("UTC"));
+
+    ReflectionTestUtils.setField(service, "retentionMonths", 6);
+    ReflectionTestUtils.setField(service, "batchSize", BATCH_SIZE);
+  }
+
+  @Test
+  public void shouldKeepWholeMonths() {
+    assertThat(service.getRetentionStartDate()).isEqualTo(START_DATE);
+  }
+
+  @Test
+  public void shouldDeleteInBatchesUntilLastBatchIsNotFull() {
+    when(executionRepository.deleteStartedBefore(START_DATE, BATCH_SIZE))
+        .thenReturn(batch(2, 2, 1000), batch(1, 0, 300));
+    when(integrationRunRepository.deleteStartedBefore(START_DATE, BATCH_SIZE))
+        .thenReturn(batch(0, 0, 0));
+
+    PurgeResult result = service.purge();
+
+    assertThat(result).isEqualTo(new PurgeResult(5, 1300));
+    verify(executionRepository, times(2)).deleteStartedBefore(START_DATE, BATCH_SIZE);
+    verify(integrationRunRepository).deleteStartedBefore(START_DATE, BATCH_SIZE);
+  }
+
+  @Test
+  public void shouldSumUpPurgedRowsAndBytes() {
+    when(executionRepository.deleteStartedBefore(START_DATE, BATCH_SIZE))
+        .thenReturn(batch(1, 1, 100));
+    when(integrationRunRepository.deleteStartedBefore(START_DATE, BATCH_SIZE))
+        .thenReturn(batch(1, 3, 200));
+
+    service.purge();
+    service.purge();
+
+    ExecutionRetentionDto dto = ExecutionRetentionDto.newInstance(service);
+    assertThat(dto.getPurgedRows()).isEqualTo(12);
+    assertThat(dto.getReclaimedBytes()).isEqualTo(600);
+    assertThat(dto.getRetentionMonths()).isEqualTo(6);
+    assertThat(dto.getRetentionStartDate()).isEqualTo(START_DATE);
+    assertThat(dto.getLastPurgeDate()).isEqualTo(NOW);
+  }
+
+  @Test
+  public void shouldNotDeleteAnythingIfRetentionIsDisabled() {
+    ReflectionTestUtils.setField(service, "retentionMonths", 0);
+
+    assertThat(service.purge()).isEqualTo(new PurgeResult(0, 0));
+    verify(executionRepository, never()).deleteStartedBefore(any(ZonedDateTime.class), anyInt());
+    verify(integrationRunRepository, never())
+        .deleteStartedBefore(any(ZonedDateTime.class), anyInt());
+
+    ExecutionRetentionDto dto = ExecutionRetentionDto.newInstance(service);
+    assertThat(dto.getRetentionStartDate()).isNull();
+    assertThat(dto.getLastPurgeDate()).isNull();
+  }
+
+  private List<Object[]> batch(long parents, long children, long bytes) {
+    return Collections.singletonList(new Object[]{parents, children, bytes});
+  }
+}
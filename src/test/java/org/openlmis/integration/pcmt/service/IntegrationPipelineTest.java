@@ -0,0 +1,89 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.integration.pcmt.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+public class IntegrationPipelineTest {
+
+  private static final String FIRST = "first";
+  private static final String SECOND = "second";
+
+  private IntegrationPipeline<String> pipeline = new IntegrationPipeline<>(1);
+
+  @Test
+  public void shouldReturnAllEntitiesBeforeEndOfStream() throws InterruptedException {
+    pipeline.put(FIRST);
+    pipeline.endOfStream();
+
+    assertThat(pipeline.take()).isEqualTo(FIRST);
+    assertThat(pipeline.take()).isNull();
+  }
+
+  @Test
+  public void shouldWaitForEntitiesUntilEndOfStream() throws Exception {
+    CompletableFuture<String> taken = CompletableFuture.supplyAsync(this::take);
+
+    TimeUnit.MILLISECONDS.sleep(100);
+    assertThat(taken.isDone()).isFalse();
+
+    pipeline.endOfStream();
+    assertThat(taken.get(5, TimeUnit.SECONDS)).isNull();
+  }
+
+  @Test
+  public void shouldWaitForFreeSpaceAndMeasureWaitTime() throws Exception {
+    pipeline.put(FIRST);
+    CompletableFuture<Boolean> added = CompletableFuture.supplyAsync(() -> put(SECOND));
+
+    TimeUnit.MILLISECONDS.sleep(100);
+    assertThat(added.isDone()).isFalse();
+
+    assertThat(pipeline.take()).isEqualTo(FIRST);
+    assertThat(added.get(5, TimeUnit.SECONDS)).isTrue();
+    assertThat(pipeline.take()).isEqualTo(SECOND);
+    assertThat(pipeline.getProducerWaitTime().toMillis()).isPositive();
+  }
+
+  @Test
+  public void shouldNotWaitForFreeSpaceIfPipelineHasFailed() throws Exception {
+    pipeline.put(FIRST);
+    pipeline.fail(new IllegalStateException("send task failed"));
+
+    assertThat(pipeline.put(SECOND)).isFalse();
+    assertThat(pipeline.getCompletion().isCompletedExceptionally()).isTrue();
+  }
+
+  private String take() {
+    try {
+      return pipeline.take();
+    } catch (InterruptedException exp) {
+      throw new IllegalStateException(exp);
+    }
+  }
+
+  private boolean put(String entity) {
+    try {
+      return pipeline.put(entity);
+    } catch (InterruptedException exp) {
+      throw new IllegalStateException(exp);
+    }
+  }
+}
@@ -0,0 +1,142 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.integration.pcmt.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.UUID;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+import org.openlmis.integration.pcmt.domain.OrderableFingerprint;
+import org.openlmis.integration.pcmt.repository.OrderableFingerprintRepository;
+import org.openlmis.integration.pcmt.service.referencedata.orderable.DispensableDto;
+import org.openlmis.integration.pcmt.service.referencedata.orderable.OrderableDto;
+import org.openlmis.integration.pcmt.service.referencedata.orderable.ProgramOrderableDto;
+
+public class OrderableFingerprintServiceTest {
+
+  private static final Instant NOW = Instant.parse("2020-05-13T10:00:00Z");
+
+  @Rule
+  public MockitoRule mockitoRule = MockitoJUnit.rule();
+
+  @Mock
+  private OrderableFingerprintRepository orderableFingerprintRepository;
+
+  @Mock
+  private Clock clock;
+
+  @InjectMocks
+  private OrderableFingerprintService orderableFingerprintService;
+
+  private OrderableDto orderable;
+
+  @Before
+  public void setUp() {
+    when(clock.instant()).thenReturn(NOW);
+    when(clock.getZone()).thenReturn(ZoneOffset.UTC);
+
+    orderable = createOrderable();
+  }
+
+  @Test
+  public void shouldComputeSameFingerprintForSameFields() {
+    assertThat(orderableFingerprintService.computeFingerprint(orderable))
+        .isEqualTo(orderableFingerprintService.computeFingerprint(createOrderable()))
+        .hasSize(64);
+  }
+
+  @Test
+  public void shouldComputeDifferentFingerprintIfMappedFieldChanged() {
+    String fingerprint = orderableFingerprintService.computeFingerprint(orderable);
+    orderable.getDispensable().setDispensingUnit("box");
+
+    assertThat(orderableFingerprintService.computeFingerprint(orderable))
+        .isNotEqualTo(fingerprint);
+  }
+
+  @Test
+  public void shouldIgnoreProgramsWhenComputingFingerprint() {
+    String fingerprint = orderableFingerprintService.computeFingerprint(orderable);
+    orderable.getPrograms().add(new ProgramOrderableDto());
+
+    assertThat(orderableFingerprintService.computeFingerprint(orderable))
+        .isEqualTo(fingerprint);
+  }
+
+  @Test
+  public void shouldTreatOrderableAsUnchangedIfFingerprintMatches() {
+    when(orderableFingerprintRepository.findFingerprint(orderable.getId()))
+        .thenReturn(orderableFingerprintService.computeFingerprint(orderable));
+
+    assertThat(orderableFingerprintService.isUnchanged(orderable)).isTrue();
+  }
+
+  @Test
+  public void shouldTreatOrderableAsChangedIfThereIsNoFingerprint() {
+    assertThat(orderableFingerprintService.isUnchanged(orderable)).isFalse();
+  }
+
+  @Test
+  public void shouldTreatOrderableWithoutIdAsChanged() {
+    orderable.setId(null);
+
+    assertThat(orderableFingerprintService.isUnchanged(orderable)).isFalse();
+    verify(orderableFingerprintRepository, never()).findFingerprint(any(UUID.class));
+  }
+
+  @Test
+  public void shouldSaveFingerprint() {
+    orderableFingerprintService.saveFingerprint(orderable);
+
+    ArgumentCaptor<OrderableFingerprint> captor =
+        ArgumentCaptor.forClass(OrderableFingerprint.class);
+    verify(orderableFingerprintRepository).save(captor.capture());
+
+    assertThat(captor.getValue().getId()).isEqualTo(orderable.getId());
+    assertThat(captor.getValue().getFingerprint())
+        .isEqualTo(orderableFingerprintService.computeFingerprint(orderable));
+    assertThat(captor.getValue().getLastSentDate())
+        .isEqualTo(ZonedDateTime.ofInstant(NOW, ZoneOffset.UTC));
+  }
+
+  private OrderableDto createOrderable() {
+    OrderableDto dto = new OrderableDto();
+    dto.setId(UUID.fromString("5b7b1b1e-9a3c-4c8d-8f5e-0f0e9e8a7b6c"));
+    dto.setProductCode("C100");
+    dto.setFullProductName("Paracetamol");
+    dto.setDescription("Paracetamol 500mg");
+    dto.setNetContent(10L);
+    dto.setPackRoundingThreshold(5L);
+    dto.setRoundToZero(false);
+    dto.setDispensable(new DispensableDto("each", null, null, null));
+    return dto;
+  }
+}
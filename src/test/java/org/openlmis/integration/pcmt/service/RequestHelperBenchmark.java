@@ -0,0 +1,132 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.integration.pcmt.service;
+
+import static org.openlmis.integration.pcmt.service.RequestHelper.createUri;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import org.apache.commons.lang3.tuple.Pair;
+
+/**
+ * Compares {@link RequestHelper#splitRequest} with the previous implementation that halved the
+ * parameter recursively and rebuilt the whole URI at every level. It is not run with the tests,
+ * start it from the IDE or with the test classpath, optionally passing the measured seconds.
+ */
+@SuppressWarnings("PMD.SystemPrintln")
+public final class RequestHelperBenchmark {
+
+  private static final String URL = "http://localhost/api/orderables";
+  private static final int MAX_URL_LENGTH = 2000;
+  private static final int[] ID_COUNTS = {100, 1000, 10000};
+
+  private static volatile Object sink;
+
+  private RequestHelperBenchmark() {
+    throw new UnsupportedOperationException();
+  }
+
+  /**
+   * Runs the benchmark for each number of ids and prints the average time of a single split.
+   */
+  public static void main(String[] args) {
+    long seconds = args.length > 0 ? Long.parseLong(args[0]) : 5;
+
+    for (int count : ID_COUNTS) {
+      List<UUID> ids = new ArrayList<>();
+      for (int i = 0; i < count; ++i) {
+        ids.add(UUID.randomUUID());
+      }
+
+      RequestParameters parameters = RequestParameters.init()
+          .set("id", ids)
+          .set("versionNumber", 1);
+
+      measure("recursive", count, seconds,
+          () -> recursiveSplitRequest(URL, parameters, MAX_URL_LENGTH));
+      measure("greedy", count, seconds,
+          () -> RequestHelper.splitRequest(URL, parameters, MAX_URL_LENGTH));
+    }
+  }
+
+  private static void measure(String name, int count, long seconds, Supplier<URI[]> split) {
+    // warm up for the same time as the measurement so the JIT compiles the hot paths
+    run(split, TimeUnit.SECONDS.toNanos(seconds));
+    long[] result = run(split, TimeUnit.SECONDS.toNanos(seconds));
+
+    System.out.printf("%-9s %6d ids: %10.1f us/op, %d URIs%n",
+        name, count, result[1] / 1000.0 / result[0], ((URI[]) sink).length);
+  }
+
+  private static long[] run(Supplier<URI[]> split, long durationNanos) {
+    long operations = 0;
+    long start = System.nanoTime();
+    long elapsed;
+
+    do {
+      sink = split.get();
+      ++operations;
+      elapsed = System.nanoTime() - start;
+    } while (elapsed < durationNanos);
+
+    return new long[]{operations, elapsed};
+  }
+
+  private static URI[] recursiveSplitRequest(String url, RequestParameters queryParams,
+      int maxUrlLength) {
+    RequestParameters safeQueryParams = RequestParameters.init().setAll(queryParams);
+    URI uri = createUri(url, safeQueryParams);
+
+    if (uri.toString().length() > maxUrlLength) {
+      Pair<RequestParameters, RequestParameters> split = split(safeQueryParams);
+
+      if (null != split) {
+        URI[] left = recursiveSplitRequest(url, split.getLeft(), maxUrlLength);
+        URI[] right = recursiveSplitRequest(url, split.getRight(), maxUrlLength);
+
+        return Stream
+            .concat(Arrays.stream(left), Arrays.stream(right))
+            .distinct()
+            .toArray(URI[]::new);
+      }
+    }
+
+    return new URI[]{uri};
+  }
+
+  private static Pair<RequestParameters, RequestParameters> split(RequestParameters params) {
+    RequestParameters rest = RequestParameters.init().setAll(params);
+    Pair<String, List<String>> largest = rest.removeLargest();
+
+    if (null == largest) {
+      return null;
+    }
+
+    List<String> values = largest.getRight();
+    int middle = (values.size() + 1) / 2;
+
+    return Pair.of(
+        RequestParameters.init().setAll(rest).set(largest.getLeft(), values.subList(0, middle)),
+        RequestParameters.init().setAll(rest)
+            .set(largest.getLeft(), values.subList(middle, values.size())));
+  }
+}
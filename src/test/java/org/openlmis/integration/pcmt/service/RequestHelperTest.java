@@ -19,6 +19,7 @@ import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.Collections.singletonList;
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
 import static org.hamcrest.Matchers.nullValue;
 import static org.hamcrest.Matchers.startsWith;
 import static org.junit.Assert.assertThat;
@@ -27,9 +28,14 @@ import static org.springframework.web.util.UriUtils.encodeQueryParam;
 import com.google.common.collect.Lists;
 import java.io.UnsupportedEncodingException;
 import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.UUID;
 
 import org.apache.commons.lang.RandomStringUtils;
+import org.apache.http.client.utils.URLEncodedUtils;
 import org.junit.Test;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
@@ -76,16 +82,7 @@ public class RequestHelperTest {
 
   @Test
   public void shouldSplitRequestIfItTooLong() throws UnsupportedEncodingException {
-    // no split | first split | second split
-    //    1     |      1      |      1
-    //    2     |      1      |      1
-    //    3     |      1      |      1
-    //    4     |      1      |      2
-    //    5     |      1      |      2
-    //    6     |      2      |      3
-    //    7     |      2      |      3
-    //    8     |      2      |      4
-    //    9     |      2      |      4
+    // each value takes 503 characters so only three of them fit with the url in 2000 characters
     List<String> queryParamValues = Lists.newArrayList(
         randomString(), randomString(), randomString(), randomString(),
         randomString(), randomString(), randomString(), randomString(),
@@ -95,24 +92,84 @@ public class RequestHelperTest {
     URI[] uri = RequestHelper.splitRequest(
         URL, RequestParameters.init().set("a", queryParamValues), MAX_URL_LENGTH
     );
-    assertThat(uri.length, is(4));
+    assertThat(uri.length, is(3));
+
+    for (int i = 0; i < uri.length; ++i) {
+      assertThat(uri[i].toString().length(), is(lessThanOrEqualTo(MAX_URL_LENGTH)));
+      assertThat(uri[i].toString(), startsWith(URL));
+      assertThat(uri[i].toString(), containsString("a=" + queryParamValues.get(3 * i)));
+      assertThat(uri[i].toString(), containsString("a=" + queryParamValues.get(3 * i + 1)));
+      assertThat(uri[i].toString(), containsString("a=" + queryParamValues.get(3 * i + 2)));
+    }
+  }
 
-    assertThat(uri[0].toString(), startsWith(URL));
-    assertThat(uri[0].toString(), containsString("a=" + queryParamValues.get(0)));
-    assertThat(uri[0].toString(), containsString("a=" + queryParamValues.get(1)));
-    assertThat(uri[0].toString(), containsString("a=" + queryParamValues.get(2)));
+  @Test
+  public void shouldPackValuesInOrderWithinMaxUrlLength() {
+    List<String> ids = new ArrayList<>();
+    for (int i = 0; i < 1000; ++i) {
+      ids.add(UUID.randomUUID().toString());
+    }
+
+    URI[] uri = RequestHelper.splitRequest(
+        URL, RequestParameters.init().set("id", ids).set("name", "b c"), MAX_URL_LENGTH);
+
+    List<String> sentIds = new ArrayList<>();
+    for (URI chunk : uri) {
+      assertThat(chunk.toString().length(), is(lessThanOrEqualTo(MAX_URL_LENGTH)));
+      assertThat(chunk.getRawQuery(), containsString("name=b%20c"));
+
+      URLEncodedUtils.parse(chunk, UTF_8.name())
+          .stream()
+          .filter(pair -> "id".equals(pair.getName()))
+          .forEach(pair -> sentIds.add(pair.getValue()));
+    }
+
+    assertThat(sentIds, is(ids));
+    // each id takes 40 characters so 49 of them fit next to the url and the name parameter
+    assertThat(uri.length, is(21));
+  }
+
+  @Test
+  public void shouldSplitEveryLongParameterUntilUrlsFitMaxUrlLength() {
+    List<String> ids = new ArrayList<>();
+    List<String> codes = new ArrayList<>();
+    for (int i = 0; i < 100; ++i) {
+      ids.add(UUID.randomUUID().toString());
+      codes.add(String.format("code-%03d", i));
+    }
 
-    assertThat(uri[1].toString(), startsWith(URL));
-    assertThat(uri[1].toString(), containsString("a=" + queryParamValues.get(3)));
-    assertThat(uri[1].toString(), containsString("a=" + queryParamValues.get(4)));
+    URI[] uri = RequestHelper.splitRequest(
+        URL, RequestParameters.init().set("id", ids).set("code", codes), MAX_URL_LENGTH);
+
+    Set<String> sentPairs = new HashSet<>();
+    for (URI chunk : uri) {
+      assertThat(chunk.toString().length(), is(lessThanOrEqualTo(MAX_URL_LENGTH)));
+
+      List<String> sentIds = new ArrayList<>();
+      List<String> sentCodes = new ArrayList<>();
+      URLEncodedUtils.parse(chunk, UTF_8.name())
+          .forEach(pair -> ("id".equals(pair.getName()) ? sentIds : sentCodes)
+              .add(pair.getValue()));
+
+      sentIds.forEach(id -> sentCodes.forEach(code -> sentPairs.add(id + code)));
+    }
+
+    // each id is requested together with each code, as in the original request
+    assertThat(sentPairs.size(), is(ids.size() * codes.size()));
+  }
+
+  @Test
+  public void shouldSendValueLongerThanMaxUrlLengthSeparately() {
+    String longValue = RandomStringUtils.randomAlphabetic(2500);
 
-    assertThat(uri[2].toString(), startsWith(URL));
-    assertThat(uri[2].toString(), containsString("a=" + queryParamValues.get(5)));
-    assertThat(uri[2].toString(), containsString("a=" + queryParamValues.get(6)));
+    URI[] uri = RequestHelper.splitRequest(URL,
+        RequestParameters.init().set("a", Lists.newArrayList("b", longValue, "c")),
+        MAX_URL_LENGTH);
 
-    assertThat(uri[3].toString(), startsWith(URL));
-    assertThat(uri[3].toString(), containsString("a=" + queryParamValues.get(7)));
-    assertThat(uri[3].toString(), containsString("a=" + queryParamValues.get(8)));
+    assertThat(uri.length, is(3));
+    assertThat(uri[0].getRawQuery(), is("a=b"));
+    assertThat(uri[1].getRawQuery(), is("a=" + longValue));
+    assertThat(uri[2].getRawQuery(), is("a=c"));
   }
 
   @Test
@@ -22,16 +22,13 @@ import static org.hamcrest.Matchers.hasKey;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.not;
-import static org.hamcrest.Matchers.notNullValue;
 import static org.hamcrest.Matchers.nullValue;
 import static org.junit.Assert.assertThat;
 
 import com.google.common.collect.Maps;
 import java.util.Collections;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 
 import nl.jqno.equalsverifier.EqualsVerifier;
 
@@ -84,76 +81,27 @@ public class RequestParametersTest {
   }
 
   @Test
-  public void shouldSplit() {
+  public void shouldRemoveParameterWithMostValues() {
+    List<String> values = range(0, 10).mapToObj(String::valueOf).collect(toList());
     RequestParameters params = RequestParameters
         .init()
-        .set(KEY, range(0, 10).mapToObj(String::valueOf).collect(toList()));
+        .set(VALUE, Collections.singletonList(VALUE))
+        .set(KEY, values);
 
-    Pair<RequestParameters, RequestParameters> split = params.split();
+    Pair<String, List<String>> largest = params.removeLargest();
 
-    assertThat(split.getLeft(), is(notNullValue()));
-    assertThat(split.getRight(), is(notNullValue()));
-
-    Set<Object> values0 = new HashSet<>();
-    Set<Object> values1 = new HashSet<>();
-
-    split.getLeft().forEach(entry -> {
-      assertThat(entry.getKey(), is(KEY));
-      values0.addAll(entry.getValue());
-    });
-
-    split.getRight().forEach(entry -> {
-      assertThat(entry.getKey(), is(KEY));
-      values1.addAll(entry.getValue());
-    });
-
-
-    assertThat(values0, hasSize(5));
-    assertThat(values1, hasSize(5));
-
-    // the values0 will contain only values that are in the values1.
-    values0.retainAll(values1);
-
-    assertThat(values0, hasSize(0));
-  }
-
-  @Test
-  public void shouldSplitByFirstBiggestSet() {
-    RequestParameters params = RequestParameters
-        .init()
-        .set(KEY, range(0, 10).mapToObj(String::valueOf).collect(toList()))
-        .set(VALUE, range(0, 11).mapToObj(String::valueOf).collect(toList()));
-
-    Pair<RequestParameters, RequestParameters> split = params.split();
-
-    assertThat(split.getLeft(), is(notNullValue()));
-    assertThat(split.getRight(), is(notNullValue()));
-
-    Map<String, List<String>> map0 = toMap(split.getLeft());
-    assertThat(map0, hasEntry(is(KEY), hasSize(10)));
-    assertThat(map0, hasEntry(is(VALUE), hasSize(6)));
-
-    Map<String, List<String>> map1 = toMap(split.getRight());
-    assertThat(map1, hasEntry(is(KEY), hasSize(10)));
-    assertThat(map1, hasEntry(is(VALUE), hasSize(5)));
+    assertThat(largest.getLeft(), is(KEY));
+    assertThat(largest.getRight(), is(values));
+    assertThat(toMap(params), not(hasKey(KEY)));
+    assertHasEntry(toMap(params), VALUE, VALUE);
   }
 
   @Test
-  public void shouldNotSplitWhenListHasOneElement() {
+  public void shouldNotRemoveParameterIfNoneHasMoreThanOneValue() {
     RequestParameters params = RequestParameters.init().set(KEY, VALUE);
-    Pair<RequestParameters, RequestParameters> split = params.split();
 
-    assertThat(split.getLeft(), is(params));
-    assertThat(split.getRight(), is(nullValue()));
-  }
-
-  @Test
-  public void shouldNotSplitWhenObjectIsEmpty() {
-    RequestParameters params = RequestParameters.init();
-    Pair<RequestParameters, RequestParameters> split = params.split();
-
-    assertThat(split.getLeft(), is(params));
-    assertThat(split.getRight(), is(nullValue()));
+    assertThat(params.removeLargest(), is(nullValue()));
+    assertHasEntry(toMap(params), KEY, VALUE);
   }
 
   private void assertHasEntry(Map<String, List<String>> map, String key, Object value) {
@@ -0,0 +1,102 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.integration.pcmt.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SplitRequestExecutorTest {
+
+  private static final String FAILURE = "chunk failed";
+  private static final long TIMEOUT_SECONDS = 10;
+
+  private SplitRequestExecutor executor = new SplitRequestExecutor();
+
+  @Before
+  public void setUp() {
+    executor.setCorePoolSize(4);
+    executor.setMaxPoolSize(4);
+    executor.initialize();
+  }
+
+  @After
+  public void tearDown() {
+    executor.shutdown();
+  }
+
+  @Test
+  public void shouldReturnResponsesInOrderOfChunksEvenIfTheyCompleteInReverseOrder() {
+    CountDownLatch lastChunkDone = new CountDownLatch(1);
+
+    assertThat(executor.executeAll(new Integer[]{1, 2, 3, 4}, chunk -> {
+      if (chunk == 4) {
+        lastChunkDone.countDown();
+      } else {
+        await(lastChunkDone);
+      }
+      return chunk * 10;
+    })).containsExactly(10, 20, 30, 40);
+  }
+
+  @Test
+  public void shouldSendSingleChunkInCallingThread() {
+    Thread caller = Thread.currentThread();
+
+    assertThat(executor.executeAll(new String[]{"uri"}, chunk -> Thread.currentThread()))
+        .containsExactly(caller);
+  }
+
+  @Test
+  public void shouldCancelOtherChunksIfOneFails() {
+    CountDownLatch neverReleased = new CountDownLatch(1);
+    CountDownLatch interrupted = new CountDownLatch(1);
+
+    try {
+      executor.executeAll(new Integer[]{1, 2}, chunk -> {
+        if (chunk == 2) {
+          throw new IllegalArgumentException(FAILURE);
+        }
+
+        try {
+          neverReleased.await(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException exp) {
+          interrupted.countDown();
+        }
+        return chunk;
+      });
+      fail("the chunk exception should be rethrown");
+    } catch (IllegalArgumentException exp) {
+      assertThat(exp).hasMessage(FAILURE);
+    }
+
+    assertThat(await(interrupted)).isTrue();
+  }
+
+  private boolean await(CountDownLatch latch) {
+    try {
+      return latch.await(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    } catch (InterruptedException exp) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(exp);
+    }
+  }
+}
@@ -22,11 +22,14 @@ import static org.junit.Assert.assertThat;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.google.common.collect.ImmutableMap;
 import java.net.URI;
+import java.time.Clock;
+import java.time.Instant;
 import java.util.Map;
 import java.util.UUID;
 import org.junit.Before;
@@ -49,6 +52,8 @@ import org.springframework.web.client.RestOperations;
 public class AuthServiceTest {
 
   private static final String TOKEN = UUID.randomUUID().toString();
+  private static final String NEW_TOKEN = UUID.randomUUID().toString();
+  private static final Instant NOW = Instant.parse("2020-05-12T10:00:00Z");
   private static final String AUTHORIZATION_URL = "http://localhost/auth/oauth/token";
   private static final URI AUTHORIZATION_URI = URI.create(
       AUTHORIZATION_URL + "?grant_type=client_credentials"
@@ -60,6 +65,9 @@ public class AuthServiceTest {
   @Mock
   private RestOperations restTemplate;
 
+  @Mock
+  private Clock clock;
+
   @Captor
   private ArgumentCaptor<HttpEntity<String>> entityStringCaptor;
 
@@ -75,19 +83,14 @@ public class AuthServiceTest {
     when(env.getProperty("auth.server.olmisClientId")).thenReturn("trusted-client");
     when(env.getProperty("auth.server.olmisClientSecret")).thenReturn("secret");
     when(env.getProperty("auth.server.olmisAuthorizationUrl")).thenReturn(AUTHORIZATION_URL);
-
+    ReflectionTestUtils.setField(authService, "refreshMargin", 60L);
+    when(clock.instant()).thenReturn(NOW);
   }
 
   @Test
   public void shouldObtainAccessToken() throws Exception {
-    ResponseEntity<Object> response = mock(ResponseEntity.class);
-    Map<String, String> body = ImmutableMap.of(AuthService.ACCESS_TOKEN, TOKEN);
+    mockTokenResponses(ImmutableMap.of(AuthService.ACCESS_TOKEN, TOKEN));
 
-    when(restTemplate.exchange(
-        eq(AUTHORIZATION_URI), eq(HttpMethod.POST), any(HttpEntity.class), eq(Object.class)
-    )).thenReturn(response);
-
-    when(response.getBody()).thenReturn(body);
     String token = authService.obtainAccessToken();
     assertThat(token, is(equalTo(TOKEN)));
 
@@ -101,4 +104,74 @@ public class AuthServiceTest {
         contains("Basic dHJ1c3RlZC1jbGllbnQ6c2VjcmV0")
     );
   }
-}
\ No newline at end of file
+
+  @Test
+  public void shouldReturnCachedTokenUntilItIsAboutToExpire() {
+    mockTokenResponses(tokenBody(TOKEN), tokenBody(NEW_TOKEN));
+
+    assertThat(authService.obtainAccessToken(), is(TOKEN));
+    when(clock.instant()).thenReturn(NOW.plusSeconds(3538));
+    assertThat(authService.obtainAccessToken(), is(TOKEN));
+    when(clock.instant()).thenReturn(NOW.plusSeconds(3539));
+    assertThat(authService.obtainAccessToken(), is(NEW_TOKEN));
+
+    verifyTokenRequests(2);
+  }
+
+  @Test
+  public void shouldRequestNewTokenAfterTokenHasBeenInvalidated() {
+    mockTokenResponses(tokenBody(TOKEN), tokenBody(NEW_TOKEN));
+
+    assertThat(authService.obtainAccessToken(), is(TOKEN));
+    authService.invalidateAccessToken(TOKEN);
+    assertThat(authService.obtainAccessToken(), is(NEW_TOKEN));
+
+    verifyTokenRequests(2);
+  }
+
+  @Test
+  public void shouldNotInvalidateTokenThatHasAlreadyBeenReplaced() {
+    mockTokenResponses(tokenBody(TOKEN), tokenBody(NEW_TOKEN));
+
+    authService.obtainAccessToken();
+    authService.invalidateAccessToken(TOKEN);
+    authService.obtainAccessToken();
+    authService.invalidateAccessToken(TOKEN);
+
+    assertThat(authService.obtainAccessToken(), is(NEW_TOKEN));
+    verifyTokenRequests(2);
+  }
+
+  @Test
+  public void shouldCacheTokensPerClient() {
+    mockTokenResponses(tokenBody(TOKEN), tokenBody(NEW_TOKEN));
+
+    assertThat(authService.obtainAccessToken(), is(TOKEN));
+    when(env.getProperty("auth.server.olmisClientId")).thenReturn("other-client");
+    assertThat(authService.obtainAccessToken(), is(NEW_TOKEN));
+    when(env.getProperty("auth.server.olmisClientId")).thenReturn("trusted-client");
+    assertThat(authService.obtainAccessToken(), is(TOKEN));
+
+    verifyTokenRequests(2);
+  }
+
+  private Map<String, Object> tokenBody(String token) {
+    return ImmutableMap.of(AuthService.ACCESS_TOKEN, token, AuthService.EXPIRES_IN, 3599);
+  }
+
+  private void mockTokenResponses(Object body, Object... bodies) {
+    ResponseEntity<Object> response = mock(ResponseEntity.class);
+
+    when(restTemplate.exchange(
+        eq(AUTHORIZATION_URI), eq(HttpMethod.POST), any(HttpEntity.class), eq(Object.class)
+    )).thenReturn(response);
+
+    when(response.getBody()).thenReturn(body, bodies);
+  }
+
+  private void verifyTokenRequests(int count) {
+    verify(restTemplate, times(count)).exchange(
+        eq(AUTHORIZATION_URI), eq(HttpMethod.POST), any(HttpEntity.class), eq(Object.class)
+    );
+  }
+}
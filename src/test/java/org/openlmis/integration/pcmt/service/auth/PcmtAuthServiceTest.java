@@ -15,59 +15,74 @@
 
 package org.openlmis.integration.pcmt.service.auth;
 
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.time.Clock;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import kong.unirest.HttpRequestWithBody;
 import kong.unirest.HttpResponse;
 import kong.unirest.JsonNode;
 import kong.unirest.RequestBodyEntity;
-import kong.unirest.Unirest;
 import kong.unirest.UnirestException;
-import kong.unirest.json.JSONObject;
 
 import org.apache.commons.codec.binary.Base64;
 import org.junit.Before;
 import org.junit.Test;
-import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
-import org.powermock.api.mockito.PowerMockito;
-import org.powermock.core.classloader.annotations.PrepareForTest;
-import org.powermock.modules.junit4.PowerMockRunner;
+import org.openlmis.integration.pcmt.service.pcmt.PcmtClient;
 import org.springframework.core.env.Environment;
 import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
 
 @ActiveProfiles("test")
-@RunWith(PowerMockRunner.class)
-@PrepareForTest({ Unirest.class})
 public class PcmtAuthServiceTest {
 
   private static final String AUTHORIZATION_URL = "http://demo.akeneo.com/api/oauth/v1/token";
   private static final String TOKEN = UUID.randomUUID().toString();
+  private static final String NEW_TOKEN = UUID.randomUUID().toString();
+  private static final String REFRESH_TOKEN = UUID.randomUUID().toString();
+  private static final long EXPIRES_IN = 3600;
+  private static final long REFRESH_MARGIN = 60;
+  private static final Instant NOW = Instant.parse("2020-05-01T10:00:00Z");
 
   @Mock
   private Environment env;
 
   @Mock
-  private HttpResponse<JsonNode> httpResponse;
+  private PcmtClient pcmtClient;
 
   @Mock
-  private HttpRequestWithBody httpRequestWithBody;
+  private Clock clock;
 
   @Mock
-  private RequestBodyEntity requestBodyEntity;
+  private HttpResponse<JsonNode> httpResponse;
 
   @Mock
-  private JsonNode jsonNode;
+  private HttpResponse<JsonNode> newHttpResponse;
 
   @Mock
-  private JSONObject json;
+  private HttpRequestWithBody httpRequestWithBody;
+
+  @Mock
+  private RequestBodyEntity requestBodyEntity;
 
   @InjectMocks
   private PcmtAuthService pcmtAuthService;
@@ -80,15 +95,13 @@ public class PcmtAuthServiceTest {
 
   private final String clientPassword = "password";
 
-  private final String authorizationUrl = "http://demo.akeneo.com/api/oauth/v1/token";
-
   private final String base64Creds = setPlainCreds();
 
   @Before
   public void setUp() throws Exception {
     pcmtAuthService = new PcmtAuthService();
-    PowerMockito.mockStatic(Unirest.class);
     MockitoAnnotations.initMocks(this);
+    ReflectionTestUtils.setField(pcmtAuthService, "refreshMargin", REFRESH_MARGIN);
 
     when(env.getProperty("auth.server.pcmtClientId")).thenReturn(clientId);
     when(env.getProperty("auth.server.pcmtClientSecret")).thenReturn(clientSecret);
@@ -96,28 +109,113 @@ public class PcmtAuthServiceTest {
     when(env.getProperty("auth.server.pcmtClientUsername")).thenReturn(clientUsername);
     when(env.getProperty("auth.server.pcmtClientPassword")).thenReturn(clientPassword);
 
-  }
-
-  @Test
-  public void shouldObtainAccessToken() throws UnirestException {
+    when(clock.instant()).thenReturn(NOW);
 
-    when(Unirest.post(authorizationUrl)).thenReturn(httpRequestWithBody);
+    when(pcmtClient.post(AUTHORIZATION_URL)).thenReturn(httpRequestWithBody);
     when(httpRequestWithBody.header("Content-Type", "application/json"))
         .thenReturn(httpRequestWithBody);
     when(httpRequestWithBody.header("Authorization", "Basic " + base64Creds))
         .thenReturn(httpRequestWithBody);
-    when(httpRequestWithBody.body("{\n    \"username\" : \"" + clientUsername + "\",\n"
-        + "\"password\" : \"" + clientPassword + "\",\n"
-        + "\"grant_type\": \"password\"\n}")
-        ).thenReturn(requestBodyEntity);
-    when(requestBodyEntity.asJson()).thenReturn(httpResponse);
-    when(httpResponse.getBody()).thenReturn(jsonNode);
-    when(jsonNode.getObject()).thenReturn(json);
-    when(json.get(PcmtAuthService.ACCESS_TOKEN)).thenReturn(TOKEN);
+    when(httpRequestWithBody.body(anyString())).thenReturn(requestBodyEntity);
+    when(requestBodyEntity.asJson()).thenReturn(httpResponse, newHttpResponse);
+
+    mockResponse(httpResponse, TOKEN);
+    mockResponse(newHttpResponse, NEW_TOKEN);
+  }
 
+  @Test
+  public void shouldObtainAccessToken() throws UnirestException {
     String token = pcmtAuthService.obtainAccessToken();
+
     assertThat(token, is(equalTo(TOKEN)));
+    verify(httpRequestWithBody).body("{\n    \"username\" : \"" + clientUsername + "\",\n"
+        + "\"password\" : \"" + clientPassword + "\",\n"
+        + "\"grant_type\": \"password\"\n}");
+  }
+
+  @Test
+  public void shouldReturnCachedTokenUntilItIsAboutToExpire() {
+    pcmtAuthService.obtainAccessToken();
+    when(clock.instant()).thenReturn(NOW.plusSeconds(EXPIRES_IN - REFRESH_MARGIN - 1));
 
+    assertThat(pcmtAuthService.obtainAccessToken(), is(equalTo(TOKEN)));
+    verify(requestBodyEntity).asJson();
+  }
+
+  @Test
+  public void shouldRefreshTokenWithRefreshTokenGrantBeforeItExpires() {
+    pcmtAuthService.obtainAccessToken();
+    when(clock.instant()).thenReturn(NOW.plusSeconds(EXPIRES_IN - REFRESH_MARGIN));
+
+    assertThat(pcmtAuthService.obtainAccessToken(), is(equalTo(NEW_TOKEN)));
+
+    ArgumentCaptor<String> bodies = ArgumentCaptor.forClass(String.class);
+    verify(httpRequestWithBody, times(2)).body(bodies.capture());
+    assertThat(bodies.getAllValues().get(1), containsString("\"grant_type\": \"refresh_token\""));
+    assertThat(bodies.getAllValues().get(1), containsString(REFRESH_TOKEN));
+  }
+
+  @Test
+  public void shouldUseCredentialsIfTokenCouldNotBeRefreshed() {
+    HttpResponse<JsonNode> errorResponse = newHttpResponse;
+    when(requestBodyEntity.asJson()).thenReturn(httpResponse, errorResponse, httpResponse);
+    when(errorResponse.isSuccess()).thenReturn(false);
+    when(errorResponse.getStatus()).thenReturn(400);
+
+    pcmtAuthService.obtainAccessToken();
+    when(clock.instant()).thenReturn(NOW.plusSeconds(EXPIRES_IN));
+
+    assertThat(pcmtAuthService.obtainAccessToken(), is(equalTo(TOKEN)));
+
+    ArgumentCaptor<String> bodies = ArgumentCaptor.forClass(String.class);
+    verify(httpRequestWithBody, times(3)).body(bodies.capture());
+    assertThat(bodies.getAllValues().get(2), containsString("\"grant_type\": \"password\""));
+  }
+
+  @Test
+  public void shouldRequestNewTokenAfterInvalidation() {
+    pcmtAuthService.obtainAccessToken();
+    pcmtAuthService.invalidateAccessToken(TOKEN);
+
+    assertThat(pcmtAuthService.obtainAccessToken(), is(equalTo(NEW_TOKEN)));
+  }
+
+  @Test
+  public void shouldNotInvalidateTokenThatHasAlreadyBeenReplaced() {
+    pcmtAuthService.obtainAccessToken();
+    pcmtAuthService.invalidateAccessToken(NEW_TOKEN);
+
+    assertThat(pcmtAuthService.obtainAccessToken(), is(equalTo(TOKEN)));
+    verify(requestBodyEntity).asJson();
+  }
+
+  @Test
+  public void shouldSendSingleRequestForConcurrentCallers() throws Exception {
+    when(requestBodyEntity.asJson()).thenAnswer(invocation -> {
+      Thread.sleep(100);
+      return httpResponse;
+    });
+
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    List<Future<String>> tokens = new ArrayList<>();
+    Callable<String> task = () -> pcmtAuthService.obtainAccessToken();
+    for (int i = 0; i < 8; ++i) {
+      tokens.add(executor.submit(task));
+    }
+
+    for (Future<String> token : tokens) {
+      assertThat(token.get(), is(equalTo(TOKEN)));
+    }
+    executor.shutdown();
+
+    verify(requestBodyEntity).asJson();
+  }
+
+  private void mockResponse(HttpResponse<JsonNode> response, String token) {
+    when(response.isSuccess()).thenReturn(true);
+    when(response.getStatus()).thenReturn(200);
+    when(response.getBody()).thenReturn(new JsonNode("{\"access_token\":\"" + token + "\","
+        + "\"refresh_token\":\"" + REFRESH_TOKEN + "\",\"expires_in\":" + EXPIRES_IN + "}"));
   }
 
   private String setPlainCreds() {
@@ -128,5 +226,3 @@ public class PcmtAuthServiceTest {
   }
 
 }
-
-
@@ -0,0 +1,406 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.integration.pcmt.service.fetch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Matchers.isNull;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+import org.openlmis.integration.pcmt.domain.ExecutionStatus;
+import org.openlmis.integration.pcmt.domain.Integration;
+import org.openlmis.integration.pcmt.domain.IntegrationRun;
+import org.openlmis.integration.pcmt.repository.IntegrationRepository;
+import org.openlmis.integration.pcmt.service.IntegrationPipeline;
+import org.openlmis.integration.pcmt.service.OrderableFingerprintService;
+import org.openlmis.integration.pcmt.service.PcmtLongBuilder;
+import org.openlmis.integration.pcmt.service.pcmt.PaginationType;
+import org.openlmis.integration.pcmt.service.pcmt.PcmtDataService;
+import org.openlmis.integration.pcmt.service.pcmt.PcmtRequestException;
+import org.openlmis.integration.pcmt.service.pcmt.dto.Embedded;
+import org.openlmis.integration.pcmt.service.pcmt.dto.Href;
+import org.openlmis.integration.pcmt.service.pcmt.dto.Item;
+import org.openlmis.integration.pcmt.service.pcmt.dto.Links;
+import org.openlmis.integration.pcmt.service.pcmt.dto.PcmtResponseBody;
+import org.openlmis.integration.pcmt.service.referencedata.orderable.OrderableDto;
+import org.openlmis.integration.pcmt.testbuilder.IntegrationDataBuilder;
+import org.openlmis.integration.pcmt.testbuilder.ItemDataBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@SuppressWarnings("PMD.TooManyMethods")
+public class OrderableIntegrationFetchTaskTest {
+
+  private static final int PAGE_LIMIT = 2;
+  private static final int PAGE_COUNT = 5;
+  private static final String NEXT_URL = "http://pcmt/api/rest/v1/products?search_after=";
+  private static final Clock CLOCK = Clock.fixed(Instant.now(), ZoneOffset.UTC);
+  private static final ZonedDateTime FIRST_UPDATE = ZonedDateTime.parse("2020-05-01T10:00:00Z");
+
+  @Rule
+  public MockitoRule mockitoRule = MockitoJUnit.rule();
+
+  @Mock
+  private PcmtDataService pcmtDataService;
+
+  @Mock
+  private IntegrationRepository integrationRepository;
+
+  @Mock
+  private OrderableFingerprintService orderableFingerprintService;
+
+  private PcmtLongBuilder pcmtLongBuilder = new PcmtLongBuilder();
+
+  private IntegrationPipeline<OrderableDto> pipeline = new IntegrationPipeline<>(100);
+
+  private Integration integration = new IntegrationDataBuilder().build();
+
+  private IntegrationRun run = IntegrationRun.forAutomaticExecution(integration, true, CLOCK);
+
+  private List<UUID> expectedIds = new ArrayList<>();
+
+  private List<List<Item>> pages = new ArrayList<>();
+
+  private ZonedDateTime latestUpdate = FIRST_UPDATE;
+
+  @Before
+  public void setUp() {
+    when(pcmtDataService.getPageLimit()).thenReturn(PAGE_LIMIT);
+    ReflectionTestUtils.setField(pcmtLongBuilder, "groupingSeparator", ",");
+    ReflectionTestUtils.setField(pcmtLongBuilder, "decimalSeparator", ".");
+
+    for (int pageNumber = 1; pageNumber <= PAGE_COUNT; ++pageNumber) {
+      List<Item> items = new ArrayList<>();
+      for (int i = 0; i < PAGE_LIMIT; ++i) {
+        // products are not sorted by the update date
+        ZonedDateTime updated = FIRST_UPDATE.plusMinutes((pageNumber * 7L + i * 3L) % 10);
+        latestUpdate = updated.isAfter(latestUpdate) ? updated : latestUpdate;
+
+        Item item = new ItemDataBuilder()
+            .withUpdated(updated.withZoneSameInstant(ZoneOffset.ofHours(2)).toString())
+            .build();
+        expectedIds.add(UUID.fromString(item.getValues().getLmisUuid().get(0).getData()));
+        items.add(item);
+      }
+      pages.add(items);
+      when(pcmtDataService.downloadData(pageNumber, null)).thenReturn(createPage(items));
+    }
+    pages.add(Collections.emptyList());
+
+    when(pcmtDataService.downloadData(anyInt(), any(ZonedDateTime.class), any(Consumer.class)))
+        .thenAnswer(invocation -> streamPage(
+            (Integer) invocation.getArguments()[0], invocation.getArguments()[2]));
+
+    when(pcmtDataService.downloadFirstPage(any(ZonedDateTime.class), any(Consumer.class)))
+        .thenAnswer(invocation -> streamCursorPage(1, invocation.getArguments()[1]));
+
+    when(pcmtDataService.downloadData(anyString(), any(Consumer.class)))
+        .thenAnswer(invocation -> streamCursorPage(
+            Integer.parseInt(((String) invocation.getArguments()[0]).replace(NEXT_URL, "")),
+            invocation.getArguments()[1]));
+  }
+
+  @Test
+  public void shouldStreamAllPagesSequentially() {
+    createTask(null, 1).run();
+
+    assertThat(getQueuedIds()).isEqualTo(expectedIds);
+    verify(pcmtDataService, times(PAGE_COUNT + 1))
+        .downloadData(anyInt(), isNull(ZonedDateTime.class), any(Consumer.class));
+    verify(pcmtDataService, never()).downloadData(anyInt(), any(ZonedDateTime.class));
+  }
+
+  @Test
+  public void shouldFetchPagesConcurrentlyAndKeepPageOrder() {
+    createTask(null, 3).run();
+
+    assertThat(getQueuedIds()).isEqualTo(expectedIds);
+    verify(pcmtDataService, times(PAGE_COUNT))
+        .downloadData(anyInt(), isNull(ZonedDateTime.class));
+    // the last (empty) page is checked again after all pages counted at the beginning
+    verify(pcmtDataService)
+        .downloadData(eq(PAGE_COUNT + 1), isNull(ZonedDateTime.class), any(Consumer.class));
+  }
+
+  @Test
+  public void shouldFallBackToSequentialFetchIfItemsCountIsMissing() {
+    PcmtResponseBody firstPage = pcmtDataService.downloadData(1, null);
+    firstPage.setItemsCount(null);
+
+    createTask(null, 3).run();
+
+    assertThat(getQueuedIds()).isEqualTo(expectedIds);
+  }
+
+  @Test
+  public void shouldFollowNextLinksUntilThereIsNoNextLink() {
+    when(pcmtDataService.getPaginationType()).thenReturn(PaginationType.SEARCH_AFTER);
+
+    createTask(null, 3).run();
+
+    assertThat(getQueuedIds()).isEqualTo(expectedIds);
+    verify(pcmtDataService).downloadFirstPage(isNull(ZonedDateTime.class), any(Consumer.class));
+    verify(pcmtDataService, times(PAGE_COUNT - 1)).downloadData(anyString(), any(Consumer.class));
+    verify(pcmtDataService, never()).downloadData(anyInt(), any(ZonedDateTime.class));
+  }
+
+  @Test
+  public void shouldSetLastSyncDateToTheLatestUpdateDateOfFetchedProducts() {
+    createTask(null, 1).run();
+
+    // the date is moved forward only after all fetched products have been sent
+    verify(integrationRepository, never())
+        .updateLastSyncDate(any(UUID.class), any(ZonedDateTime.class));
+    pipeline.complete();
+
+    ArgumentCaptor<ZonedDateTime> captor = ArgumentCaptor.forClass(ZonedDateTime.class);
+    verify(integrationRepository).updateLastSyncDate(eq(integration.getId()), captor.capture());
+    assertThat(captor.getValue().isEqual(latestUpdate)).isTrue();
+  }
+
+  @Test
+  public void shouldNotUpdateLastSyncDateIfSomeProductsCouldNotBeSent() {
+    createTask(null, 1).run();
+    run.addFailedItem(expectedIds.get(0), null, new IllegalStateException("error"), 0);
+    pipeline.complete();
+
+    verify(integrationRepository, never())
+        .updateLastSyncDate(any(UUID.class), any(ZonedDateTime.class));
+  }
+
+  @Test
+  public void shouldNotUpdateLastSyncDateIfSendFailed() {
+    createTask(null, 1).run();
+    pipeline.fail(new IllegalStateException("send failed"));
+
+    verify(integrationRepository, never())
+        .updateLastSyncDate(any(UUID.class), any(ZonedDateTime.class));
+  }
+
+  @Test
+  public void shouldFetchOnlyProductsUpdatedSinceTheGivenDate() {
+    when(pcmtDataService.getPaginationType()).thenReturn(PaginationType.SEARCH_AFTER);
+    doReturn(createPage(Collections.emptyList()))
+        .when(pcmtDataService).downloadFirstPage(eq(FIRST_UPDATE), any(Consumer.class));
+
+    createTask(FIRST_UPDATE, 1).run();
+
+    assertThat(pipeline.size()).isZero();
+    verify(pcmtDataService).downloadFirstPage(eq(FIRST_UPDATE), any(Consumer.class));
+    verify(integrationRepository, never())
+        .updateLastSyncDate(any(UUID.class), any(ZonedDateTime.class));
+  }
+
+  @Test
+  public void shouldSkipProductsThatHaveNotChangedSinceTheyWereLastSent() {
+    when(pcmtDataService.getPaginationType()).thenReturn(PaginationType.SEARCH_AFTER);
+    when(orderableFingerprintService.isUnchanged(any(OrderableDto.class)))
+        .thenAnswer(invocation -> expectedIds.indexOf(
+            ((OrderableDto) invocation.getArguments()[0]).getId()) % 2 == 0);
+
+    createTask(FIRST_UPDATE, 1).run();
+
+    List<UUID> queuedIds = getQueuedIds();
+    assertThat(queuedIds).hasSize(PAGE_LIMIT * PAGE_COUNT / 2);
+    assertThat(run.getUnchangedEntities()).isEqualTo(PAGE_LIMIT * PAGE_COUNT / 2);
+    for (int i = 1; i < expectedIds.size(); i += 2) {
+      assertThat(queuedIds).contains(expectedIds.get(i));
+    }
+  }
+
+  @Test
+  public void shouldNotSkipUnchangedProductsDuringFullSync() {
+    when(orderableFingerprintService.isUnchanged(any(OrderableDto.class))).thenReturn(true);
+
+    createTask(null, 1).run();
+
+    assertThat(getQueuedIds()).isEqualTo(expectedIds);
+    verify(orderableFingerprintService, never()).isUnchanged(any(OrderableDto.class));
+  }
+
+  @Test
+  public void shouldWaitForFreeSpaceInTheQueue() throws InterruptedException {
+    pipeline = new IntegrationPipeline<>(PAGE_LIMIT);
+    Thread fetchThread = new Thread(createTask(null, 1));
+    fetchThread.start();
+
+    List<UUID> sentIds = new ArrayList<>();
+    for (OrderableDto dto = pipeline.take(); null != dto; dto = pipeline.take()) {
+      TimeUnit.MILLISECONDS.sleep(5);
+      sentIds.add(dto.getId());
+    }
+    fetchThread.join(TimeUnit.SECONDS.toMillis(5));
+
+    assertThat(sentIds).isEqualTo(expectedIds);
+    assertThat(pipeline.getProducerWaitTime().isZero()).isFalse();
+  }
+
+  @Test
+  public void shouldReadWholePageIfSendTaskIsBehind() throws InterruptedException {
+    pipeline = new IntegrationPipeline<>(1);
+    CountDownLatch firstPageRead = new CountDownLatch(1);
+    doAnswer(invocation -> {
+      PcmtResponseBody page = streamPage(1, invocation.getArguments()[2]);
+      firstPageRead.countDown();
+      return page;
+    }).when(pcmtDataService).downloadData(eq(1), isNull(ZonedDateTime.class), any(Consumer.class));
+    Thread fetchThread = new Thread(createTask(null, 1));
+    fetchThread.start();
+
+    // the second product does not fit in the queue and waits until the response is closed
+    assertThat(firstPageRead.await(5, TimeUnit.SECONDS)).isTrue();
+    assertThat(pipeline.size()).isEqualTo(1);
+
+    List<UUID> queuedIds = getQueuedIds();
+    fetchThread.join(TimeUnit.SECONDS.toMillis(5));
+
+    assertThat(queuedIds).isEqualTo(expectedIds);
+  }
+
+  @Test
+  public void shouldStopWaitingForTheQueueIfInterrupted() throws InterruptedException {
+    pipeline = new IntegrationPipeline<>(PAGE_LIMIT);
+    Thread fetchThread = new Thread(createTask(null, 1));
+    fetchThread.start();
+
+    while (pipeline.size() < pipeline.getCapacity()) {
+      TimeUnit.MILLISECONDS.sleep(5);
+    }
+    fetchThread.interrupt();
+    fetchThread.join(TimeUnit.SECONDS.toMillis(5));
+    pipeline.complete();
+
+    assertThat(fetchThread.isAlive()).isFalse();
+    assertThat(pipeline.isEndOfStream()).isTrue();
+    assertThat(pipeline.size()).isEqualTo(PAGE_LIMIT);
+    verify(integrationRepository, never())
+        .updateLastSyncDate(any(UUID.class), any(ZonedDateTime.class));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void shouldStopIfSendTaskHasFailed() {
+    pipeline = new IntegrationPipeline<>(PAGE_LIMIT);
+    pipeline.fail(new IllegalStateException("send task failed"));
+
+    try {
+      createTask(null, 1).run();
+    } finally {
+      assertThat(pipeline.isEndOfStream()).isTrue();
+      verify(pcmtDataService).downloadData(eq(1), isNull(ZonedDateTime.class),
+          any(Consumer.class));
+    }
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void shouldNotUpdateLastSyncDateIfFetchFailed() {
+    when(pcmtDataService.downloadData(3, null)).thenThrow(new IllegalStateException("error"));
+
+    try {
+      createTask(null, 3).run();
+    } finally {
+      verify(integrationRepository, never())
+          .updateLastSyncDate(any(UUID.class), any(ZonedDateTime.class));
+    }
+  }
+
+  @Test
+  public void shouldFailRunIfPageCouldNotBeDownloaded() {
+    PcmtRequestException error = new PcmtRequestException(NEXT_URL, 500, "Server Error");
+    doThrow(error).when(pcmtDataService)
+        .downloadData(eq(2), isNull(ZonedDateTime.class), any(Consumer.class));
+    pipeline.getCompletion().whenComplete((result, exp) -> run.finish(null == exp, CLOCK));
+
+    try {
+      createTask(null, 1).run();
+    } catch (PcmtRequestException exp) {
+      assertThat(exp).isSameAs(error);
+    }
+    // the send task completes the pipeline after it has sent products of the first page
+    assertThat(getQueuedIds()).hasSize(PAGE_LIMIT);
+    pipeline.complete();
+
+    assertThat(pipeline.getCompletion().isCompletedExceptionally()).isTrue();
+    assertThat(run.getStatus()).isEqualTo(ExecutionStatus.ERROR);
+    verify(integrationRepository, never())
+        .updateLastSyncDate(any(UUID.class), any(ZonedDateTime.class));
+  }
+
+  private OrderableIntegrationFetchTask createTask(ZonedDateTime updatedSince,
+      int concurrentRequests) {
+    return new OrderableIntegrationFetchTask(pcmtDataService, pcmtLongBuilder,
+        orderableFingerprintService, pipeline, integration, run, integrationRepository,
+        updatedSince, CLOCK, concurrentRequests);
+  }
+
+  private List<UUID> getQueuedIds() {
+    List<UUID> ids = new ArrayList<>();
+    try {
+      for (OrderableDto dto = pipeline.take(); null != dto; dto = pipeline.take()) {
+        ids.add(dto.getId());
+      }
+    } catch (InterruptedException exp) {
+      throw new IllegalStateException(exp);
+    }
+    return ids;
+  }
+
+  @SuppressWarnings("unchecked")
+  private PcmtResponseBody streamPage(int pageNumber, Object consumer) {
+    pages.get(pageNumber - 1).forEach((Consumer<Item>) consumer);
+    return createPage(null);
+  }
+
+  private PcmtResponseBody streamCursorPage(int pageNumber, Object consumer) {
+    PcmtResponseBody page = streamPage(pageNumber, consumer);
+    if (pageNumber < PAGE_COUNT) {
+      page.setLinks(new Links(null, null, null, new Href(NEXT_URL + (pageNumber + 1))));
+    }
+    return page;
+  }
+
+  private PcmtResponseBody createPage(List<Item> items) {
+    PcmtResponseBody body = new PcmtResponseBody();
+    body.setEmbedded(null == items ? null : new Embedded(items));
+    body.setItemsCount(PAGE_LIMIT * PAGE_COUNT);
+    return body;
+  }
+}
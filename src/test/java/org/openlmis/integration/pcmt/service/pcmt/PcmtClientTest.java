@@ -0,0 +1,141 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.integration.pcmt.service.pcmt;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPOutputStream;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.openlmis.integration.pcmt.service.pcmt.dto.Item;
+import org.openlmis.integration.pcmt.service.pcmt.dto.PcmtResponseBody;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class PcmtClientTest {
+
+  private static final int PAGES = 5;
+  private static final String TOKEN = "token";
+  private static final String PAGE = "{\"_links\":{\"self\":{\"href\":\"self\"}},"
+      + "\"_embedded\":{\"items\":[{\"identifier\":\"product\"}]}}";
+  private static final String TRUNCATED_PAGE =
+      "{\"_embedded\":{\"items\":[{\"identifier\":\"product\"},{\"identifier\":";
+
+  private HttpServer server;
+  private String url;
+
+  private Set<Integer> clientPorts = ConcurrentHashMap.newKeySet();
+  private List<String> acceptEncodings = new ArrayList<>();
+  private List<String> authorizations = new ArrayList<>();
+
+  private PcmtClient client = new PcmtClient();
+
+  @Before
+  public void setUp() throws IOException {
+    server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    server.createContext("/products", exchange -> handle(exchange, PAGE));
+    server.createContext("/truncated", exchange -> handle(exchange, TRUNCATED_PAGE));
+    server.start();
+    url = "http://localhost:" + server.getAddress().getPort() + "/products";
+
+    ReflectionTestUtils.setField(client, "maxConnections", 2);
+    ReflectionTestUtils.setField(client, "connectTimeout", 1000);
+    ReflectionTestUtils.setField(client, "socketTimeout", 1000);
+    client.init();
+  }
+
+  @After
+  public void tearDown() {
+    client.destroy();
+    server.stop(0);
+  }
+
+  @Test
+  public void shouldReuseConnectionForNextPages() {
+    for (int page = 1; page <= PAGES; ++page) {
+      client.getPage(url + "?page=" + page, TOKEN, item -> { });
+    }
+
+    assertThat(authorizations).hasSize(PAGES);
+    assertThat(clientPorts).hasSize(1);
+  }
+
+  @Test
+  public void shouldRequestAndDecompressGzipResponses() {
+    List<Item> items = new ArrayList<>();
+    PcmtResponseBody body = client.getPage(url, TOKEN, items::add);
+
+    assertThat(acceptEncodings).hasSize(1);
+    assertThat(acceptEncodings.get(0)).contains("gzip");
+    assertThat(items).extracting(Item::getIdentifier).containsExactly("product");
+    assertThat(body.getLinks().getSelf().getHref()).isEqualTo("self");
+  }
+
+  @Test
+  public void shouldSendAccessToken() {
+    client.getPage(url, TOKEN, item -> { });
+
+    assertThat(authorizations).containsExactly("Bearer " + TOKEN);
+  }
+
+  @Test
+  public void shouldPassReadErrorAsCause() {
+    List<Item> items = new ArrayList<>();
+
+    assertThatThrownBy(() -> client.getPage(url.replace("/products", "/truncated"), TOKEN,
+        items::add))
+        .isInstanceOf(PcmtRequestException.class)
+        .hasCauseInstanceOf(JsonProcessingException.class);
+    // products are passed on while the response is read
+    assertThat(items).extracting(Item::getIdentifier).containsExactly("product");
+  }
+
+  @Test
+  public void shouldRethrowConsumerErrors() {
+    IllegalStateException error = new IllegalStateException("send task has stopped");
+
+    assertThatThrownBy(() -> client.getPage(url, TOKEN, item -> {
+      throw error;
+    })).isSameAs(error);
+  }
+
+  private void handle(HttpExchange exchange, String page) throws IOException {
+    clientPorts.add(exchange.getRemoteAddress().getPort());
+    acceptEncodings.add(exchange.getRequestHeaders().getFirst("Accept-Encoding"));
+    authorizations.add(exchange.getRequestHeaders().getFirst("Authorization"));
+
+    exchange.getResponseHeaders().add("Content-Type", "application/json");
+    exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+    exchange.sendResponseHeaders(200, 0);
+
+    try (OutputStream output = new GZIPOutputStream(exchange.getResponseBody())) {
+      output.write(page.getBytes(StandardCharsets.UTF_8));
+    }
+  }
+
+}
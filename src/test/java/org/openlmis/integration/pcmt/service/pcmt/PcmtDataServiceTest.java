@@ -0,0 +1,126 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.integration.pcmt.service.pcmt;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.ZonedDateTime;
+import java.util.function.Consumer;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+import org.openlmis.integration.pcmt.service.auth.PcmtAuthService;
+import org.openlmis.integration.pcmt.service.pcmt.dto.Item;
+import org.openlmis.integration.pcmt.service.pcmt.dto.PcmtResponseBody;
+import org.springframework.core.env.Environment;
+
+public class PcmtDataServiceTest {
+
+  private static final String TOKEN = "token";
+  private static final String NEW_TOKEN = "new-token";
+  private static final String PAGE_URL = "http://pcmt/api/rest/v1/products?search_after=1";
+
+  @Rule
+  public MockitoRule mockitoRule = MockitoJUnit.rule();
+
+  @Mock
+  private PcmtClient pcmtClient;
+
+  @Mock
+  private PcmtAuthService pcmtAuthService;
+
+  @Mock
+  private Environment env;
+
+  @Mock
+  private Consumer<Item> consumer;
+
+  @InjectMocks
+  private PcmtDataService pcmtDataService;
+
+  private PcmtResponseBody page = new PcmtResponseBody();
+
+  @Before
+  public void setUp() {
+    when(env.getProperty("pcmt.url")).thenReturn("http://pcmt");
+    when(pcmtAuthService.obtainAccessToken()).thenReturn(TOKEN, NEW_TOKEN);
+  }
+
+  @Test
+  public void shouldRetryOnceWithNewTokenIfTokenHasBeenRejected() {
+    when(pcmtClient.getPage(PAGE_URL, TOKEN, consumer))
+        .thenThrow(new PcmtRequestException(PAGE_URL, 401, "Unauthorized"));
+    when(pcmtClient.getPage(PAGE_URL, NEW_TOKEN, consumer)).thenReturn(page);
+
+    assertThat(pcmtDataService.downloadData(PAGE_URL, consumer)).isSameAs(page);
+    verify(pcmtAuthService).invalidateAccessToken(TOKEN);
+  }
+
+  @Test(expected = PcmtRequestException.class)
+  public void shouldNotRetryIfRequestFailedForOtherReason() {
+    when(pcmtClient.getPage(PAGE_URL, TOKEN, consumer))
+        .thenThrow(new PcmtRequestException(PAGE_URL, 500, "Internal Server Error"));
+
+    try {
+      pcmtDataService.downloadData(PAGE_URL, consumer);
+    } finally {
+      verify(pcmtAuthService, never()).invalidateAccessToken(anyString());
+      verify(pcmtClient, never()).getPage(eq(PAGE_URL), eq(NEW_TOKEN), any(Consumer.class));
+    }
+  }
+
+  @Test
+  public void shouldLimitProductsToLmisCategory() throws UnsupportedEncodingException {
+    assertThat(decode(pcmtDataService.getSearch(null)))
+        .isEqualTo("{\"categories\":[{\"operator\":\"IN\",\"value\":[\"LMIS\"]}]}");
+  }
+
+  @Test
+  public void shouldLimitProductsToUpdatedInOrAfterTheSecondOfTheGivenDateInUtc()
+      throws UnsupportedEncodingException {
+    ZonedDateTime updatedSince = ZonedDateTime.parse("2020-05-01T12:30:15+02:00");
+
+    // PCMT has no >= operator, products updated at 10:30:15 are fetched again
+    assertThat(decode(pcmtDataService.getSearch(updatedSince)))
+        .isEqualTo("{\"categories\":[{\"operator\":\"IN\",\"value\":[\"LMIS\"]}],"
+            + "\"updated\":[{\"operator\":\">\",\"value\":\"2020-05-01 10:30:14\"}]}");
+  }
+
+  @Test
+  public void shouldEncodeSpacesAsPercentSequence() {
+    assertThat(pcmtDataService.getSearch(ZonedDateTime.parse("2020-05-01T10:30:15Z")))
+        .contains("%20")
+        .doesNotContain("+")
+        .doesNotContain(" ");
+  }
+
+  private String decode(String value) throws UnsupportedEncodingException {
+    return URLDecoder.decode(value, StandardCharsets.UTF_8.name());
+  }
+}
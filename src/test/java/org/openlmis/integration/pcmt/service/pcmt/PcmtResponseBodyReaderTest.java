@@ -0,0 +1,89 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.integration.pcmt.service.pcmt;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+import org.openlmis.integration.pcmt.service.pcmt.dto.Item;
+import org.openlmis.integration.pcmt.service.pcmt.dto.PcmtResponseBody;
+
+public class PcmtResponseBodyReaderTest {
+
+  private static final String PAGE = "{"
+      + "\"_links\":{\"self\":{\"href\":\"http://pcmt/self\"},"
+      + "\"next\":{\"href\":\"http://pcmt/next\"}},"
+      + "\"current_page\":2,"
+      + "\"unknown\":{\"nested\":[1,2,3]},"
+      + "\"_embedded\":{\"items\":["
+      + "{\"identifier\":\"first\",\"updated\":\"2020-05-01T10:00:00+00:00\",\"extra\":true},"
+      + "{\"identifier\":\"second\",\"values\":{}}"
+      + "]},"
+      + "\"items_count\":10"
+      + "}";
+
+  private PcmtResponseBodyReader reader = new PcmtResponseBodyReader();
+
+  private List<Item> items = new ArrayList<>();
+
+  @Test
+  public void shouldPassItemsToConsumerInResponseOrder() throws IOException {
+    reader.read(toStream(PAGE), items::add);
+
+    assertThat(items)
+        .extracting(Item::getIdentifier)
+        .containsExactly("first", "second");
+    assertThat(items.get(0).getUpdated()).isEqualTo("2020-05-01T10:00:00+00:00");
+  }
+
+  @Test
+  public void shouldReadPageDetailsWithoutItems() throws IOException {
+    PcmtResponseBody body = reader.read(toStream(PAGE), items::add);
+
+    assertThat(body.getLinks().getSelf().getHref()).isEqualTo("http://pcmt/self");
+    assertThat(body.getLinks().getNext().getHref()).isEqualTo("http://pcmt/next");
+    assertThat(body.getCurrentPage()).isEqualTo(2);
+    assertThat(body.getItemsCount()).isEqualTo(10);
+    assertThat(body.getEmbedded()).isNull();
+  }
+
+  @Test
+  public void shouldHandleEmptyPage() throws IOException {
+    PcmtResponseBody body = reader.read(
+        toStream("{\"_links\":{},\"_embedded\":{\"items\":[]},\"items_count\":null}"),
+        items::add);
+
+    assertThat(items).isEmpty();
+    assertThat(body.getLinks().getNext()).isNull();
+    assertThat(body.getItemsCount()).isNull();
+  }
+
+  @Test(expected = JsonParseException.class)
+  public void shouldThrowExceptionIfResponseIsNotJsonObject() throws IOException {
+    reader.read(toStream("[]"), items::add);
+  }
+
+  private InputStream toStream(String body) {
+    return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+  }
+}
@@ -0,0 +1,122 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.integration.pcmt.service.referencedata.orderable;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.UUID;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+
+public class OrderableIndexTest {
+
+  private static final String PRODUCT_CODE = "C100";
+
+  @Rule
+  public MockitoRule mockitoRule = MockitoJUnit.rule();
+
+  @Mock
+  private OrderableReferenceDataService service;
+
+  private OrderableDto first;
+  private OrderableDto second;
+  private OrderableDto third;
+
+  @Before
+  public void setUp() {
+    first = createOrderable(PRODUCT_CODE);
+    second = createOrderable("C200");
+    third = createOrderable("C300");
+
+    ProgramOrderableDto program = new ProgramOrderableDto();
+    program.setProgramId(UUID.randomUUID());
+    first.getPrograms().add(program);
+    first.getMeta().setVersionNumber(3L);
+
+    when(service.findAll(0, 2))
+        .thenReturn(new PageImpl<>(Arrays.asList(first, second), new PageRequest(0, 2), 3));
+    when(service.findAll(1, 2))
+        .thenReturn(new PageImpl<>(Collections.singletonList(third), new PageRequest(1, 2), 3));
+  }
+
+  @Test
+  public void shouldRetrieveAllPagesOfOrderables() {
+    OrderableIndex index = OrderableIndex.build(service, 2);
+
+    assertThat(index.size()).isEqualTo(3);
+    verify(service).findAll(0, 2);
+    verify(service).findAll(1, 2);
+  }
+
+  @Test
+  public void shouldFindOrderableById() {
+    OrderableIndex index = OrderableIndex.build(service, 2);
+
+    OrderableDto found = index.find(createOrderable(first.getId(), "other"));
+
+    assertThat(found.getId()).isEqualTo(first.getId());
+    assertThat(found.getMeta().getVersionNumber()).isEqualTo(3L);
+    assertThat(found.getPrograms()).isEqualTo(first.getPrograms());
+  }
+
+  @Test
+  public void shouldFindOrderableWithoutIdByProductCode() {
+    OrderableIndex index = OrderableIndex.build(service, 2);
+
+    assertThat(index.find(createOrderable(null, PRODUCT_CODE)).getId())
+        .isEqualTo(first.getId());
+  }
+
+  @Test
+  public void shouldReturnNullIfOrderableDoesNotExist() {
+    OrderableIndex index = OrderableIndex.build(service, 2);
+
+    assertThat(index.find(createOrderable("C400"))).isNull();
+    assertThat(index.find(createOrderable(null, null))).isNull();
+  }
+
+  @Test
+  public void shouldIgnoreOrderablesWithoutId() {
+    OrderableIndex index = new OrderableIndex();
+
+    index.add(createOrderable(null, PRODUCT_CODE));
+    index.add(null);
+
+    assertThat(index.size()).isZero();
+  }
+
+  private OrderableDto createOrderable(String productCode) {
+    return createOrderable(UUID.randomUUID(), productCode);
+  }
+
+  private OrderableDto createOrderable(UUID id, String productCode) {
+    OrderableDto orderable = new OrderableDto();
+    orderable.setId(id);
+    orderable.setProductCode(productCode);
+    return orderable;
+  }
+
+}
@@ -0,0 +1,79 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.integration.pcmt.service.referencedata.orderable;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import java.util.Map;
+import java.util.UUID;
+import org.junit.Before;
+import org.junit.Test;
+import org.openlmis.integration.pcmt.service.BaseCommunicationService;
+import org.openlmis.integration.pcmt.service.referencedata.BaseReferenceDataServiceTest;
+
+public class OrderableReferenceDataServiceTest
+    extends BaseReferenceDataServiceTest<OrderableDto> {
+
+  private OrderableReferenceDataService service;
+
+  @Override
+  protected OrderableDto generateInstance() {
+    OrderableDto orderable = new OrderableDto();
+    orderable.setId(UUID.randomUUID());
+    return orderable;
+  }
+
+  @Override
+  protected BaseCommunicationService<OrderableDto> getService() {
+    return new OrderableReferenceDataService();
+  }
+
+  @Override
+  @Before
+  public void setUp() {
+    super.setUp();
+    service = (OrderableReferenceDataService) prepareService();
+  }
+
+  @Test
+  public void shouldFindOrderablesByIds() {
+    // given
+    OrderableDto first = generateInstance();
+    OrderableDto second = generateInstance();
+    UUID missing = UUID.randomUUID();
+
+    // when
+    mockPageResponseEntity(ImmutableList.of(first, second));
+    Map<UUID, OrderableDto> result = service
+        .findByIds(ImmutableList.of(first.getId(), second.getId(), missing));
+
+    // then
+    assertThat(result)
+        .hasSize(2)
+        .containsEntry(first.getId(), first)
+        .containsEntry(second.getId(), second);
+
+    verifyPageRequest()
+        .isGetRequest()
+        .hasAuthHeader()
+        .hasEmptyBody()
+        .isUriStartsWith(serviceUrl + "/api/orderables/")
+        .hasQueryParameter("id", missing)
+        .hasQueryParameter("size", 3);
+  }
+
+}
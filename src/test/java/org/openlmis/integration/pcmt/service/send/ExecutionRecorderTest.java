@@ -0,0 +1,220 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.integration.pcmt.service.send;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Clock;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+import org.openlmis.integration.pcmt.domain.Execution;
+import org.openlmis.integration.pcmt.domain.ExecutionResponse;
+import org.openlmis.integration.pcmt.domain.Integration;
+import org.openlmis.integration.pcmt.domain.IntegrationRun;
+import org.openlmis.integration.pcmt.domain.IntegrationRunItem;
+import org.openlmis.integration.pcmt.repository.ExecutionRepository;
+import org.openlmis.integration.pcmt.repository.IntegrationRunItemRepository;
+import org.openlmis.integration.pcmt.testbuilder.IntegrationDataBuilder;
+import org.openlmis.integration.pcmt.testbuilder.IntegrationRunDataBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@SuppressWarnings("PMD.TooManyMethods")
+public class ExecutionRecorderTest {
+
+  private static final Integration INTEGRATION = new IntegrationDataBuilder().build();
+
+  @Rule
+  public MockitoRule mockitoRule = MockitoJUnit.rule();
+
+  @Mock
+  private ExecutionRepository executionRepository;
+
+  @Mock
+  private IntegrationRunItemRepository integrationRunItemRepository;
+
+  @InjectMocks
+  private ExecutionRecorder recorder;
+
+  private List<Execution> saved = Collections.synchronizedList(new ArrayList<>());
+  private List<IntegrationRunItem> savedItems = Collections.synchronizedList(new ArrayList<>());
+
+  @Before
+  public void setUp() {
+    when(executionRepository.save(any(Iterable.class))).thenAnswer(invocation -> {
+      ((Iterable<Execution>) invocation.getArguments()[0]).forEach(saved::add);
+      return null;
+    });
+    when(integrationRunItemRepository.save(any(Iterable.class))).thenAnswer(invocation -> {
+      ((Iterable<IntegrationRunItem>) invocation.getArguments()[0]).forEach(savedItems::add);
+      return null;
+    });
+    ReflectionTestUtils.setField(recorder, "batchSize", 2);
+    ReflectionTestUtils.setField(recorder, "capacity", 10);
+    ReflectionTestUtils.setField(recorder, "flushIntervalMillis", 60_000L);
+    ReflectionTestUtils.setField(recorder, "bodyRetention", ExecutionBodyRetention.ALWAYS);
+    recorder.init();
+  }
+
+  @After
+  public void tearDown() {
+    recorder.shutdown();
+  }
+
+  @Test
+  public void shouldKeepExecutionsUntilBatchIsFull() {
+    recorder.record(createExecution());
+
+    assertThat(saved).isEmpty();
+    assertThat(recorder.getBufferSize()).isEqualTo(1);
+  }
+
+  @Test
+  public void shouldSaveExecutionsInBackgroundWhenBatchIsFull() {
+    Execution first = createExecution();
+    Execution second = createExecution();
+
+    recorder.record(first);
+    recorder.record(second);
+
+    await().until(() -> saved.size() == 2);
+    assertThat(saved).containsExactly(first, second);
+  }
+
+  @Test
+  public void shouldSaveAllExecutionsOnFlush() {
+    Execution execution = createExecution();
+    recorder.record(execution);
+
+    recorder.flush();
+
+    assertThat(saved).containsExactly(execution);
+    assertThat(recorder.getBufferSize()).isZero();
+  }
+
+  @Test
+  public void shouldSaveRunItemsTogetherWithExecutions() {
+    IntegrationRun run = new IntegrationRunDataBuilder().buildAsAutomatic();
+    IntegrationRunItem item = run.addItem(null, "C100",
+        new ExecutionResponse(ZonedDateTime.now(), 201, "created"), 10);
+    Execution execution = createExecution();
+    recorder.record(execution, item);
+    recorder.record(createExecution());
+
+    recorder.flush();
+
+    assertThat(saved).hasSize(2);
+    assertThat(savedItems).containsExactly(item);
+  }
+
+  @Test
+  public void shouldSaveRunItemsWithoutExecutions() {
+    IntegrationRun run = new IntegrationRunDataBuilder().buildAsAutomatic();
+    IntegrationRunItem item = run.addItem(null, "C200",
+        new ExecutionResponse(ZonedDateTime.now(), 201, "created"), 10);
+    recorder.record(item);
+
+    recorder.flush();
+
+    assertThat(saved).isEmpty();
+    assertThat(savedItems).containsExactly(item);
+    verify(executionRepository, never()).save(any(Iterable.class));
+  }
+
+  @Test
+  public void shouldDiscardBodiesOfSuccessfulExecutionsIfOnlyFailuresAreRetained() {
+    ReflectionTestUtils.setField(recorder, "bodyRetention", ExecutionBodyRetention.FAILURES_ONLY);
+    Execution success = createExecution(200);
+    Execution failure = createExecution(500);
+
+    recorder.record(success);
+    recorder.record(failure);
+    recorder.flush();
+
+    assertThat(saved).containsExactly(success, failure);
+    assertThat(success.getRequestBody()).isNull();
+    assertThat(success.getResponse().getBody()).isNull();
+    assertThat(failure.getRequestBody()).isNotNull();
+    assertThat(failure.getResponse().getBody()).isNotNull();
+  }
+
+  @Test
+  public void shouldRetainBodiesOfSampledSuccessfulExecutions() {
+    ReflectionTestUtils.setField(recorder, "bodyRetention", ExecutionBodyRetention.SAMPLED);
+    ReflectionTestUtils.setField(recorder, "bodySampleRate", 1.0);
+    Execution sampled = createExecution(200);
+
+    recorder.record(sampled);
+
+    assertThat(sampled.getRequestBody()).isNotNull();
+
+    ReflectionTestUtils.setField(recorder, "bodySampleRate", 0.0);
+    Execution skipped = createExecution(200);
+
+    recorder.record(skipped);
+
+    assertThat(skipped.getRequestBody()).isNull();
+  }
+
+  @Test
+  public void shouldSaveExecutionsOnShutdown() {
+    Execution execution = createExecution();
+    recorder.record(execution);
+
+    recorder.shutdown();
+
+    assertThat(saved).containsExactly(execution);
+  }
+
+  @Test
+  public void shouldSaveExecutionRightAwayIfInterrupted() {
+    Execution execution = createExecution();
+    when(executionRepository.save(execution)).thenReturn(execution);
+
+    Thread.currentThread().interrupt();
+    recorder.record(execution);
+
+    assertThat(Thread.interrupted()).isTrue();
+    assertThat(recorder.getBufferSize()).isZero();
+  }
+
+  private Execution createExecution() {
+    return Execution.forAutomaticExecution(INTEGRATION, Clock.systemUTC());
+  }
+
+  private Execution createExecution(int statusCode) {
+    Execution execution = createExecution();
+    execution.setRequestBody("{}");
+    execution.markAsDone(new ExecutionResponse(ZonedDateTime.now(), statusCode, "body"),
+        Clock.systemUTC());
+    return execution;
+  }
+
+}
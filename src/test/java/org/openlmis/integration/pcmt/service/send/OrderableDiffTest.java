@@ -0,0 +1,111 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.integration.pcmt.service.send;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.UUID;
+import org.junit.Test;
+import org.openlmis.integration.pcmt.service.referencedata.orderable.DispensableDto;
+import org.openlmis.integration.pcmt.service.referencedata.orderable.OrderableDto;
+import org.openlmis.integration.pcmt.service.referencedata.orderable.ProgramOrderableDto;
+
+public class OrderableDiffTest {
+
+  private static final UUID PROGRAM_ID = UUID.randomUUID();
+  private static final String UNIT = "each";
+
+  private OrderableDto existing = createOrderable();
+  private OrderableDto updated = createOrderable();
+
+  @Test
+  public void shouldNotFindChangesInOrderablesWithSameData() {
+    assertThat(OrderableDiff.hasChanges(existing, updated)).isFalse();
+  }
+
+  @Test
+  public void shouldIgnoreFieldsNotSetByIntegration() {
+    existing.getMeta().setVersionNumber(5L);
+    existing.setExtraData(null);
+
+    assertThat(OrderableDiff.hasChanges(existing, updated)).isFalse();
+  }
+
+  @Test
+  public void shouldFindChangedName() {
+    updated.setFullProductName("Paracetamol 500mg");
+
+    assertThat(OrderableDiff.hasChanges(existing, updated)).isTrue();
+  }
+
+  @Test
+  public void shouldFindChangedNetContent() {
+    updated.setNetContent(20L);
+
+    assertThat(OrderableDiff.hasChanges(existing, updated)).isTrue();
+  }
+
+  @Test
+  public void shouldFindChangedDispensable() {
+    updated.setDispensable(new DispensableDto("bottle", null, null, null));
+
+    assertThat(OrderableDiff.hasChanges(existing, updated)).isTrue();
+  }
+
+  @Test
+  public void shouldIgnoreDispensableFieldsFilledInByOpenLmis() {
+    existing.setDispensable(new DispensableDto(UNIT, UNIT, null, UNIT));
+
+    assertThat(OrderableDiff.hasChanges(existing, updated)).isFalse();
+  }
+
+  @Test
+  public void shouldFindRemovedDispensable() {
+    updated.setDispensable(null);
+
+    assertThat(OrderableDiff.hasChanges(existing, updated)).isTrue();
+  }
+
+  @Test
+  public void shouldFindNewProgram() {
+    ProgramOrderableDto program = createProgram();
+    program.setProgramId(UUID.randomUUID());
+    updated.getPrograms().add(program);
+
+    assertThat(OrderableDiff.hasChanges(existing, updated)).isTrue();
+  }
+
+  private OrderableDto createOrderable() {
+    OrderableDto orderable = new OrderableDto();
+    orderable.setId(UUID.fromString("a1f0c0a1-5c2c-4e0c-8d2a-9a5f0f7a2b11"));
+    orderable.setProductCode("C100");
+    orderable.setFullProductName("Paracetamol");
+    orderable.setDescription("Paracetamol");
+    orderable.setNetContent(10L);
+    orderable.setPackRoundingThreshold(5L);
+    orderable.setRoundToZero(false);
+    orderable.setDispensable(new DispensableDto(UNIT, null, null, null));
+    orderable.getPrograms().add(createProgram());
+    return orderable;
+  }
+
+  private ProgramOrderableDto createProgram() {
+    ProgramOrderableDto program = new ProgramOrderableDto();
+    program.setProgramId(PROGRAM_ID);
+    return program;
+  }
+
+}
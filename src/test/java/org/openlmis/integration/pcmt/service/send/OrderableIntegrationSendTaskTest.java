@@ -16,31 +16,68 @@
 package org.openlmis.integration.pcmt.service.send;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyCollectionOf;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableSet;
 import java.time.Clock;
 import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.UUID;
 import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingDeque;
 import java.util.concurrent.PriorityBlockingQueue;
+import java.util.stream.Collectors;
 import org.junit.Rule;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnit;
 import org.mockito.junit.MockitoRule;
+import org.openlmis.integration.pcmt.domain.Execution;
+import org.openlmis.integration.pcmt.domain.ExecutionResponse;
+import org.openlmis.integration.pcmt.domain.ExecutionStatus;
 import org.openlmis.integration.pcmt.domain.Integration;
-import org.openlmis.integration.pcmt.repository.ExecutionRepository;
+import org.openlmis.integration.pcmt.domain.IntegrationRun;
+import org.openlmis.integration.pcmt.domain.IntegrationRunItem;
+import org.openlmis.integration.pcmt.service.IntegrationPipeline;
+import org.openlmis.integration.pcmt.service.OrderableFingerprintService;
 import org.openlmis.integration.pcmt.service.auth.AuthService;
 import org.openlmis.integration.pcmt.service.referencedata.orderable.OrderableDto;
+import org.openlmis.integration.pcmt.service.referencedata.orderable.OrderableReferenceDataService;
+import org.openlmis.integration.pcmt.service.referencedata.orderable.ProgramOrderableDto;
+import org.openlmis.integration.pcmt.testbuilder.IntegrationRunDataBuilder;
+import org.openlmis.integration.pcmt.web.PostPayloadTaskDto;
+import org.openlmis.integration.pcmt.web.SendWorkerDto;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.RequestEntity;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestTemplate;
 
+@SuppressWarnings("PMD.TooManyMethods")
 public class OrderableIntegrationSendTaskTest {
 
-  private static final String OLMIS_ORDERABLE_URL = "http://localhost/api/orderables";
+  private static final String OLMIS_URL = "http://localhost";
+  private static final String API_PATH = "/api/orderables/";
+  private static final String PUT = "PUT ";
+  private static final String PRODUCT_CODE = "C100";
 
   private static final UUID ADMIN_UUID = UUID.randomUUID();
+  private static final String TOKEN = "token";
+  private static final String NEW_TOKEN = "new-token";
 
   private static final Integration MANUAL_INT = new Integration("",
       "Manual integration");
@@ -66,11 +103,21 @@ public class OrderableIntegrationSendTaskTest {
   private AuthService authService;
 
   @Mock
-  private ExecutionRepository executionRepository;
+  private ExecutionRecorder executionRecorder;
+
+  @Mock
+  private OrderableFingerprintService orderableFingerprintService;
+
+  @Mock
+  private OrderableReferenceDataService orderableReferenceDataService;
+
+  private IntegrationRun run = new IntegrationRunDataBuilder().buildAsManual();
+  private int lookupBatchSize = 1;
+  private int indexPageSize;
 
   @Test
   public void automaticTasksShouldBeBeforeManualTasks() {
-    final BlockingQueue<OrderableDto> msgQueue = getEmptyMsgQueue();
+    final IntegrationPipeline<OrderableDto> msgQueue = getEmptyMsgQueue();
     OrderableIntegrationSendTask automaticTask = createScheduledTask(msgQueue, START);
     OrderableIntegrationSendTask manualTask = createManualTask(msgQueue, START);
 
@@ -84,7 +131,7 @@ public class OrderableIntegrationSendTaskTest {
 
   @Test
   public void oldTasksShouldBeBeforeNewTasks() {
-    final BlockingQueue<OrderableDto> msgQueue = getEmptyMsgQueue();
+    final IntegrationPipeline<OrderableDto> msgQueue = getEmptyMsgQueue();
     OrderableIntegrationSendTask oldTask = createManualTask(msgQueue, START_MINUS_7_DAYS);
     OrderableIntegrationSendTask newTask = createManualTask(msgQueue, START);
 
@@ -96,24 +143,394 @@ public class OrderableIntegrationSendTaskTest {
     assertThat(queue.poll()).isEqualTo(newTask);
   }
 
-  private OrderableIntegrationSendTask createManualTask(BlockingQueue<OrderableDto> queue,
+  @Test
+  public void shouldRetryOnceWithNewTokenIfTokenHasBeenRejected() {
+    when(authService.obtainAccessToken()).thenReturn(TOKEN, NEW_TOKEN);
+    when(restTemplate.exchange(any(RequestEntity.class), eq(OrderableDto.class)))
+        .thenThrow(new HttpClientErrorException(HttpStatus.UNAUTHORIZED))
+        .thenThrow(new HttpClientErrorException(HttpStatus.NOT_FOUND))
+        .thenReturn(new ResponseEntity<>(new OrderableDto(), HttpStatus.CREATED));
+
+    ExecutionResponse response = createManualTask(getEmptyMsgQueue(), START)
+        .send(new OrderableDto());
+
+    assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CREATED.value());
+    verify(authService).invalidateAccessToken(TOKEN);
+  }
+
+  @Test
+  public void shouldSaveFingerprintOfSentOrderable() {
+    OrderableDto orderable = new OrderableDto();
+    when(restTemplate.exchange(any(RequestEntity.class), eq(OrderableDto.class)))
+        .thenThrow(new HttpClientErrorException(HttpStatus.NOT_FOUND))
+        .thenReturn(new ResponseEntity<>(orderable, HttpStatus.CREATED));
+
+    createManualTask(getEmptyMsgQueue(), START).send(orderable);
+
+    verify(orderableFingerprintService).saveFingerprint(orderable);
+  }
+
+  @Test
+  public void shouldSkipUpdateIfOrderableHasNotChanged() {
+    OrderableDto existing = createOrderable(UUID.randomUUID(), 0);
+    when(restTemplate.exchange(any(RequestEntity.class), eq(OrderableDto.class)))
+        .thenReturn(new ResponseEntity<>(existing, HttpStatus.OK));
+
+    OrderableDto orderable = createOrderable(existing.getId(), 0);
+    ExecutionResponse response = createManualTask(getEmptyMsgQueue(), START).send(orderable);
+
+    assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED.value());
+    verify(restTemplate).exchange(any(RequestEntity.class), eq(OrderableDto.class));
+    verify(orderableFingerprintService).saveFingerprint(orderable);
+  }
+
+  @Test
+  public void shouldNotRetryIfRequestFailedForOtherReason() {
+    when(authService.obtainAccessToken()).thenReturn(TOKEN, NEW_TOKEN);
+    when(restTemplate.exchange(any(RequestEntity.class), eq(OrderableDto.class)))
+        .thenThrow(new HttpClientErrorException(HttpStatus.FORBIDDEN));
+
+    ExecutionResponse response = createManualTask(getEmptyMsgQueue(), START)
+        .send(new OrderableDto());
+
+    assertThat(response.getStatusCode()).isEqualTo(HttpStatus.FORBIDDEN.value());
+    verify(authService, never()).invalidateAccessToken(anyString());
+    verify(orderableFingerprintService, never()).saveFingerprint(any(OrderableDto.class));
+  }
+
+  @Test
+  public void shouldSendAllEntitiesAndCompletePipelineWhenStreamHasEnded()
+      throws InterruptedException {
+    IntegrationPipeline<OrderableDto> pipeline = getEmptyMsgQueue();
+    pipeline.put(new OrderableDto());
+    pipeline.put(new OrderableDto());
+    pipeline.endOfStream();
+    when(restTemplate.exchange(any(RequestEntity.class), eq(OrderableDto.class)))
+        .thenReturn(new ResponseEntity<>(new OrderableDto(), HttpStatus.OK));
+
+    createManualTask(pipeline, START).run();
+
+    assertThat(pipeline.getCompletion().isDone()).isTrue();
+    assertThat(pipeline.getCompletion().isCompletedExceptionally()).isFalse();
+    verify(orderableFingerprintService, times(2)).saveFingerprint(any(OrderableDto.class));
+    verify(executionRecorder, times(2)).record(any(IntegrationRunItem.class));
+    verify(executionRecorder, never())
+        .record(any(Execution.class), any(IntegrationRunItem.class));
+    verify(executionRecorder).flush();
+  }
+
+  @Test
+  public void shouldRecordResultOfEachOrderableInRun() throws InterruptedException {
+    OrderableDto orderable = createOrderable(UUID.randomUUID(), 1);
+    orderable.setProductCode(PRODUCT_CODE);
+
+    IntegrationPipeline<OrderableDto> pipeline = getEmptyMsgQueue();
+    pipeline.put(orderable);
+    pipeline.endOfStream();
+    when(restTemplate.exchange(any(RequestEntity.class), eq(OrderableDto.class)))
+        .thenThrow(new HttpClientErrorException(HttpStatus.BAD_REQUEST));
+
+    createManualTask(pipeline, START).run();
+
+    ArgumentCaptor<IntegrationRunItem> item = ArgumentCaptor.forClass(IntegrationRunItem.class);
+    verify(executionRecorder).record(item.capture());
+
+    assertThat(item.getValue().getRunId()).isEqualTo(run.getId());
+    assertThat(item.getValue().getProductId()).isEqualTo(orderable.getId());
+    assertThat(item.getValue().getProductCode()).isEqualTo(PRODUCT_CODE);
+    assertThat(item.getValue().getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST.value());
+    assertThat(run.getFailedEntities()).isEqualTo(1);
+    assertThat(run.getWrittenEntities()).isZero();
+  }
+
+  @Test
+  public void shouldRecordExecutionOfEachOrderableIfEnabled() throws InterruptedException {
+    IntegrationPipeline<OrderableDto> pipeline = getEmptyMsgQueue();
+    pipeline.put(createOrderable(UUID.randomUUID(), 1));
+    pipeline.endOfStream();
+    when(executionRecorder.isExecutionPerProduct()).thenReturn(true);
+    when(restTemplate.exchange(any(RequestEntity.class), eq(OrderableDto.class)))
+        .thenReturn(new ResponseEntity<>(new OrderableDto(), HttpStatus.OK));
+
+    createManualTask(pipeline, START).run();
+
+    ArgumentCaptor<Execution> execution = ArgumentCaptor.forClass(Execution.class);
+    ArgumentCaptor<IntegrationRunItem> item = ArgumentCaptor.forClass(IntegrationRunItem.class);
+    verify(executionRecorder).record(execution.capture(), item.capture());
+
+    assertThat(execution.getValue().getRunId()).isEqualTo(run.getId());
+    assertThat(execution.getValue().getStatus()).isEqualTo(ExecutionStatus.SUCCESS);
+    assertThat(item.getValue().getRunId()).isEqualTo(run.getId());
+  }
+
+  @Test
+  public void shouldFailPipelineIfInterrupted() {
+    IntegrationPipeline<OrderableDto> pipeline = getEmptyMsgQueue();
+
+    Thread.currentThread().interrupt();
+    createManualTask(pipeline, START).run();
+
+    assertThat(Thread.interrupted()).isTrue();
+    assertThat(pipeline.getCompletion().isCompletedExceptionally()).isTrue();
+  }
+
+  @Test
+  public void shouldKeepOrderOfChangesOfTheSameOrderableWhenSentConcurrently()
+      throws InterruptedException {
+    List<UUID> ids = new ArrayList<>();
+    for (int idx = 0; idx < 5; ++idx) {
+      ids.add(UUID.randomUUID());
+    }
+
+    IntegrationPipeline<OrderableDto> pipeline = new IntegrationPipeline<>(100);
+    for (int version = 0; version < 10; ++version) {
+      for (UUID id : ids) {
+        pipeline.put(createOrderable(id, version));
+      }
+    }
+    pipeline.endOfStream();
+
+    List<RequestEntity<?>> requests = Collections.synchronizedList(new ArrayList<>());
+    mockRequests(requests);
+
+    OrderableIntegrationSendTask task = createTask(true, ADMIN_UUID, pipeline, MANUAL_INT,
+        START, 3);
+    task.run();
+
+    assertThat(pipeline.getCompletion().isCompletedExceptionally()).isFalse();
+    assertThat(task.getWorkers()).hasSize(3);
+    List<OrderableDto> updated = getSentOrderables(requests);
+    assertThat(updated).hasSize(50);
+    for (UUID id : ids) {
+      assertThat(updated
+          .stream()
+          .filter(orderable -> id.equals(orderable.getId()))
+          .map(OrderableDto::getDescription)
+          .collect(Collectors.toList()))
+          .containsExactly("0", "1", "2", "3", "4", "5", "6", "7", "8", "9");
+    }
+  }
+
+  @Test
+  public void shouldExportWorkerStatistics() throws InterruptedException {
+    IntegrationPipeline<OrderableDto> pipeline = getEmptyMsgQueue();
+    UUID id = UUID.randomUUID();
+    pipeline.put(createOrderable(id, 0));
+    pipeline.put(createOrderable(id, 1));
+    pipeline.endOfStream();
+    mockRequests(new ArrayList<>());
+
+    OrderableIntegrationSendTask task = createTask(true, ADMIN_UUID, pipeline, MANUAL_INT,
+        START, 2);
+    task.run();
+
+    long sent = 0;
+    for (SendWorker<OrderableDto> worker : task.getWorkers()) {
+      SendWorkerDto dto = SendWorkerDto.newInstance(worker);
+      assertThat(dto.getFailedEntities()).isZero();
+      assertThat(dto.getQueuedEntities()).isZero();
+      sent += dto.getSentEntities();
+    }
+    assertThat(sent).isEqualTo(2);
+    assertThat(task.isRunning()).isFalse();
+  }
+
+  @Test
+  public void shouldExportQueueOfFetchedOrderables() throws InterruptedException {
+    IntegrationPipeline<OrderableDto> pipeline = getEmptyMsgQueue();
+    pipeline.put(createOrderable(UUID.randomUUID(), 0));
+    pipeline.put(createOrderable(UUID.randomUUID(), 0));
+
+    PostPayloadTaskDto dto = PostPayloadTaskDto
+        .newInstance(createManualTask(pipeline, START));
+
+    assertThat(dto.getQueuedEntities()).isEqualTo(2);
+    assertThat(dto.getQueueCapacity()).isEqualTo(10);
+    assertThat(dto.getFetchWaitTime()).isZero();
+  }
+
+  @Test
+  public void shouldOrderOrderablesWithoutIdByProductCode() {
+    OrderableDto orderable = new OrderableDto();
+    orderable.setProductCode(PRODUCT_CODE);
+
+    OrderableIntegrationSendTask task = createManualTask(getEmptyMsgQueue(), START);
+
+    assertThat(task.getOrderingKey(orderable)).isEqualTo(PRODUCT_CODE);
+    orderable.setId(UUID.randomUUID());
+    assertThat(task.getOrderingKey(orderable)).isEqualTo(orderable.getId());
+  }
+
+  @Test
+  public void shouldLookUpWaitingOrderablesWithSingleRequest() throws InterruptedException {
+    OrderableDto existing = createOrderable(UUID.randomUUID(), 0);
+    OrderableDto created = createOrderable(UUID.randomUUID(), 0);
+    IntegrationPipeline<OrderableDto> pipeline = getEmptyMsgQueue();
+    pipeline.put(createOrderable(existing.getId(), 1));
+    pipeline.put(created);
+    pipeline.endOfStream();
+
+    List<RequestEntity<?>> requests = new ArrayList<>();
+    mockRequests(requests);
+    when(orderableReferenceDataService.findByIds(anyCollectionOf(UUID.class)))
+        .thenReturn(Collections.singletonMap(existing.getId(), existing));
+
+    lookupBatchSize = 10;
+    createManualTask(pipeline, START).run();
+
+    verify(orderableReferenceDataService)
+        .findByIds(ImmutableSet.of(existing.getId(), created.getId()));
+    assertThat(requests)
+        .extracting(request -> request.getMethod() + " " + request.getUrl())
+        .containsExactly(
+            PUT + OLMIS_URL + API_PATH + existing.getId(),
+            PUT + OLMIS_URL + API_PATH);
+  }
+
+  @Test
+  public void shouldRetrieveOrderablesSeparatelyIfLookupHasFailed()
+      throws InterruptedException {
+    IntegrationPipeline<OrderableDto> pipeline = getEmptyMsgQueue();
+    pipeline.put(createOrderable(UUID.randomUUID(), 0));
+    pipeline.put(createOrderable(UUID.randomUUID(), 0));
+    pipeline.endOfStream();
+
+    List<RequestEntity<?>> requests = new ArrayList<>();
+    mockRequests(requests);
+    when(orderableReferenceDataService.findByIds(anyCollectionOf(UUID.class)))
+        .thenThrow(new ResourceAccessException("Connection refused"));
+
+    lookupBatchSize = 10;
+    createManualTask(pipeline, START).run();
+
+    assertThat(pipeline.getCompletion().isCompletedExceptionally()).isFalse();
+    assertThat(requests)
+        .extracting(RequestEntity::getMethod)
+        .containsExactly(HttpMethod.GET, HttpMethod.PUT, HttpMethod.GET, HttpMethod.PUT);
+  }
+
+  @Test
+  public void shouldRetrieveOrderableSeparatelyIfItIsSentTwiceInBatch()
+      throws InterruptedException {
+    UUID id = UUID.randomUUID();
+    IntegrationPipeline<OrderableDto> pipeline = getEmptyMsgQueue();
+    pipeline.put(createOrderable(id, 0));
+    pipeline.put(createOrderable(id, 1));
+    pipeline.endOfStream();
+
+    List<RequestEntity<?>> requests = new ArrayList<>();
+    mockRequests(requests);
+
+    lookupBatchSize = 10;
+    createManualTask(pipeline, START).run();
+
+    verify(orderableReferenceDataService, never()).findByIds(anyCollectionOf(UUID.class));
+    assertThat(requests)
+        .extracting(RequestEntity::getMethod)
+        .containsExactly(HttpMethod.GET, HttpMethod.PUT, HttpMethod.GET, HttpMethod.PUT);
+  }
+
+  @Test
+  public void shouldFindExistingOrderablesInIndexBuiltAtStart() throws InterruptedException {
+    OrderableDto existing = createOrderable(UUID.randomUUID(), 0);
+    existing.setProductCode(PRODUCT_CODE);
+    ProgramOrderableDto program = new ProgramOrderableDto();
+    program.setProgramId(UUID.randomUUID());
+    existing.getPrograms().add(program);
+    when(orderableReferenceDataService.findAll(0, 10))
+        .thenReturn(new PageImpl<>(Collections.singletonList(existing)));
+
+    OrderableDto updated = createOrderable(null, 1);
+    updated.setProductCode(PRODUCT_CODE);
+    OrderableDto created = createOrderable(UUID.randomUUID(), 0);
+    IntegrationPipeline<OrderableDto> pipeline = getEmptyMsgQueue();
+    pipeline.put(updated);
+    pipeline.put(created);
+    pipeline.endOfStream();
+
+    List<RequestEntity<?>> requests = new ArrayList<>();
+    mockRequests(requests);
+
+    lookupBatchSize = 10;
+    indexPageSize = 10;
+    createManualTask(pipeline, START).run();
+
+    verify(orderableReferenceDataService, never()).findByIds(anyCollectionOf(UUID.class));
+    assertThat(requests)
+        .extracting(request -> request.getMethod() + " " + request.getUrl())
+        .containsExactly(
+            PUT + OLMIS_URL + API_PATH + existing.getId(),
+            PUT + OLMIS_URL + API_PATH);
+    assertThat(updated.getPrograms()).containsExactly(program);
+  }
+
+  @Test
+  public void shouldRetrieveOrderablesSeparatelyIfIndexCannotBeBuilt()
+      throws InterruptedException {
+    when(orderableReferenceDataService.findAll(0, 10))
+        .thenThrow(new ResourceAccessException("Connection refused"));
+    IntegrationPipeline<OrderableDto> pipeline = getEmptyMsgQueue();
+    pipeline.put(createOrderable(UUID.randomUUID(), 0));
+    pipeline.endOfStream();
+
+    List<RequestEntity<?>> requests = new ArrayList<>();
+    mockRequests(requests);
+
+    indexPageSize = 10;
+    createManualTask(pipeline, START).run();
+
+    assertThat(requests)
+        .extracting(RequestEntity::getMethod)
+        .containsExactly(HttpMethod.GET, HttpMethod.PUT);
+  }
+
+  private void mockRequests(List<RequestEntity<?>> requests) {
+    when(restTemplate.exchange(any(RequestEntity.class), eq(OrderableDto.class)))
+        .thenAnswer(invocation -> {
+          requests.add((RequestEntity<?>) invocation.getArguments()[0]);
+          return new ResponseEntity<>(new OrderableDto(), HttpStatus.OK);
+        });
+  }
+
+  private List<OrderableDto> getSentOrderables(List<RequestEntity<?>> requests) {
+    synchronized (requests) {
+      return requests
+          .stream()
+          .filter(request -> HttpMethod.PUT == request.getMethod())
+          .map(request -> (OrderableDto) request.getBody())
+          .collect(Collectors.toList());
+    }
+  }
+
+  private OrderableDto createOrderable(UUID id, int version) {
+    OrderableDto orderable = new OrderableDto();
+    orderable.setId(id);
+    orderable.setDescription(Integer.toString(version));
+    return orderable;
+  }
+
+  private OrderableIntegrationSendTask createManualTask(IntegrationPipeline<OrderableDto> queue,
       Clock start) {
-    return createTask(true, ADMIN_UUID, queue, MANUAL_INT, start);
+    return createTask(true, ADMIN_UUID, queue, MANUAL_INT, start, 1);
   }
 
-  private OrderableIntegrationSendTask createScheduledTask(BlockingQueue<OrderableDto> queue,
+  private OrderableIntegrationSendTask createScheduledTask(
+      IntegrationPipeline<OrderableDto> queue,
       Clock start) {
-    return createTask(false, null, queue, SCHEDULED_INT, start);
+    return createTask(false, null, queue, SCHEDULED_INT, start, 1);
   }
 
   private OrderableIntegrationSendTask createTask(boolean manualExecution, UUID user,
-      BlockingQueue<OrderableDto> queue, Integration integration, Clock start) {
+      IntegrationPipeline<OrderableDto> queue, Integration integration, Clock start,
+      int concurrentRequests) {
     return new OrderableIntegrationSendTask(
-        queue, integration, user, OLMIS_ORDERABLE_URL, manualExecution,
-        executionRepository, start, objectMapper, authService, restTemplate);
+        queue, integration, run, user, OLMIS_URL, manualExecution,
+        executionRecorder, start, objectMapper, authService, restTemplate,
+        orderableFingerprintService, concurrentRequests, orderableReferenceDataService,
+        lookupBatchSize, indexPageSize);
   }
 
-  private BlockingQueue<OrderableDto> getEmptyMsgQueue() {
-    return new LinkedBlockingDeque<>();
+  private IntegrationPipeline<OrderableDto> getEmptyMsgQueue() {
+    return new IntegrationPipeline<>(10);
   }
 }
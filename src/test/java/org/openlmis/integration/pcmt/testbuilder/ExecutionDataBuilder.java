@@ -21,6 +21,7 @@ import java.util.UUID;
 
 import org.openlmis.integration.pcmt.domain.Execution;
 import org.openlmis.integration.pcmt.domain.ExecutionResponse;
+import org.openlmis.integration.pcmt.domain.ExecutionSummary;
 import org.openlmis.integration.pcmt.domain.Integration;
 
 public class ExecutionDataBuilder {
@@ -86,4 +87,20 @@ public class ExecutionDataBuilder {
 
     return execution;
   }
+
+  /**
+   * Builds new instance of ExecutionSummary of an Automatic execution.
+   */
+  public ExecutionSummary buildAsSummary() {
+    Execution execution = buildAsAutomatic();
+    ExecutionResponse executionResponse = execution.getResponse();
+
+    return new ExecutionSummary(execution.getId(), execution.isManualExecution(),
+        execution.getStatus(), execution.getDescription(), execution.getStartDate(),
+        execution.getEndDate(), execution.getUserId(), execution.getWrittenEntities(),
+        execution.getSkippedEntities(), execution.getRunId(),
+        null == executionResponse ? null : execution.getEndDate(),
+        null == executionResponse ? null : executionResponse.getStatusCode(),
+        null == executionResponse ? null : executionResponse.getBody().length());
+  }
 }
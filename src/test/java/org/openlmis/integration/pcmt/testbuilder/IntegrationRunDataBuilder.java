@@ -0,0 +1,66 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.integration.pcmt.testbuilder;
+
+import java.time.Clock;
+import java.util.UUID;
+import org.openlmis.integration.pcmt.domain.Integration;
+import org.openlmis.integration.pcmt.domain.IntegrationRun;
+
+public class IntegrationRunDataBuilder {
+
+  private UUID id = UUID.randomUUID();
+  private Integration integration = new IntegrationDataBuilder().build();
+  private Clock clock = Clock.systemUTC();
+  private UUID userId = UUID.randomUUID();
+  private boolean fullSync;
+
+  public IntegrationRunDataBuilder withIntegration(Integration integration) {
+    this.integration = integration;
+    return this;
+  }
+
+  public IntegrationRunDataBuilder withFullSync() {
+    this.fullSync = true;
+    return this;
+  }
+
+  /**
+   * Builds new instance of IntegrationRun (with id field) started by the scheduler.
+   */
+  public IntegrationRun buildAsAutomatic() {
+    IntegrationRun run = buildAsNewAutomatic();
+    run.setId(id);
+    return run;
+  }
+
+  /**
+   * Builds new instance of IntegrationRun (with id field) started by a user.
+   */
+  public IntegrationRun buildAsManual() {
+    IntegrationRun run = IntegrationRun.forManualExecution(integration, userId, fullSync, clock);
+    run.setId(id);
+    return run;
+  }
+
+  /**
+   * Builds new instance of IntegrationRun as a new object (without id field) started by the
+   * scheduler.
+   */
+  public IntegrationRun buildAsNewAutomatic() {
+    return IntegrationRun.forAutomaticExecution(integration, fullSync, clock);
+  }
+}
@@ -69,4 +69,9 @@ public class ItemDataBuilder {
     this.values = values;
     return this;
   }
+
+  public ItemDataBuilder withUpdated(String updated) {
+    this.updated = updated;
+    return this;
+  }
 }
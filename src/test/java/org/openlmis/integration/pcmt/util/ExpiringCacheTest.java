@@ -0,0 +1,151 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.integration.pcmt.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ExpiringCacheTest {
+
+  private static final Instant NOW = Instant.parse("2020-05-19T10:00:00Z");
+  private static final String KEY = "key";
+  private static final String RELOADED = "key2";
+
+  private Clock clock = mock(Clock.class);
+
+  private ExpiringCache<String, String> cache;
+
+  private AtomicInteger loads = new AtomicInteger();
+  private Function<String, String> loader = key -> key + loads.incrementAndGet();
+
+  @Before
+  public void setUp() {
+    when(clock.instant()).thenReturn(NOW);
+    cache = new ExpiringCache<>(clock, Duration.ofSeconds(60), 2);
+  }
+
+  @Test
+  public void shouldReturnCachedValueUntilItExpires() {
+    assertThat(cache.get(KEY, loader)).isEqualTo("key1");
+    assertThat(cache.get(KEY, loader)).isEqualTo("key1");
+
+    when(clock.instant()).thenReturn(NOW.plusSeconds(60));
+
+    assertThat(cache.get(KEY, loader)).isEqualTo(RELOADED);
+    assertThat(cache.getHitCount()).isEqualTo(1);
+    assertThat(cache.getMissCount()).isEqualTo(2);
+  }
+
+  @Test
+  public void shouldExpireValueAtItsOwnExpirationIfItIsEarlier() {
+    cache.get(KEY, loader, value -> NOW.plusSeconds(10));
+
+    when(clock.instant()).thenReturn(NOW.plusSeconds(10));
+
+    assertThat(cache.get(KEY, loader)).isEqualTo(RELOADED);
+  }
+
+  @Test
+  public void shouldNotKeepValueLongerThanTimeToLive() {
+    cache.get(KEY, loader, value -> NOW.plusSeconds(3600));
+
+    when(clock.instant()).thenReturn(NOW.plusSeconds(60));
+
+    assertThat(cache.get(KEY, loader)).isEqualTo(RELOADED);
+  }
+
+  @Test
+  public void shouldNotCacheNullValues() {
+    cache.get(KEY, key -> null);
+
+    assertThat(cache.size()).isZero();
+    assertThat(cache.get(KEY, loader)).isEqualTo("key1");
+  }
+
+  @Test
+  public void shouldRemoveLeastRecentlyUsedValueWhenFull() {
+    cache.get("a", loader);
+    cache.get("b", loader);
+    cache.get("a", loader);
+    cache.get("c", loader);
+
+    assertThat(cache.size()).isEqualTo(2);
+    assertThat(cache.get("a", loader)).isEqualTo("a1");
+    assertThat(cache.get("c", loader)).isEqualTo("c3");
+    assertThat(cache.get("b", loader)).isEqualTo("b4");
+  }
+
+  @Test
+  public void shouldNotExceedMaxSizeWhenUsedConcurrently() throws Exception {
+    int threads = 8;
+    AtomicInteger maxObservedSize = new AtomicInteger();
+    Function<String, String> sizeCheckingLoader = key -> {
+      maxObservedSize.accumulateAndGet(cache.size(), Math::max);
+      return key;
+    };
+    CountDownLatch start = new CountDownLatch(1);
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+    try {
+      List<Future<?>> results = new ArrayList<>();
+      for (int thread = 0; thread < threads; ++thread) {
+        String prefix = "thread" + thread + "-";
+        results.add(executor.submit(() -> {
+          start.await();
+          for (int key = 0; key < 1000; ++key) {
+            cache.get(prefix + key, sizeCheckingLoader);
+          }
+          return null;
+        }));
+      }
+
+      start.countDown();
+      for (Future<?> result : results) {
+        result.get(10, TimeUnit.SECONDS);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    assertThat(maxObservedSize.get()).isLessThanOrEqualTo(2);
+    assertThat(cache.size()).isEqualTo(2);
+    assertThat(cache.getMissCount()).isEqualTo(threads * 1000L);
+  }
+
+  @Test
+  public void shouldInvalidateValue() {
+    cache.get(KEY, loader);
+    cache.invalidate(KEY);
+
+    assertThat(cache.get(KEY, loader)).isEqualTo(RELOADED);
+  }
+}
@@ -24,9 +24,11 @@ import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.time.Clock;
 import java.util.UUID;
 import org.junit.Before;
 import org.junit.Test;
@@ -41,10 +43,13 @@ import org.openlmis.integration.pcmt.service.referencedata.UserReferenceDataServ
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.oauth2.provider.OAuth2Authentication;
+import org.springframework.test.util.ReflectionTestUtils;
 
 @RunWith(MockitoJUnitRunner.class)
 public class AuthenticationHelperTest {
 
+  private static final String RIGHT_NAME = "rightName";
+
   @Mock
   private UserReferenceDataService userReferenceDataService;
 
@@ -66,6 +71,12 @@ public class AuthenticationHelperTest {
     when(securityContext.getAuthentication()).thenReturn(authentication);
 
     SecurityContextHolder.setContext(securityContext);
+
+    ReflectionTestUtils.setField(authenticationHelper, "clock", Clock.systemUTC());
+    ReflectionTestUtils.setField(authenticationHelper, "userTtlSeconds", 60);
+    ReflectionTestUtils.setField(authenticationHelper, "rightTtlSeconds", 3600);
+    ReflectionTestUtils.setField(authenticationHelper, "maxSize", 10);
+    authenticationHelper.init();
   }
 
   @Test
@@ -110,10 +121,10 @@ public class AuthenticationHelperTest {
   public void shouldReturnRight() throws Exception {
     // given
     RightDto right = mock(RightDto.class);
-    when(rightReferenceDataService.findRight("rightName")).thenReturn(right);
+    when(rightReferenceDataService.findRight(RIGHT_NAME)).thenReturn(right);
 
     // when
-    RightDto dto = authenticationHelper.getRight("rightName");
+    RightDto dto = authenticationHelper.getRight(RIGHT_NAME);
 
     // then
     assertNotNull(dto);
@@ -126,6 +137,40 @@ public class AuthenticationHelperTest {
     when(rightReferenceDataService.findRight(anyString())).thenReturn(null);
 
     // when
-    authenticationHelper.getRight("rightName");
+    authenticationHelper.getRight(RIGHT_NAME);
+  }
+
+  @Test
+  public void shouldCacheUser() {
+    // given
+    UserDto userMock = new UserDto();
+    when(authentication.isClientOnly()).thenReturn(false);
+    when(userReferenceDataService.findOne(userId)).thenReturn(userMock);
+
+    // when
+    authenticationHelper.getCurrentUser();
+    UserDto user = authenticationHelper.getCurrentUser();
+
+    // then
+    assertEquals(userMock, user);
+    verify(userReferenceDataService, times(1)).findOne(userId);
+    assertEquals(1, authenticationHelper.getUserCache().getHitCount());
+    assertEquals(1, authenticationHelper.getUserCache().getMissCount());
+  }
+
+  @Test
+  public void shouldCacheRight() {
+    // given
+    RightDto right = mock(RightDto.class);
+    when(rightReferenceDataService.findRight(RIGHT_NAME)).thenReturn(right);
+
+    // when
+    authenticationHelper.getRight(RIGHT_NAME);
+    RightDto dto = authenticationHelper.getRight(RIGHT_NAME);
+
+    // then
+    assertThat(dto, is(right));
+    verify(rightReferenceDataService, times(1)).findRight(RIGHT_NAME);
+    assertEquals(1, authenticationHelper.getRightCache().getHitCount());
   }
 }
@@ -0,0 +1,78 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.integration.pcmt.web;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import java.io.IOException;
+import java.io.StringWriter;
+import org.junit.Test;
+import org.openlmis.integration.pcmt.domain.ExecutionSummary;
+import org.openlmis.integration.pcmt.testbuilder.ExecutionDataBuilder;
+
+public class ExecutionExportWriterTest {
+
+  private ObjectMapper objectMapper = new ObjectMapper()
+      .registerModule(new JavaTimeModule())
+      .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+      .enable(SerializationFeature.INDENT_OUTPUT);
+
+  private ExecutionSummary summary = new ExecutionDataBuilder().buildAsSummary();
+  private ExecutionSummary summary1 = new ExecutionDataBuilder().withoutResponse()
+      .buildAsSummary();
+
+  private StringWriter target = new StringWriter();
+
+  @Test
+  public void shouldWriteCsvWithHeader() throws IOException {
+    write(ExecutionExportFormat.CSV);
+
+    String[] lines = target.toString().split("\r\n");
+    assertThat(lines).hasSize(3);
+    assertThat(lines[0]).isEqualTo(String.join(",", ExecutionExportWriter.CSV_HEADER));
+    assertThat(lines[1])
+        .startsWith(summary.getId() + ",false," + summary.getStatus() + ",")
+        .endsWith("," + summary.getStatusCode() + "," + summary.getStoredBodyBytes());
+    assertThat(lines[2])
+        .startsWith(summary1.getId().toString())
+        .endsWith(",,,");
+  }
+
+  @Test
+  public void shouldWriteOneJsonObjectPerLine() throws IOException {
+    write(ExecutionExportFormat.NDJSON);
+
+    String[] lines = target.toString().split("\n");
+    assertThat(lines).hasSize(2);
+    assertThat(objectMapper.readTree(lines[0]).get("id").asText())
+        .isEqualTo(summary.getId().toString());
+    assertThat(objectMapper.readTree(lines[0]).get("response").get("storedBodyBytes").asInt())
+        .isEqualTo(summary.getStoredBodyBytes());
+    assertThat(objectMapper.readTree(lines[1]).get("id").asText())
+        .isEqualTo(summary1.getId().toString());
+  }
+
+  private void write(ExecutionExportFormat format) throws IOException {
+    try (ExecutionExportWriter writer = ExecutionExportWriter
+        .create(format, target, objectMapper)) {
+      writer.write(summary);
+      writer.write(summary1);
+    }
+  }
+}
@@ -0,0 +1,84 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.integration.pcmt.web;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import nl.jqno.equalsverifier.EqualsVerifier;
+import org.junit.Test;
+import org.openlmis.integration.pcmt.ToStringTestUtils;
+import org.openlmis.integration.pcmt.testbuilder.ExecutionDataBuilder;
+
+public class KeysetPageTest {
+
+  private ExecutionDto first = ExecutionDto.newInstance(
+      new ExecutionDataBuilder().buildAsSummary());
+  private ExecutionDto second = ExecutionDto.newInstance(
+      new ExecutionDataBuilder().buildAsSummary());
+  private ExecutionDto third = ExecutionDto.newInstance(
+      new ExecutionDataBuilder().buildAsSummary());
+
+  @Test
+  public void shouldReturnPositionOfLastRecordIfThereIsNextPage() {
+    KeysetPage<ExecutionDto> page = of(Arrays.asList(first, second, third), 2);
+
+    assertThat(page.getContent()).containsExactly(first, second);
+    assertThat(page.getSize()).isEqualTo(2);
+    assertThat(page.getNumberOfElements()).isEqualTo(2);
+    assertThat(page.isLast()).isFalse();
+    assertThat(page.getNextStartDate()).isEqualTo(second.getStartDate());
+    assertThat(page.getNextId()).isEqualTo(second.getId());
+  }
+
+  @Test
+  public void shouldMarkPageAsLastIfThereIsNoExtraRecord() {
+    KeysetPage<ExecutionDto> page = of(Arrays.asList(first, second), 2);
+
+    assertThat(page.getContent()).containsExactly(first, second);
+    assertThat(page.getNumberOfElements()).isEqualTo(2);
+    assertThat(page.isLast()).isTrue();
+    assertThat(page.getNextStartDate()).isNull();
+    assertThat(page.getNextId()).isNull();
+  }
+
+  @Test
+  public void shouldHandleEmptyPage() {
+    KeysetPage<ExecutionDto> page = of(Collections.emptyList(), 2);
+
+    assertThat(page.getContent()).isEmpty();
+    assertThat(page.getNumberOfElements()).isZero();
+    assertThat(page.isLast()).isTrue();
+  }
+
+  @Test
+  public void equalsContract() {
+    EqualsVerifier
+        .forClass(KeysetPage.class)
+        .verify();
+  }
+
+  @Test
+  public void shouldImplementToString() {
+    ToStringTestUtils.verify(KeysetPage.class, of(Arrays.asList(first, second, third), 2));
+  }
+
+  private KeysetPage<ExecutionDto> of(List<ExecutionDto> records, int size) {
+    return KeysetPage.of(records, size, ExecutionDto::getStartDate, ExecutionDto::getId);
+  }
+}
@@ -15,10 +15,14 @@
 
 package org.openlmis.integration.pcmt.web;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.openlmis.integration.pcmt.testbuilder.OAuth2AuthenticationDataBuilder.SERVICE_CLIENT_ID;
 
+import java.time.Clock;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
@@ -76,6 +80,10 @@ public class PermissionServiceTest {
     rightDto = ObjectGenerator.of(RightDto.class);
 
     ReflectionTestUtils.setField(permissionService, "serviceTokenClientId", SERVICE_CLIENT_ID);
+    ReflectionTestUtils.setField(permissionService, "clock", Clock.systemUTC());
+    ReflectionTestUtils.setField(permissionService, "decisionTtlSeconds", 60);
+    ReflectionTestUtils.setField(permissionService, "maxSize", 10);
+    permissionService.init();
   }
 
   @Test
@@ -113,6 +121,49 @@ public class PermissionServiceTest {
     permissionService.canManagePcmt();
   }
 
+  @Test
+  public void shouldCacheDecisionForUserAndRight() {
+    when(securityContext.getAuthentication()).thenReturn(userAuthentication);
+
+    when(authenticationHelper.getCurrentUser()).thenReturn(userDto);
+    when(authenticationHelper.getRight(eq(PCMT_MANAGEMENT))).thenReturn(rightDto);
+
+    when(userReferenceDataService.hasRight(userDto.getId(), rightDto.getId(), null, null, null))
+        .thenReturn(new ResultDto<>(true));
+
+    permissionService.canManagePcmt();
+    permissionService.canManagePcmt();
+
+    verify(userReferenceDataService, times(1))
+        .hasRight(userDto.getId(), rightDto.getId(), null, null, null);
+    assertThat(permissionService.getDecisionCache().getHitCount()).isEqualTo(1);
+    assertThat(permissionService.getDecisionCache().getMissCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void shouldCacheNegativeDecision() {
+    when(securityContext.getAuthentication()).thenReturn(userAuthentication);
+
+    when(authenticationHelper.getCurrentUser()).thenReturn(userDto);
+    when(authenticationHelper.getRight(eq(PCMT_MANAGEMENT))).thenReturn(rightDto);
+
+    when(userReferenceDataService.hasRight(userDto.getId(), rightDto.getId(), null, null, null))
+        .thenReturn(new ResultDto<>(false));
+
+    int denied = 0;
+    for (int attempt = 0; attempt < 2; ++attempt) {
+      try {
+        permissionService.canManagePcmt();
+      } catch (MissingPermissionException exp) {
+        ++denied;
+      }
+    }
+
+    assertThat(denied).isEqualTo(2);
+    verify(userReferenceDataService, times(1))
+        .hasRight(userDto.getId(), rightDto.getId(), null, null, null);
+  }
+
   private void expectException() {
     exception.expect(MissingPermissionException.class);
     exception.expectMessage(MessageKeys.ERROR_PERMISSION_MISSING);